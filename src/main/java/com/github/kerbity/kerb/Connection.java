@@ -20,6 +20,8 @@
 
 package com.github.kerbity.kerb;
 
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.task.TaskContainer;
 import com.github.minemaniauk.developertools.console.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -29,8 +31,10 @@ import javax.net.ssl.*;
 import java.io.*;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 import java.security.*;
 import java.security.cert.CertificateException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents a connection to a socket.
@@ -39,8 +43,11 @@ public abstract class Connection extends TaskContainer {
 
     private @Nullable Socket socket;
     private @NotNull Logger logger;
-    private PrintWriter printWriter;
-    private BufferedReader bufferedReader;
+    private OutputStream outputStream;
+    private DataInputStream inputStream;
+    private final @NotNull ReentrantLock writeLock;
+    private volatile boolean framed;
+    private volatile boolean nestedData;
 
     /**
      * Used to create an instance of a new connection.
@@ -48,6 +55,7 @@ public abstract class Connection extends TaskContainer {
     public Connection() {
         this.logger = new Logger(false)
                 .setBothPrefixes("[UNDEFINED]");
+        this.writeLock = new ReentrantLock();
     }
 
     /**
@@ -67,6 +75,46 @@ public abstract class Connection extends TaskContainer {
         return this.socket;
     }
 
+    /**
+     * Used to check if the connection is
+     * using the framed protocol.
+     *
+     * @return True if data is sent and read as frames.
+     */
+    public boolean isFramed() {
+        return this.framed;
+    }
+
+    /**
+     * Used to set if the connection should use the framed protocol.
+     * This should only be changed once both sides have agreed.
+     *
+     * @param framed True if data should be sent and read as frames.
+     */
+    protected void setFramed(boolean framed) {
+        this.framed = framed;
+    }
+
+    /**
+     * Used to check if packets are sent with
+     * their data as nested json.
+     *
+     * @return True if the data is not sent as a json string.
+     */
+    public boolean isNestedData() {
+        return this.nestedData;
+    }
+
+    /**
+     * Used to set if packets should be sent with their data as nested json.
+     * This should only be changed once both sides have agreed.
+     *
+     * @param nestedData True if the data should not be sent as a json string.
+     */
+    protected void setNestedData(boolean nestedData) {
+        this.nestedData = nestedData;
+    }
+
     /**
      * Used to set up the in and out streams.
      * This will enable the sending and reading of data.
@@ -76,13 +124,15 @@ public abstract class Connection extends TaskContainer {
     protected boolean setupStreams(@NotNull Socket socket, @NotNull Logger logger) {
         this.socket = socket;
         this.logger = logger;
+        this.framed = false;
+        this.nestedData = false;
 
         try {
 
             if (this.getDebugMode()) this.logger.log("[DEBUG] Setting up streams.");
 
-            this.printWriter = new PrintWriter(socket.getOutputStream(), true);
-            this.bufferedReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            this.outputStream = new BufferedOutputStream(socket.getOutputStream());
+            this.inputStream = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
             return true;
 
         } catch (IOException exception) {
@@ -91,19 +141,110 @@ public abstract class Connection extends TaskContainer {
         }
     }
 
+    /**
+     * Used to set up the out stream for a connection
+     * where the incoming data is given to the connection
+     * instead of being read, such as non-blocking channels.
+     * {@link Connection#read()} can not be used after this.
+     * The stream is not buffered, as payloads are written
+     * once per send and then flushed.
+     *
+     * @param socket       The socket view of the connection.
+     * @param outputStream The stream to write data to.
+     * @param logger       The instance of the logger.
+     * @return True if successful.
+     */
+    protected boolean setupStreams(@NotNull Socket socket, @NotNull OutputStream outputStream, @NotNull Logger logger) {
+        this.socket = socket;
+        this.logger = logger;
+        this.framed = false;
+        this.nestedData = false;
+
+        if (this.getDebugMode()) this.logger.log("[DEBUG] Setting up output stream.");
+
+        this.outputStream = outputStream;
+        this.inputStream = null;
+        return true;
+    }
+
     /**
      * Used to send data though the socket.
      *
      * @param data The data to send.
      */
     protected void send(@NotNull String data) {
+        this.send(Frame.UNKNOWN_TYPE, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Used to send a packet though the socket.
+     * When using frames, the packet type will be
+     * sent in the frame header.
+     * The data is only nested if both sides have agreed.
+     *
+     * @param packet The packet to send.
+     */
+    protected void send(@NotNull Packet packet) {
+        this.send(packet.toFrame(this.nestedData));
+    }
+
+    /**
+     * Used to send a frame though the socket.
+     * The payload is not copied or re-encoded, so the
+     * same frame can be sent to many connections.
+     *
+     * @param frame The frame to send.
+     */
+    protected void send(@NotNull Frame frame) {
+        this.send(frame.getType(), frame.getPayload());
+    }
+
+    /**
+     * Used to send a payload though the socket.
+     * When using frames, the payload is sent with a header.
+     * Otherwise, it is sent as a line.
+     *
+     * @param type    The packet type code.
+     * @param payload The payload to send.
+     */
+    protected void send(byte type, byte @NotNull [] payload) {
         if (this.socket == null) return;
         if (this.socket.isClosed()) return;
 
-        this.printWriter.println(data);
+        try {
+
+            // A lock is used instead of synchronized so virtual
+            // threads can unmount while waiting for the socket.
+            this.writeLock.lock();
+            try {
+                if (this.framed) {
+                    this.outputStream.write(new byte[]{
+                            (byte) (payload.length >>> 24),
+                            (byte) (payload.length >>> 16),
+                            (byte) (payload.length >>> 8),
+                            (byte) payload.length,
+                            type
+                    });
+                    this.outputStream.write(payload);
+                } else {
+                    this.outputStream.write(payload);
+                    this.outputStream.write('\n');
+                }
+                this.outputStream.flush();
+            } finally {
+                this.writeLock.unlock();
+            }
+
+        } catch (IOException exception) {
+            if (this.getDebugMode()) this.logger
+                    .createExtension("[" + this.socket.getLocalPort() + "] ")
+                    .log("&7[DEBUG] Unable to send data. " + exception.getMessage());
+            return;
+        }
+
         if (this.getDebugMode()) this.logger
                 .createExtension("[" + this.socket.getLocalPort() + "] ")
-                .log("&7[DEBUG] Send {data: \"" + data + "\"}");
+                .log("&7[DEBUG] Send {data: \"" + new String(payload, StandardCharsets.UTF_8) + "\"}");
     }
 
     /**
@@ -120,9 +261,6 @@ public abstract class Connection extends TaskContainer {
             builder.append(item).append(",");
         }
         this.send(builder.toString());
-        if (this.getDebugMode()) this.logger
-                .createExtension("[" + this.socket.getLocalPort() + "] ")
-                .log("&7[DEBUG] Send {data: \"" + builder + "\"}");
     }
 
     /**
@@ -134,6 +272,21 @@ public abstract class Connection extends TaskContainer {
      * @throws IOException Read error
      */
     protected String read() throws IOException {
+        Frame frame = this.readFrame();
+        if (frame == null) return null;
+        return frame.getPayloadString();
+    }
+
+    /**
+     * Used to read the next frame from the socket.
+     * If the framed protocol is not being used, a line
+     * will be read and returned as a frame with an unknown type.
+     *
+     * @return The frame read from the socket.
+     * Null if the socket was closed.
+     * @throws IOException Read error
+     */
+    protected @Nullable Frame readFrame() throws IOException {
         if (socket == null) return null;
         if (socket.isClosed()) return null;
 
@@ -143,11 +296,11 @@ public abstract class Connection extends TaskContainer {
                     .createExtension("[" + this.socket.getLocalPort() + "] ")
                     .log("&7[DEBUG] Waiting for data.");
 
-            String data = this.bufferedReader.readLine();
+            Frame frame = this.framed ? this.readFramedPayload() : this.readLinePayload();
             if (this.getDebugMode()) this.logger
                     .createExtension("[" + this.socket.getLocalPort() + "] ")
-                    .log("&7[DEBUG] Read {data: \"" + data + "\"}");
-            return data;
+                    .log("&7[DEBUG] Read {data: \"" + frame + "\"}");
+            return frame;
 
         } catch (SocketException exception) {
             if (exception.getMessage().contains("Socket closed")) {
@@ -160,34 +313,106 @@ public abstract class Connection extends TaskContainer {
         }
     }
 
+    private @Nullable Frame readFramedPayload() throws IOException {
+        try {
+
+            int length = this.inputStream.readInt();
+            byte type = this.inputStream.readByte();
+
+            if (length < 0 || length > Frame.MAX_PAYLOAD_SIZE) {
+                throw new IOException("Received a frame with an invalid length of " + length + ".");
+            }
+
+            byte[] payload = new byte[length];
+            this.inputStream.readFully(payload);
+            return new Frame(type, payload);
+
+        } catch (EOFException exception) {
+            return null;
+        }
+    }
+
+    private @Nullable Frame readLinePayload() throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        int value;
+        while ((value = this.inputStream.read()) != -1) {
+            if (value == '\n') return new Frame(Frame.UNKNOWN_TYPE, Connection.stripCarriageReturn(buffer.toByteArray()));
+
+            // Check if the line is too long, so the other side
+            // can't fill the memory before it has been validated.
+            if (buffer.size() >= Frame.MAX_PAYLOAD_SIZE) {
+                this.logger.warn("Received a line longer than " + Frame.MAX_PAYLOAD_SIZE + " bytes. Disconnecting.");
+                return null;
+            }
+
+            buffer.write(value);
+        }
+
+        // The stream has ended.
+        if (buffer.size() == 0) return null;
+        return new Frame(Frame.UNKNOWN_TYPE, Connection.stripCarriageReturn(buffer.toByteArray()));
+    }
+
     protected byte[] readBytes() throws IOException {
         if (socket == null) return null;
         if (socket.isClosed()) return null;
 
         String byteListString = this.read();
+        byte[] byteList = Connection.parseBytes(byteListString);
 
-        byte[] byteList = new byte[byteListString.split(",").length];
+        if (this.getDebugMode()) this.logger
+                .createExtension("[" + this.socket.getLocalPort() + "] ")
+                .log("&7[DEBUG] Read {data: \"" + byteList + "\"}");
+        return byteList;
+    }
+
+    /**
+     * Used to close the input and output streams.
+     *
+     * @throws IOException Error when closing the input stream.
+     */
+    protected void closeStreams() throws IOException {
+        if (this.outputStream != null) {
+            try {
+                this.outputStream.close();
+            } catch (IOException ignored) {
+            }
+        }
+        if (this.inputStream != null) this.inputStream.close();
+    }
+
+    /**
+     * Used to convert a byte array sent with
+     * {@link Connection#send(byte[])} back into bytes.
+     *
+     * @param byteListString The bytes separated by commas.
+     * @return The byte array.
+     */
+    protected static byte @NotNull [] parseBytes(@NotNull String byteListString) {
+        String[] byteStringList = byteListString.split(",");
+        byte[] byteList = new byte[byteStringList.length];
 
         int index = 0;
-        for (String byteString : byteListString.split(",")) {
+        for (String byteString : byteStringList) {
             byteList[index] = Byte.parseByte(byteString);
             index++;
         }
 
-        if (this.getDebugMode()) this.logger
-                .createExtension("[" + this.socket.getLocalPort() + "] ")
-                .log("&7[DEBUG] Read {data: \"" + byteList + "\"}");
         return byteList;
     }
 
     /**
-     * Used to close the input and output streams.
+     * Used to remove a trailing carriage return from a line.
      *
-     * @throws IOException Error when closing the buffered reader.
+     * @param line The line that was read.
+     * @return The line without the carriage return.
      */
-    protected void closeStreams() throws IOException {
-        this.printWriter.close();
-        this.bufferedReader.close();
+    private static byte @NotNull [] stripCarriageReturn(byte @NotNull [] line) {
+        if (line.length == 0 || line[line.length - 1] != '\r') return line;
+        byte[] stripped = new byte[line.length - 1];
+        System.arraycopy(line, 0, stripped, 0, stripped.length);
+        return stripped;
     }
 
     /**
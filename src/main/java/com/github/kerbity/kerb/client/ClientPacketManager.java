@@ -44,10 +44,15 @@ public class ClientPacketManager {
     public ClientPacketManager(@NotNull KerbClient client) {
         this.packetManagerList = new ArrayList<>();
         this.packetManagerList.add(new ClientAmountPacketManager(client));
+        this.packetManagerList.add(new EventCancelPacketManager(client));
         this.packetManagerList.add(new EventPacketManager(client));
         this.packetManagerList.add(new EventResultPacketManager(client));
+        this.packetManagerList.add(new EventResultsPacketManager(client));
+        this.packetManagerList.add(new EventRecipientsPacketManager(client));
         this.packetManagerList.add(new ObjectPacketManager(client));
         this.packetManagerList.add(new ServerEventPacketManager(client));
+        this.packetManagerList.add(new SubscriptionPacketManager(client));
+        this.packetManagerList.add(new TypeIdsPacketManager(client));
     }
 
     /**
@@ -26,12 +26,25 @@ import com.github.kerbity.kerb.client.listener.ObjectListener;
 import com.github.kerbity.kerb.client.listener.PriorityEventListener;
 import com.github.kerbity.kerb.client.registeredclient.RegisteredClient;
 import com.github.kerbity.kerb.indicator.PasswordEncryption;
+import com.github.kerbity.kerb.packet.BalanceStrategy;
+import com.github.kerbity.kerb.packet.Capability;
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.JsonPayloadCodec;
 import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketHeader;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.PayloadCodec;
+import com.github.kerbity.kerb.packet.PayloadCodecRegistry;
+import com.github.kerbity.kerb.packet.TypeRegistry;
 import com.github.kerbity.kerb.packet.event.Event;
 import com.github.kerbity.kerb.packet.event.Priority;
 import com.github.kerbity.kerb.result.CompletableResultSet;
 import com.github.kerbity.kerb.result.CompleteReason;
+import com.github.kerbity.kerb.result.CompletionCondition;
+import com.github.kerbity.kerb.task.DispatchExecutor;
+import com.github.kerbity.kerb.task.KerbThreads;
+import com.github.kerbity.kerb.task.RejectionPolicy;
+import com.github.kerbity.kerb.task.TimingWheel;
 import com.github.minemaniauk.developertools.console.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -43,6 +56,8 @@ import java.net.ConnectException;
 import java.security.KeyStore;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Represents a kerb client.
@@ -66,10 +81,21 @@ public class KerbClient extends Connection implements RegisteredClient, Password
     private boolean isConnected;
     private boolean isValid;
     private boolean debugMode;
+    private boolean framedProtocol;
+    private boolean aggregateResults;
+    private @NotNull String payloadCodecIdentifier;
+    private volatile @NotNull PayloadCodec payloadCodec;
+    private volatile int amountOfClients;
+    private volatile @NotNull Set<String> capabilities;
+    private volatile @NotNull CompletableResultSet<Boolean> subscriptionResult;
+    private @NotNull DispatchExecutor dispatchExecutor;
 
     private @NotNull List<@NotNull PriorityEventListener<?>> eventListenerList;
     private final @NotNull List<@NotNull ObjectListener<?>> objectListenerList;
     private final @NotNull Map<@NotNull String, @NotNull CompletableResultSet<?>> resultMap;
+    private final @NotNull Set<@NotNull String> channelSet;
+    private final @NotNull Set<@NotNull String> cancelledEventSet;
+    private final @NotNull TypeRegistry typeRegistry;
     private final @NotNull ClientPacketManager packetManager;
     private int reconnectAttempts;
 
@@ -115,10 +141,27 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         this.isConnected = false;
         this.isValid = false;
         this.debugMode = false;
+        this.framedProtocol = true;
+        this.aggregateResults = false;
+        this.payloadCodecIdentifier = JsonPayloadCodec.IDENTIFIER;
+        this.payloadCodec = JsonPayloadCodec.getShared();
+        this.amountOfClients = -1;
+        this.capabilities = Set.of();
+        this.subscriptionResult = new CompletableResultSet<>(0);
+        this.dispatchExecutor = new DispatchExecutor(
+                "kerb-client-dispatch",
+                DispatchExecutor.DEFAULT_THREADS,
+                DispatchExecutor.DEFAULT_QUEUE_SIZE,
+                RejectionPolicy.CALLER_RUNS,
+                this.logger
+        );
 
         this.eventListenerList = new ArrayList<>();
         this.objectListenerList = new ArrayList<>();
-        this.resultMap = new HashMap<>();
+        this.resultMap = new ConcurrentHashMap<>();
+        this.channelSet = ConcurrentHashMap.newKeySet();
+        this.cancelledEventSet = ConcurrentHashMap.newKeySet();
+        this.typeRegistry = new TypeRegistry();
         this.packetManager = new ClientPacketManager(this);
         this.reconnectAttempts = 0;
     }
@@ -340,6 +383,10 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         // Add the result to the map.
         this.resultMap.put(sequenceIdentifier, resultCollection);
 
+        // Wake the reader if it is waiting for the dispatch
+        // executor, so it can read the results.
+        this.dispatchExecutor.signal();
+
         // Remove the result after the max wait time.
         this.runTask(() -> {
 
@@ -360,6 +407,12 @@ public class KerbClient extends Connection implements RegisteredClient, Password
 
         }, this.maxWaitTime, sequenceIdentifier);
 
+        // Stop waiting once the results are complete.
+        resultCollection.onComplete(results -> {
+            this.stopTask(sequenceIdentifier);
+            this.removeResult(sequenceIdentifier);
+        });
+
         return this;
     }
 
@@ -374,6 +427,67 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         return this;
     }
 
+    /**
+     * Used to get the numbers the server gave to
+     * event and object classes. This is also used to
+     * load the classes named in packets.
+     *
+     * @return The type registry.
+     */
+    public @NotNull TypeRegistry getTypeRegistry() {
+        return this.typeRegistry;
+    }
+
+    /**
+     * Used to record that the caller of an event no longer
+     * needs this client's result, so the remaining listeners
+     * are skipped. This is forgotten after the max wait time.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @return This instance.
+     */
+    public @NotNull KerbClient cancelEvent(@NotNull String sequenceIdentifier) {
+        this.cancelledEventSet.add(sequenceIdentifier);
+        TimingWheel.getShared().schedule(() -> this.cancelledEventSet.remove(sequenceIdentifier), this.maxWaitTime);
+        return this;
+    }
+
+    /**
+     * Used to check if the caller of an event
+     * no longer needs this client's result.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @return True if the event was cancelled.
+     */
+    public boolean isEventCancelled(@Nullable String sequenceIdentifier) {
+        if (sequenceIdentifier == null) return false;
+        return this.cancelledEventSet.contains(sequenceIdentifier);
+    }
+
+    /**
+     * Used to get the last number of clients the server
+     * sent without being asked.
+     * The server sends this when a client joins or leaves.
+     *
+     * @return The number of validated clients or -1
+     * if the server has not sent it yet.
+     */
+    public int getCachedAmountOfClients() {
+        return this.amountOfClients;
+    }
+
+    /**
+     * Used to update the number of clients connected
+     * to the server when the server sends it.
+     *
+     * @param amountOfClients The number of validated clients.
+     * @return This instance.
+     */
+    public @NotNull KerbClient setCachedAmountOfClients(int amountOfClients) {
+        this.amountOfClients = amountOfClients;
+        return this;
+    }
+
     /**
      * Used to get the number of clients connected to the server.
      *
@@ -391,16 +505,12 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         // in case it comes back too quick.
         this.addResult(sequenceIdentifier, resultCollection);
 
-        // Thread the sending of the packet to stop wait times.
-        new Thread(() -> {
-
-            // Send the packet.
-            this.send(new Packet()
-                    .setType(PacketType.CLIENT_AMOUNT)
-                    .setSequenceIdentifier(sequenceIdentifier)
-                    .getPacketString()
-            );
-        }).start();
+        // Send on this thread, so packets sent by
+        // the same thread reach the server in order.
+        this.send(new Packet()
+                .setType(PacketType.CLIENT_AMOUNT)
+                .setSequenceIdentifier(sequenceIdentifier)
+        );
 
         return resultCollection;
     }
@@ -416,6 +526,103 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         return this;
     }
 
+    /**
+     * Used to set if the client should use the length prefixed
+     * frame protocol when the server supports it.
+     * This will be used from the next time the client connects.
+     *
+     * @param framedProtocol True if frames should be used.
+     * @return This instance.
+     */
+    public @NotNull KerbClient setFramedProtocol(boolean framedProtocol) {
+        this.framedProtocol = framedProtocol;
+        return this;
+    }
+
+    /**
+     * Used to set if the server should collect the results
+     * of events this client calls and send them back in batches,
+     * instead of sending each result on its own.
+     * This will be used from the next time the client connects.
+     *
+     * @param aggregateResults True if results should be batched.
+     * @return This instance.
+     */
+    public @NotNull KerbClient setAggregateResults(boolean aggregateResults) {
+        this.aggregateResults = aggregateResults;
+        return this;
+    }
+
+    /**
+     * Used to get the codec used to encode the events,
+     * results and objects this client sends.
+     * This is json unless the server could
+     * read the chosen codec.
+     *
+     * @return The payload codec in use.
+     */
+    public @NotNull PayloadCodec getPayloadCodec() {
+        return this.payloadCodec;
+    }
+
+    /**
+     * Used to set the codec used to encode the events,
+     * results and objects this client sends.
+     * The codec must be in the {@link PayloadCodecRegistry}.
+     * If the server can not read it, json will be used instead.
+     * This will be used from the next time the client connects.
+     *
+     * @param identifier The codec's identifier. For example, "binary".
+     * @return This instance.
+     */
+    public @NotNull KerbClient setPayloadCodec(@NotNull String identifier) {
+        this.payloadCodecIdentifier = identifier;
+        return this;
+    }
+
+    /**
+     * Used to set the executor used to interpret
+     * packets sent by the server.
+     * The previous executor will be shut down.
+     *
+     * @param threads   The max number of threads.
+     * @param queueSize The max number of waiting packets.
+     * @param policy    What to do when the queue is full.
+     * @return This instance.
+     */
+    public @NotNull KerbClient setDispatchExecutor(int threads, int queueSize, @NotNull RejectionPolicy policy) {
+        DispatchExecutor previous = this.dispatchExecutor;
+        this.dispatchExecutor = new DispatchExecutor("kerb-client-dispatch", threads, queueSize, policy, this.logger);
+        previous.shutdown();
+        return this;
+    }
+
+    /**
+     * Used to set if virtual threads should be used to read
+     * the connection, interpret packets and run tasks.
+     * This is shared by every client and server in the jvm
+     * and is ignored when the java version does not support them.
+     *
+     * @param virtualThreads True if virtual threads should be used.
+     * @return This instance.
+     */
+    public @NotNull KerbClient setVirtualThreads(boolean virtualThreads) {
+        if (!KerbThreads.setVirtual(virtualThreads)) {
+            this.logger.warn("Virtual threads are not supported by this java version, platform threads will be used.");
+        }
+        return this;
+    }
+
+    /**
+     * Used to get the executor used to interpret
+     * packets sent by the server.
+     *
+     * @return The dispatch executor.
+     */
+    public @NotNull DispatchExecutor getDispatchExecutor() {
+        return this.dispatchExecutor;
+    }
+
     /**
      * Used to check if the client is
      * connected to the server.
@@ -433,7 +640,7 @@ public class KerbClient extends Connection implements RegisteredClient, Password
      * @return This instance.
      */
     public @NotNull KerbClient sendPacket(@NotNull Packet packet) {
-        this.send(packet.getPacketString());
+        this.send(packet);
         return this;
     }
 
@@ -441,6 +648,9 @@ public class KerbClient extends Connection implements RegisteredClient, Password
      * Used to register an event listener.
      * When the specified event is sent from the server
      * it will call the method in the listener.
+     * If connected, this waits for the server to receive
+     * the new subscriptions, so events called after this
+     * returns are sent to the listener.
      *
      * @param listener The instance of a listener.
      * @param <T>      The type of event to listen for.
@@ -450,6 +660,30 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         this.eventListenerList.add(new PriorityEventListener<>(listener)
                 .setPriority(priority)
         );
+        this.sendSubscriptions().waitForComplete();
+        return this;
+    }
+
+    /**
+     * Used to register an event listener for a class of event.
+     * The server will only send this client the events
+     * it has listeners for, so giving the class means
+     * this client no longer receives every event.
+     * Only events of exactly this class are routed.
+     * If connected, this waits for the server to receive
+     * the new subscriptions.
+     *
+     * @param priority   The priority of the listener.
+     * @param eventClass The class of event to listen for.
+     * @param listener   The instance of a listener.
+     * @param <T>        The type of event to listen for.
+     * @return This instance.
+     */
+    public <T extends Event> @NotNull KerbClient registerListener(@NotNull Priority priority, @NotNull Class<T> eventClass, @NotNull EventListener<T> listener) {
+        this.eventListenerList.add(new PriorityEventListener<>(listener, eventClass)
+                .setPriority(priority)
+        );
+        this.sendSubscriptions().waitForComplete();
         return this;
     }
 
@@ -475,7 +709,10 @@ public class KerbClient extends Connection implements RegisteredClient, Password
      * @return This instance.
      */
     public <T extends Event> @NotNull KerbClient unregisterListener(EventListener<T> listener) {
-        this.eventListenerList.remove(listener);
+        this.eventListenerList.removeIf(eventListener -> eventListener == listener
+                || eventListener.getEventListener() == listener
+        );
+        this.sendSubscriptions().waitForComplete();
         return this;
     }
 
@@ -486,9 +723,117 @@ public class KerbClient extends Connection implements RegisteredClient, Password
      */
     public @NotNull KerbClient unregisterAllListeners() {
         this.eventListenerList = new ArrayList<>();
+        this.sendSubscriptions().waitForComplete();
         return this;
     }
 
+    /**
+     * Used to get the identifiers of the events
+     * this client has listeners for.
+     * If a listener was registered without its class,
+     * this will contain {@link Capability#ALL_EVENTS}
+     * as the client could listen to any event.
+     *
+     * @return The set of event identifiers.
+     */
+    public @NotNull Set<String> getSubscriptions() {
+        Set<String> subscriptions = new HashSet<>();
+        for (PriorityEventListener<?> listener : new ArrayList<>(this.eventListenerList)) {
+            if (listener.getEventClass() == null) return Set.of(Capability.ALL_EVENTS);
+            subscriptions.add(listener.getEventClass().getName());
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Used to get the result of the last subscriptions
+     * sent to the server. It is completed once the server
+     * has received them, or after the max wait time.
+     *
+     * @return The subscription result.
+     */
+    public @NotNull CompletableResultSet<Boolean> getSubscriptionResult() {
+        return this.subscriptionResult;
+    }
+
+    /**
+     * Used to send the events this client listens to
+     * so the server only sends it those events.
+     * Nothing is sent if the server does not support it.
+     *
+     * @return The result, which is completed
+     * when the server has received them.
+     */
+    private @NotNull CompletableResultSet<Boolean> sendSubscriptions() {
+        if (!this.isValid) return this.subscriptionResult;
+        if (!this.capabilities.contains(Capability.SUBSCRIPTIONS)) return this.subscriptionResult;
+
+        String sequenceIdentifier = UUID.randomUUID().toString();
+        CompletableResultSet<Boolean> result = new CompletableResultSet<>(1);
+        this.addResult(sequenceIdentifier, result);
+        this.subscriptionResult = result;
+
+        // Sent straight away, so the server
+        // receives the updates in order.
+        this.send(new Packet()
+                .setType(PacketType.SUBSCRIPTIONS)
+                .setSequenceIdentifier(sequenceIdentifier)
+                .setData(this.getSubscriptions())
+        );
+        return result;
+    }
+
+    /**
+     * Used to join a channel.
+     * Events and objects sent to the channel will be
+     * sent to this client. The channel is joined again
+     * when the client reconnects.
+     *
+     * @param channel The name of the channel.
+     * @return This instance.
+     */
+    public @NotNull KerbClient joinChannel(@NotNull String channel) {
+        if (this.channelSet.add(channel)) this.sendChannels();
+        return this;
+    }
+
+    /**
+     * Used to leave a channel.
+     *
+     * @param channel The name of the channel.
+     * @return This instance.
+     */
+    public @NotNull KerbClient leaveChannel(@NotNull String channel) {
+        if (this.channelSet.remove(channel)) this.sendChannels();
+        return this;
+    }
+
+    /**
+     * Used to get the channels this client has joined.
+     *
+     * @return The set of channel names.
+     */
+    public @NotNull Set<String> getChannels() {
+        return Set.copyOf(this.channelSet);
+    }
+
+    /**
+     * Used to send the channels this client has joined
+     * so the server knows it is a member.
+     * Nothing is sent if the server does not support it.
+     */
+    private void sendChannels() {
+        if (!this.isValid) return;
+        if (!this.capabilities.contains(Capability.CHANNELS)) return;
+
+        // Sent straight away, so the server
+        // receives the updates in order.
+        this.send(new Packet()
+                .setType(PacketType.CHANNELS)
+                .setData(this.getChannels())
+        );
+    }
+
     /**
      * Used to call an event.
      *
@@ -496,35 +841,131 @@ public class KerbClient extends Connection implements RegisteredClient, Password
      * @return This instance.
      */
     public @NotNull <T extends Event> CompletableResultSet<T> callEvent(T event) {
+        return this.sendEvent(event, this.getExpectedAmountOfClients(), packet -> {
+        });
+    }
 
-        // Get the number of clients currently connected to the server.
-        Integer amount = this.getAmountOfClients().waitForFirst();
+    /**
+     * Used to call an event that completes once a condition is met,
+     * instead of waiting for every result.
+     * When the server supports it, later results are not sent back
+     * and clients still running the event are told to stop.
+     *
+     * @param event     The instance of an event.
+     * @param condition The condition that completes the results.
+     * @return The result set.
+     */
+    public @NotNull <T extends Event> CompletableResultSet<T> callEvent(T event, @NotNull CompletionCondition condition) {
+        return this.sendEvent(event, this.getExpectedAmountOfClients(), packet -> packet.setCompletion(condition))
+                .setCompletionCondition(condition);
+    }
 
-        // Check if the amount is null.
-        if (amount == null) {
-            throw new RuntimeException("Amount of clients returned null when calling an event.");
+    /**
+     * Used to call an event on a single client.
+     * The server only sends the event to the client with
+     * this identifier, or otherwise this name, so the
+     * results will contain one result at most.
+     *
+     * @param target The identifier or name of the client.
+     * @param event  The instance of an event.
+     * @return The result set that expects one result.
+     */
+    public @NotNull <T extends Event> CompletableResultSet<T> callEvent(@NotNull String target, T event) {
+
+        // Check if the server can send the event to one client.
+        if (!this.capabilities.contains(Capability.TARGETS)) {
+            throw new RuntimeException("The server does not support calling an event on a single client.");
         }
 
-        // Set the event source.
-        event.setSource(this.getAdapted());
+        // The server will lower this to 0 if the target is not connected.
+        return this.sendEvent(event, 1, packet -> packet.setTarget(target));
+    }
 
-        // Create a new sequence identifier.
-        String sequenceIdentifier = UUID.randomUUID().toString();
+    /**
+     * Used to call an event on the members of a channel.
+     * The server only sends the event to the clients that
+     * have joined the channel, and the results will expect
+     * the number of members when the event was sent.
+     *
+     * @param channel The name of the channel.
+     * @param event   The instance of an event.
+     * @return The result set.
+     */
+    public @NotNull <T extends Event> CompletableResultSet<T> callChannelEvent(@NotNull String channel, T event) {
 
-        // Create a new completable result collection.
-        CompletableResultSet<T> resultCollection = new CompletableResultSet<>(amount);
-        this.addResult(sequenceIdentifier, resultCollection);
+        // Check if the server can send the event to a channel.
+        if (!this.capabilities.contains(Capability.CHANNELS)) {
+            throw new RuntimeException("The server does not support calling an event on a channel.");
+        }
+
+        // The server will lower this to the number of members.
+        return this.sendEvent(event, this.getExpectedAmountOfClients(), packet -> packet.setChannel(channel));
+    }
 
-        // Thread the sending of the packet to stop wait times.
-        new Thread(() -> {
+    /**
+     * Used to call an event on the members of a channel
+     * that completes once a condition is met,
+     * instead of waiting for every result.
+     *
+     * @param channel   The name of the channel.
+     * @param event     The instance of an event.
+     * @param condition The condition that completes the results.
+     * @return The result set.
+     */
+    public @NotNull <T extends Event> CompletableResultSet<T> callChannelEvent(@NotNull String channel,
+                                                                              T event,
+                                                                              @NotNull CompletionCondition condition) {
 
-            // Send the event packet.
-            this.send(event.packet()
-                    .setSequenceIdentifier(sequenceIdentifier)
-                    .getPacketString());
-        }).start();
+        // Check if the server can send the event to a channel.
+        if (!this.capabilities.contains(Capability.CHANNELS)) {
+            throw new RuntimeException("The server does not support calling an event on a channel.");
+        }
 
-        return resultCollection;
+        return this.sendEvent(event, this.getExpectedAmountOfClients(), packet -> packet
+                .setChannel(channel)
+                .setCompletion(condition)
+        ).setCompletionCondition(condition);
+    }
+
+    /**
+     * Used to call an event on any one of the
+     * clients that listen to it.
+     * This can be used to share jobs between clients.
+     *
+     * @param strategy How the server picks the client.
+     * @param event    The instance of an event.
+     * @return The result set that expects one result.
+     */
+    public @NotNull <T extends Event> CompletableResultSet<T> callAnyEvent(@NotNull BalanceStrategy strategy, T event) {
+
+        // Check if the server can send the event to one of the clients.
+        if (!this.capabilities.contains(Capability.BALANCE)) {
+            throw new RuntimeException("The server does not support calling an event on any one client.");
+        }
+
+        // The server will lower this to 0 if no clients listen to the event.
+        return this.sendEvent(event, 1, packet -> packet.setBalance(strategy, null));
+    }
+
+    /**
+     * Used to call an event on any one of the
+     * clients that listen to it.
+     * Events with the same key are sent to the same client
+     * while it is connected.
+     *
+     * @param key   The key used to pick the client.
+     * @param event The instance of an event.
+     * @return The result set that expects one result.
+     */
+    public @NotNull <T extends Event> CompletableResultSet<T> callAnyEvent(@NotNull String key, T event) {
+
+        // Check if the server can send the event to one of the clients.
+        if (!this.capabilities.contains(Capability.BALANCE)) {
+            throw new RuntimeException("The server does not support calling an event on any one client.");
+        }
+
+        // The server will lower this to 0 if no clients listen to the event.
+        return this.sendEvent(event, 1, packet -> packet.setBalance(BalanceStrategy.CONSISTENT_HASH, key));
     }
 
     /**
@@ -549,14 +990,136 @@ public class KerbClient extends Connection implements RegisteredClient, Password
     public @NotNull KerbClient callObject(@NotNull Object object) {
         Packet packet = new Packet();
         packet.setType(PacketType.OBJECT);
-        packet.setIdentifier(object.getClass().getName());
-        packet.setData(object);
+        packet.setIdentifier(this.getTypeIdentifier(object.getClass().getName()));
+        packet.setData(object, this.payloadCodec);
+        packet.setSource(this.getIdentifier());
+
+        // Send the packet.
+        this.send(packet);
+        return this;
+    }
+
+    /**
+     * Used to send an object to the members of a channel.
+     *
+     * @param channel The name of the channel.
+     * @param object  The object to send.
+     * @return This instance.
+     */
+    public @NotNull KerbClient callChannelObject(@NotNull String channel, @NotNull Object object) {
+
+        // Check if the server can send the object to a channel.
+        if (!this.capabilities.contains(Capability.CHANNELS)) {
+            throw new RuntimeException("The server does not support sending an object to a channel.");
+        }
+
+        Packet packet = new Packet();
+        packet.setType(PacketType.OBJECT);
+        packet.setIdentifier(this.getTypeIdentifier(object.getClass().getName()));
+        packet.setData(object, this.payloadCodec);
+        packet.setSource(this.getIdentifier());
+        packet.setChannel(channel);
 
         // Send the packet.
-        this.send(packet.getPacketString());
+        this.send(packet);
         return this;
     }
 
+    /**
+     * Used to get the number of results to expect when
+     * calling an event on every client.
+     * The server keeps this up to date, so it only
+     * asks if it has not been sent yet.
+     * It may be out of date, so the result set is
+     * corrected when the server sends the number of recipients.
+     *
+     * @return The number of clients connected to the server.
+     */
+    private int getExpectedAmountOfClients() {
+        if (this.amountOfClients >= 0) return this.amountOfClients;
+
+        Integer amount = this.getAmountOfClients().waitForFirst();
+
+        // Check if the amount is null.
+        if (amount == null) {
+            throw new RuntimeException("Amount of clients returned null when calling an event.");
+        }
+        return amount;
+    }
+
+    /**
+     * Used to get the identifier to send for a class.
+     * This is the class's number when the server has
+     * given it one, otherwise the class name.
+     *
+     * @param name The class name.
+     * @return The identifier to send.
+     */
+    private @NotNull String getTypeIdentifier(@NotNull String name) {
+        if (!this.capabilities.contains(Capability.TYPE_IDS)) return name;
+        return this.typeRegistry.compact(name);
+    }
+
+    /**
+     * Used to pick the payload codec to use with the server.
+     * Json is used if the chosen codec is not registered
+     * or the server can not read it.
+     *
+     * @param serverCapabilities The capabilities the server sent.
+     * @return The payload codec to use.
+     */
+    private @NotNull PayloadCodec choosePayloadCodec(@NotNull Set<String> serverCapabilities) {
+        if (this.payloadCodecIdentifier.equalsIgnoreCase(JsonPayloadCodec.IDENTIFIER)) {
+            return JsonPayloadCodec.getShared();
+        }
+
+        PayloadCodec codec = PayloadCodecRegistry.getShared().get(this.payloadCodecIdentifier);
+        if (codec == null) {
+            this.logger.warn("Payload codec " + this.payloadCodecIdentifier + " is not registered. Using json instead.");
+            return JsonPayloadCodec.getShared();
+        }
+
+        if (!serverCapabilities.contains(Capability.CODEC_PREFIX + codec.getIdentifier())) {
+            this.logger.warn("The server can not read the " + codec.getIdentifier() + " payload codec. Using json instead.");
+            return JsonPayloadCodec.getShared();
+        }
+
+        return codec;
+    }
+
+    /**
+     * Used to send an event and create the result set
+     * that its results will be added to.
+     *
+     * @param event  The instance of an event.
+     * @param amount The number of results to expect.
+     * @param route  Used to set where the server sends the packet.
+     * @return The result set.
+     */
+    private @NotNull <T extends Event> CompletableResultSet<T> sendEvent(T event, int amount, @NotNull Consumer<Packet> route) {
+
+        // Set the event source.
+        event.setSource(this.getAdapted());
+
+        // Create a new sequence identifier.
+        String sequenceIdentifier = UUID.randomUUID().toString();
+
+        // Create a new completable result collection.
+        CompletableResultSet<T> resultCollection = new CompletableResultSet<>(amount);
+        this.addResult(sequenceIdentifier, resultCollection);
+
+        // Send on this thread under the write lock, so events
+        // called in order reach the server in that order,
+        // and after any subscriptions sent before them.
+        Packet packet = event.packet(this.payloadCodec)
+                .setIdentifier(this.getTypeIdentifier(event.getIdentifier()))
+                .setSequenceIdentifier(sequenceIdentifier);
+        route.accept(packet);
+        this.send(packet);
+
+        return resultCollection;
+    }
+
     /**
      * Used to attempt to connect to the server.
      *
@@ -604,7 +1167,7 @@ public class KerbClient extends Connection implements RegisteredClient, Password
             if (!valid) return false;
 
             // Thread the client loop.
-            new Thread(this::startLoop).start();
+            KerbThreads.start("kerb-client-" + this.getName(), this::startLoop);
 
             return true;
 
@@ -634,18 +1197,49 @@ public class KerbClient extends Connection implements RegisteredClient, Password
                     return;
                 }
 
-                String data = this.read();
+                Frame frame = this.readFrame();
 
-                if (data == null) {
+                if (frame == null) {
                     this.logger.log("Client was disconnected from the server.");
                     this.disconnect();
                     return;
                 }
 
-                new Thread(() -> {
-                    Packet packet = Packet.getPacket(data);
-                    this.packetManager.interpret(packet);
-                }).start();
+                PacketHeader header = PacketHeader.read(frame.getPayload());
+                PacketType type = frame.getPacketType();
+                if (type == null && header != null) type = header.getType();
+
+                // Results only complete a result set, so they are
+                // interpreted straight away. This stops listeners that
+                // wait for results from using up every dispatch thread
+                // while the results they are waiting for are queued.
+                // Cancellations are also read straight away, so they
+                // reach events that are still queued or running, and
+                // type numbers, so they are known before they are used.
+                // Subscriptions being received are also results.
+                if (type == PacketType.EVENT_RESULT
+                        || type == PacketType.EVENT_RESULTS
+                        || type == PacketType.EVENT_CANCEL
+                        || type == PacketType.TYPE_IDS
+                        || type == PacketType.CLIENT_AMOUNT
+                        || type == PacketType.EVENT_RECIPIENTS
+                        || type == PacketType.SUBSCRIPTIONS) {
+                    this.packetManager.interpret(Packet.getPacket(frame));
+                    continue;
+                }
+
+                // Packets from the same source are interpreted
+                // in the order the source sent them.
+                String source = header == null ? null : header.getSource();
+                this.dispatchExecutor.execute(
+                        source == null ? "" : source,
+                        () -> this.packetManager.interpret(Packet.getPacket(frame))
+                );
+
+                // Stop reading while the dispatch executor catches up.
+                // Reading continues while results are expected, as
+                // listeners may be waiting on them to finish.
+                this.dispatchExecutor.awaitAvailable(() -> !this.isConnected || !this.resultMap.isEmpty());
 
             } catch (Exception exception) {
                 throw new RuntimeException(exception);
@@ -677,11 +1271,46 @@ public class KerbClient extends Connection implements RegisteredClient, Password
                 return false;
             }
 
+            // Check which capabilities both sides can use.
+            Set<String> serverCapabilities = Capability.parse(code, 1);
+            boolean framed = this.framedProtocol
+                    && serverCapabilities.contains(Capability.FRAMED);
+
+            List<String> capabilities = new ArrayList<>();
+            if (framed) capabilities.add(Capability.FRAMED);
+            if (serverCapabilities.contains(Capability.CLIENT_AMOUNT)) capabilities.add(Capability.CLIENT_AMOUNT);
+            if (serverCapabilities.contains(Capability.SUBSCRIPTIONS)) capabilities.add(Capability.SUBSCRIPTIONS);
+            if (serverCapabilities.contains(Capability.TARGETS)) capabilities.add(Capability.TARGETS);
+            if (serverCapabilities.contains(Capability.CHANNELS)) capabilities.add(Capability.CHANNELS);
+            if (serverCapabilities.contains(Capability.BALANCE)) capabilities.add(Capability.BALANCE);
+            if (serverCapabilities.contains(Capability.COMPLETION)) capabilities.add(Capability.COMPLETION);
+            if (serverCapabilities.contains(Capability.TYPE_IDS)) capabilities.add(Capability.TYPE_IDS);
+            if (serverCapabilities.contains(Capability.NESTED_DATA)) capabilities.add(Capability.NESTED_DATA);
+            for (String codecCapability : PayloadCodecRegistry.getShared().getCapabilities()) {
+                if (serverCapabilities.contains(codecCapability)) capabilities.add(codecCapability);
+            }
+            if (this.aggregateResults && serverCapabilities.contains(Capability.AGGREGATE)) {
+                capabilities.add(Capability.AGGREGATE);
+            }
+
+            // Numbers from a previous connection are not valid.
+            this.typeRegistry.clear();
+
             // Send the client's identifier.
-            this.send(this.getIdentifier() + ":" + this.getName());
+            // Everything after this will be framed if agreed.
+            this.send(Capability.append(this.getIdentifier() + Capability.SEPARATOR + this.getName(), capabilities));
+            this.setFramed(framed);
+            this.setNestedData(capabilities.contains(Capability.NESTED_DATA));
+            this.payloadCodec = this.choosePayloadCodec(serverCapabilities);
+            this.capabilities = Set.copyOf(capabilities);
 
             this.isValid = true;
             this.logger.log("Client was validated.");
+
+            // Let the server know which events to send
+            // and which channels this client is a member of.
+            this.sendSubscriptions();
+            this.sendChannels();
             return true;
 
         } catch (IOException exception) {
@@ -706,6 +1335,8 @@ public class KerbClient extends Connection implements RegisteredClient, Password
             this.getSocket().close();
             this.isConnected = false;
             this.isValid = false;
+            this.amountOfClients = -1;
+            this.typeRegistry.clear();
 
             // Attempt to reconnect.
             this.checkAndAttemptToReconnect();
@@ -729,7 +1360,7 @@ public class KerbClient extends Connection implements RegisteredClient, Password
         boolean canAttempt = (this.getMaxReconnectionAttempts() == -1 || this.reconnectAttempts < this.getMaxReconnectionAttempts());
 
         if (this.getShouldAutoReconnect() && canAttempt) {
-            new Thread(() -> {
+            KerbThreads.start("kerb-client-reconnect", () -> {
 
                 // Attempt to connect.
                 this.logger.log("Attempting to reconnect to the server. {attempts:" + this.reconnectAttempts + "}");
@@ -745,7 +1376,7 @@ public class KerbClient extends Connection implements RegisteredClient, Password
                 } catch (InterruptedException exception) {
                     throw new RuntimeException(exception);
                 }
-            }).start();
+            });
             return true;
         }
 
@@ -20,6 +20,8 @@
 
 package com.github.kerbity.kerb.client;
 
+import com.github.kerbity.kerb.task.DispatchExecutor;
+import com.github.kerbity.kerb.task.RejectionPolicy;
 import com.github.squishylib.configuration.Configuration;
 import com.github.squishylib.configuration.implementation.YamlConfiguration;
 import org.jetbrains.annotations.NotNull;
@@ -48,10 +50,19 @@ public class KerbClientBuilder {
             config.set("auto_reconnect", true);
             config.set("reconnect_cooldown_millis", 5000);
             config.set("max_reconnect_attempts", -1);
+            config.set("framed_protocol", true);
+            config.set("dispatch_threads", DispatchExecutor.DEFAULT_THREADS);
+            config.set("dispatch_queue_size", DispatchExecutor.DEFAULT_QUEUE_SIZE);
+            config.set("dispatch_rejection_policy", RejectionPolicy.CALLER_RUNS.getIdentifier());
+            config.set("virtual_threads", false);
+            config.set("aggregate_results", false);
+            config.set("payload_codec", "json");
 
             config.save();
         }
 
+        RejectionPolicy policy = RejectionPolicy.fromIdentifier(config.getString("dispatch_rejection_policy", "caller_runs"));
+
         return new KerbClient(
             config.getString("client_name"),
             config.getInteger("port"),
@@ -63,6 +74,14 @@ public class KerbClientBuilder {
             config.getBoolean("auto_reconnect"),
             Duration.ofMillis(config.getLong("reconnect_cooldown_millis")),
             config.getInteger("max_reconnect_attempts")
-        );
+        ).setFramedProtocol(config.getBoolean("framed_protocol", true))
+                .setDispatchExecutor(
+                        config.getInteger("dispatch_threads", DispatchExecutor.DEFAULT_THREADS),
+                        config.getInteger("dispatch_queue_size", DispatchExecutor.DEFAULT_QUEUE_SIZE),
+                        policy == null ? RejectionPolicy.CALLER_RUNS : policy
+                )
+                .setVirtualThreads(config.getBoolean("virtual_threads", false))
+                .setAggregateResults(config.getBoolean("aggregate_results", false))
+                .setPayloadCodec(config.getString("payload_codec", "json"));
     }
 }
@@ -34,13 +34,47 @@ import org.jetbrains.annotations.Nullable;
 public class PriorityEventListener<T extends Event> implements EventListener<T> {
 
     private final @NotNull EventListener<T> eventListener;
+    private final @Nullable Class<T> eventClass;
     private @NotNull Priority priority;
 
     public PriorityEventListener(@NotNull EventListener<T> eventListener) {
+        this(eventListener, null);
+    }
+
+    /**
+     * Used to create a priority event listener
+     * that knows the class of event it listens to.
+     *
+     * @param eventListener The instance of the listener.
+     * @param eventClass    The class of event to listen for.
+     *                      Null if it is not known.
+     */
+    public PriorityEventListener(@NotNull EventListener<T> eventListener, @Nullable Class<T> eventClass) {
         this.eventListener = eventListener;
+        this.eventClass = eventClass;
         this.priority = Priority.LOW;
     }
 
+    /**
+     * Used to get the listener that was wrapped.
+     *
+     * @return The instance of the listener.
+     */
+    public @NotNull EventListener<T> getEventListener() {
+        return this.eventListener;
+    }
+
+    /**
+     * Used to get the class of event this listener listens to.
+     * Generic types are erased, so this is only known
+     * if it was given when registering.
+     *
+     * @return The class of event or null if unknown.
+     */
+    public @Nullable Class<T> getEventClass() {
+        return this.eventClass;
+    }
+
     /**
      * Used to get the event listener's priority.
      *
@@ -61,6 +95,12 @@ public class PriorityEventListener<T extends Event> implements EventListener<T>
         return this;
     }
 
+    @Override
+    public boolean isNotCastable(@NotNull Event event) {
+        if (this.eventClass == null) return this.eventListener.isNotCastable(event);
+        return !this.eventClass.isInstance(event);
+    }
+
     @Override
     public @Nullable Event onEvent(T event) {
         return this.eventListener.onEvent(event);
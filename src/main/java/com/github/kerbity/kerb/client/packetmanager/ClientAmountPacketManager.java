@@ -59,8 +59,10 @@ public class ClientAmountPacketManager implements PacketManager {
             if (this.client.getDebugMode()) this.client.getLogger().log("[ClientAmountPacket] Packet interpreting...");
 
             // Check if the packet has a sequence identifier.
+            // Without one, the server is letting the client
+            // know the number of clients has changed.
             if (packet.getSequenceIdentifier() == null) {
-                this.client.getLogger().warn("Sequence identifier returned null for packet: " + packet);
+                this.interpretUpdate(packet);
                 return;
             }
 
@@ -103,4 +105,26 @@ public class ClientAmountPacketManager implements PacketManager {
             throw new RuntimeException(exception);
         }
     }
+
+    /**
+     * Used to update the client's cached number of clients
+     * when the server sends it without being asked.
+     *
+     * @param packet The instance of the packet.
+     */
+    private void interpretUpdate(@NotNull Packet packet) {
+        if (packet.getData() == null) {
+            this.client.getLogger().warn("Packet returned null data when updating client amount. packet=" + packet);
+            return;
+        }
+
+        try {
+            int amount = Integer.parseInt(packet.getData());
+            if (this.client.getDebugMode()) this.client.getLogger().log("[ClientAmountPacket] Client amount updated : " + amount);
+            this.client.setCachedAmountOfClients(amount);
+
+        } catch (NumberFormatException exception) {
+            this.client.getLogger().warn("Unable to convert packet data to a integer. packet=" + packet);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.client.packetmanager;
+
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the event cancel packet manager.
+ * Used to stop running an event when the
+ * caller no longer needs this client's result.
+ */
+public class EventCancelPacketManager implements PacketManager {
+
+    private final @NotNull KerbClient client;
+
+    /**
+     * Used to create a new event cancel packet manager.
+     *
+     * @param client The instance of the kerb client
+     *               it will be managing.
+     */
+    public EventCancelPacketManager(@NotNull KerbClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public @NotNull PacketType getPacketType() {
+        return PacketType.EVENT_CANCEL;
+    }
+
+    @Override
+    public void interpret(@NotNull Packet packet) {
+
+        // Check if the packet has a sequence identifier.
+        if (packet.getSequenceIdentifier() == null) {
+            this.client.getLogger().warn("Sequence identifier returned null for packet: " + packet);
+            return;
+        }
+
+        if (this.client.getDebugMode()) this.client.getLogger().log("[EventCancelPacket] Cancelled : " + packet.getSequenceIdentifier());
+
+        this.client.cancelEvent(packet.getSequenceIdentifier());
+    }
+}
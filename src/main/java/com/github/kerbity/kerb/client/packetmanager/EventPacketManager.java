@@ -25,6 +25,7 @@ import com.github.kerbity.kerb.client.listener.EventListener;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketManager;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.TypeCache;
 import com.github.kerbity.kerb.packet.event.Event;
 import com.github.kerbity.kerb.packet.event.Priority;
 import org.jetbrains.annotations.NotNull;
@@ -57,6 +58,10 @@ public class EventPacketManager implements PacketManager {
     public void interpret(@NotNull Packet packet) {
         try {
 
+            // Check if the caller stopped waiting
+            // while the event was queued.
+            if (this.isCancelled(packet)) return;
+
             // Check if the packet identifier is null.
             if (packet.getIdentifier() == null) {
                 this.client.getLogger().warn("Event packet was sent without an identifier.");
@@ -64,10 +69,10 @@ public class EventPacketManager implements PacketManager {
             }
 
             // Get the instance of the event class.
-            Class<?> eventClass = Class.forName(packet.getIdentifier());
+            TypeCache.Entry eventType = this.client.getTypeRegistry().resolve(packet.getIdentifier());
 
             // Create the event class from the packet.
-            Object eventObject = packet.getData(eventClass);
+            Object eventObject = eventType.decode(packet);
 
             // Check if the event object is instance of an event.
             if (!(eventObject instanceof Event event)) {
@@ -77,6 +82,7 @@ public class EventPacketManager implements PacketManager {
 
             // Loop though low-priority events.
             for (EventListener<?> listener : this.client.getEventListeners(Priority.LOW)) {
+                if (this.isCancelled(packet)) return;
                 if (listener.isNotCastable(event)) continue;
                 Event result = listener.onEventAdapted(event);
                 if (result == null) continue;
@@ -85,6 +91,7 @@ public class EventPacketManager implements PacketManager {
 
             // Loop though med-priority events.
             for (EventListener<?> listener : this.client.getEventListeners(Priority.MEDIUM)) {
+                if (this.isCancelled(packet)) return;
                 if (listener.isNotCastable(event)) continue;
                 Event result = listener.onEventAdapted(event);
                 if (result == null) continue;
@@ -93,12 +100,16 @@ public class EventPacketManager implements PacketManager {
 
             // Loop though high-priority events.
             for (EventListener<?> listener : this.client.getEventListeners(Priority.HIGH)) {
+                if (this.isCancelled(packet)) return;
                 if (listener.isNotCastable(event)) continue;
                 Event result = listener.onEventAdapted(event);
                 if (result == null) continue;
                 event = result;
             }
 
+            // Check if the caller still needs the result.
+            if (this.isCancelled(packet)) return;
+
             // Check if the packet target is null.
             if (packet.getSource() == null) {
                 this.client.getLogger().warn("Packet's target was null.");
@@ -108,7 +119,7 @@ public class EventPacketManager implements PacketManager {
             // Send a result back.
             this.client.sendPacket(packet
                     .setType(PacketType.EVENT_RESULT)
-                    .setData(event)
+                    .setData(event, this.client.getPayloadCodec())
             );
 
         } catch (ClassNotFoundException exception) {
@@ -123,4 +134,10 @@ public class EventPacketManager implements PacketManager {
             throw new RuntimeException(exception);
         }
     }
+
+    private boolean isCancelled(@NotNull Packet packet) {
+        if (!this.client.isEventCancelled(packet.getSequenceIdentifier())) return false;
+        if (this.client.getDebugMode()) this.client.getLogger().log("[EventPacket] Skipped cancelled event " + packet.getSequenceIdentifier());
+        return true;
+    }
 }
@@ -24,6 +24,7 @@ import com.github.kerbity.kerb.client.KerbClient;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketManager;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.TypeCache;
 import com.github.kerbity.kerb.packet.event.Event;
 import com.github.kerbity.kerb.result.CompletableResultSet;
 import org.jetbrains.annotations.NotNull;
@@ -78,10 +79,10 @@ public class EventResultPacketManager implements PacketManager {
             }
 
             // Get the instance of the event class.
-            Class<?> eventClass = Class.forName(packet.getIdentifier());
+            TypeCache.Entry eventType = this.client.getTypeRegistry().resolve(packet.getIdentifier());
 
             // Create the event class from the packet.
-            Object eventObject = packet.getData(eventClass);
+            Object eventObject = eventType.decode(packet);
 
             // Check if the event object is instance of an event.
             if (!(eventObject instanceof Event event)) {
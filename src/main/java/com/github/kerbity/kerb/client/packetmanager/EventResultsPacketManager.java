@@ -0,0 +1,148 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.client.packetmanager;
+
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketCodec;
+import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.event.Event;
+import com.github.kerbity.kerb.result.CompletableResultSet;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Represents the event results packet manager.
+ * Used to handle a batch of event results
+ * the server collected for this client.
+ */
+public class EventResultsPacketManager implements PacketManager {
+
+    private final @NotNull KerbClient client;
+
+    /**
+     * Used to create a new event results packet manager.
+     *
+     * @param client The instance of the kerb client
+     *               it will be managing.
+     */
+    public EventResultsPacketManager(@NotNull KerbClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public @NotNull PacketType getPacketType() {
+        return PacketType.EVENT_RESULTS;
+    }
+
+    @Override
+    public void interpret(@NotNull Packet packet) {
+
+        // Check if the packet has a sequence identifier.
+        if (packet.getSequenceIdentifier() == null) {
+            this.client.getLogger().warn("Sequence identifier returned null for packet: " + packet);
+            return;
+        }
+
+        // Get the result collection.
+        CompletableResultSet<?> resultCollection = this.client.getResult(packet.getSequenceIdentifier());
+
+        // Check if the result collection is null.
+        if (resultCollection == null) {
+            this.client.getLogger().warn("Result collection returned null.");
+            return;
+        }
+
+        // Get the list of identifier and data pairs.
+        String results = packet.getData();
+        if (results == null) {
+            this.client.getLogger().warn("Packet returned null data when getting event results. packet=" + packet);
+            return;
+        }
+
+        // Read each result straight from the list,
+        // as the data is nested json.
+        try (JsonReader reader = PacketCodec.getShared().getGson().newJsonReader(new StringReader(results))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                this.readResult(reader, resultCollection);
+            }
+            reader.endArray();
+
+        } catch (IOException | IllegalStateException exception) {
+            this.client.getLogger().warn("Event results packet contained invalid results. packet=" + packet);
+        }
+
+        // Check if the result has been completed.
+        if (resultCollection.isComplete()) {
+            this.client.removeResult(packet.getSequenceIdentifier());
+        }
+    }
+
+    /**
+     * Used to read an identifier and data pair
+     * and add the event to the results.
+     *
+     * @param reader           The json reader.
+     * @param resultCollection The results to add the event to.
+     * @throws IOException If the json could not be read.
+     */
+    private void readResult(@NotNull JsonReader reader, @NotNull CompletableResultSet<?> resultCollection) throws IOException {
+        reader.beginArray();
+        String identifier = reader.nextString();
+
+        // Check the result has data.
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            reader.endArray();
+            this.client.getLogger().warn("Event results packet contained an invalid result.");
+            return;
+        }
+
+        try {
+
+            // Create the event class from the result.
+            Object eventObject = this.client.getTypeRegistry().resolve(identifier).decode(reader);
+
+            // Check if the event object is instance of an event.
+            if (!(eventObject instanceof Event event)) {
+                this.client.getLogger().warn("The packet type event interpreted was not an event.");
+            } else {
+
+                // Attempt to add the result.
+                resultCollection.addAmbiguousResult(event);
+            }
+
+        } catch (ClassNotFoundException exception) {
+            reader.skipValue();
+            this.client.getLogger().warn("(ClassNotFound) Received event result {identifier} but the event class sent doesnt exist for this client."
+                    .replace("{identifier}", identifier)
+            );
+        }
+
+        reader.endArray();
+    }
+}
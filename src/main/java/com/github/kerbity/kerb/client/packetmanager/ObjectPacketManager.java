@@ -25,6 +25,7 @@ import com.github.kerbity.kerb.client.listener.ObjectListener;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketManager;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.TypeCache;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -61,10 +62,10 @@ public class ObjectPacketManager implements PacketManager {
             }
 
             // Get the instance of the event class.
-            Class<?> clazz = Class.forName(packet.getIdentifier());
+            TypeCache.Entry type = this.client.getTypeRegistry().resolve(packet.getIdentifier());
 
             // Create the event class from the packet.
-            Object object = packet.getData(clazz);
+            Object object = type.decode(packet);
 
             if (object == null) {
                 this.client.getLogger().warn("Object was null.");
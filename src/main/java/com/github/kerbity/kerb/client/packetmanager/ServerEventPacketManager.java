@@ -24,6 +24,7 @@ import com.github.kerbity.kerb.client.KerbClient;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketManager;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.TypeCache;
 import com.github.kerbity.kerb.packet.serverevent.ServerEvent;
 import com.github.kerbity.kerb.packet.serverevent.event.CheckAliveServerEvent;
 import org.jetbrains.annotations.NotNull;
@@ -58,10 +59,10 @@ public class ServerEventPacketManager implements PacketManager {
             }
 
             // Get the instance of the event class.
-            Class<?> eventClass = Class.forName(packet.getIdentifier());
+            TypeCache.Entry eventType = this.client.getTypeRegistry().resolve(packet.getIdentifier());
 
             // Create the event class from the packet.
-            Object serverEventObject = packet.getData(eventClass);
+            Object serverEventObject = eventType.decode(packet);
 
             // Check if the event object is instance of an event.
             if (!(serverEventObject instanceof ServerEvent event)) {
@@ -0,0 +1,73 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.client.packetmanager;
+
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.result.CompletableResultSet;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the subscription packet manager.
+ * Used to complete the result of the subscriptions
+ * sent to the server once it has received them.
+ */
+public class SubscriptionPacketManager implements PacketManager {
+
+    private final @NotNull KerbClient client;
+
+    /**
+     * Used to create a new subscription packet manager.
+     *
+     * @param client The instance of the kerb client
+     *               it will be managing.
+     */
+    public SubscriptionPacketManager(@NotNull KerbClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public @NotNull PacketType getPacketType() {
+        return PacketType.SUBSCRIPTIONS;
+    }
+
+    @Override
+    public void interpret(@NotNull Packet packet) {
+
+        // Check if the packet has a sequence identifier.
+        if (packet.getSequenceIdentifier() == null) {
+            this.client.getLogger().warn("Sequence identifier returned null for packet: " + packet);
+            return;
+        }
+
+        // Get the result collection.
+        // It may have already timed out.
+        CompletableResultSet<?> resultCollection = this.client.getResult(packet.getSequenceIdentifier());
+        if (resultCollection == null) return;
+
+        if (this.client.getDebugMode()) this.client.getLogger().log("[SubscriptionPacket] Subscriptions received by the server.");
+
+        resultCollection.addAmbiguousResult(true);
+        this.client.removeResult(packet.getSequenceIdentifier());
+    }
+}
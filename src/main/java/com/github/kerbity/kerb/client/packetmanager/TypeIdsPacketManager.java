@@ -0,0 +1,75 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.client.packetmanager;
+
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketType;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the type ids packet manager.
+ * Used to add the numbers the server gave to
+ * event and object classes.
+ */
+public class TypeIdsPacketManager implements PacketManager {
+
+    private final @NotNull KerbClient client;
+
+    /**
+     * Used to create a new type ids packet manager.
+     *
+     * @param client The instance of the kerb client
+     *               it will be managing.
+     */
+    public TypeIdsPacketManager(@NotNull KerbClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public @NotNull PacketType getPacketType() {
+        return PacketType.TYPE_IDS;
+    }
+
+    @Override
+    public void interpret(@NotNull Packet packet) {
+
+        // Get the list of number and class name pairs.
+        String[][] entries = packet.getData(String[][].class);
+        if (entries == null) {
+            this.client.getLogger().warn("Packet returned null data when getting type ids. packet=" + packet);
+            return;
+        }
+
+        for (String[] entry : entries) {
+            if (entry == null || entry.length < 2 || entry[0] == null || entry[1] == null) continue;
+
+            try {
+                this.client.getTypeRegistry().put(Integer.parseInt(entry[0]), entry[1]);
+                if (this.client.getDebugMode()) this.client.getLogger().log("[TypeIdsPacket] " + entry[0] + " : " + entry[1]);
+
+            } catch (NumberFormatException exception) {
+                this.client.getLogger().warn("Type ids packet contained an invalid number. number=" + entry[0]);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents how the server picks the one client
+ * that handles an event sent to any one client.
+ * Only clients that listen to the event are picked from.
+ */
+public enum BalanceStrategy {
+
+    /**
+     * Each client is picked in turn.
+     */
+    ROUND_ROBIN("round_robin"),
+
+    /**
+     * The client with the fewest events
+     * it has not replied to yet is picked.
+     */
+    LEAST_OUTSTANDING("least_outstanding"),
+
+    /**
+     * The same key is always sent to the same client,
+     * unless that client leaves. When clients join or leave,
+     * only the keys of that client move.
+     */
+    CONSISTENT_HASH("consistent_hash");
+
+    private final @NotNull String identifier;
+
+    /**
+     * Used to create a balance strategy.
+     *
+     * @param identifier The strategy identifier.
+     */
+    BalanceStrategy(@NotNull String identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Used to get the strategy identifier.
+     * This is the value sent in the packet.
+     *
+     * @return The strategy identifier.
+     */
+    public @NotNull String getIdentifier() {
+        return this.identifier;
+    }
+
+    @Override
+    public String toString() {
+        return this.identifier;
+    }
+
+    /**
+     * Used to get the instance of a balance strategy
+     * from a strategy identifier.
+     *
+     * @param identifier The strategy identifier.
+     * @return The requested strategy.
+     * Null if the strategy doesn't exist.
+     */
+    public static @Nullable BalanceStrategy fromIdentifier(@NotNull String identifier) {
+        for (BalanceStrategy strategy : BalanceStrategy.values()) {
+            if (strategy.getIdentifier().equalsIgnoreCase(identifier)) return strategy;
+        }
+        return null;
+    }
+}
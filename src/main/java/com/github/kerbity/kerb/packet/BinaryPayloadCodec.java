@@ -0,0 +1,675 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Represents a binary payload codec.
+ * <ul>
+ *     <li>Objects are written by the cached adapters of the {@link PacketCodec} straight into tags, without a json tree.</li>
+ *     <li>Each value is written as a one byte tag followed by its value.</li>
+ *     <li>Whole numbers are written as variable length integers, and decimals as four or eight bytes.</li>
+ *     <li>Each object key is written once, then referred to by its number, so lists of objects stay small.</li>
+ *     <li>
+ *         The bytes are sent as url safe base 64 inside the packet's json,
+ *         which adds a third to their size. It is only smaller than json
+ *         when the data has many numbers or repeated keys.
+ *     </li>
+ * </ul>
+ * The values describe themselves, so the data can be
+ * converted back to json without the class.
+ */
+public final class BinaryPayloadCodec implements PayloadCodec {
+
+    /**
+     * The identifier of the binary codec.
+     */
+    public static final @NotNull String IDENTIFIER = "binary";
+
+    private static final @NotNull BinaryPayloadCodec SHARED = new BinaryPayloadCodec();
+
+    private static final byte VERSION = 2;
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte NUMBER = 6;
+    private static final byte STRING = 7;
+    private static final byte ARRAY = 8;
+    private static final byte OBJECT = 9;
+    private static final byte END = 10;
+
+    /**
+     * Written in place of an object key to end the object.
+     * Otherwise, one means a new key follows, and larger
+     * numbers refer to a key that was already written.
+     */
+    private static final int END_KEY = 0;
+    private static final int NEW_KEY = 1;
+
+    /**
+     * The largest whole number a double can hold exactly.
+     */
+    private static final double MAX_EXACT_DOUBLE = 9007199254740992.0;
+
+    private BinaryPayloadCodec() {
+    }
+
+    @Override
+    public @NotNull String getIdentifier() {
+        return BinaryPayloadCodec.IDENTIFIER;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public @NotNull String encode(@Nullable Object object) {
+        TagWriter writer = new TagWriter();
+        try {
+            if (object == null) writer.nullValue();
+            else ((TypeAdapter<Object>) PacketCodec.getShared().getAdapter(object.getClass())).write(writer, object);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(writer.toByteArray());
+    }
+
+    @Override
+    public <T> @Nullable T decode(@Nullable String data, @NotNull Class<T> type) {
+        if (data == null) return null;
+        try {
+            return PacketCodec.getShared().getAdapter(type).read(new JsonReader(BinaryPayloadCodec.read(data)));
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    @Override
+    public @Nullable String toJson(@Nullable String data) {
+        if (data == null) return null;
+        TagReader reader = BinaryPayloadCodec.read(data);
+        StringBuilder builder = new StringBuilder();
+        char[] buffer = new char[256];
+        int amount;
+        while ((amount = reader.read(buffer, 0, buffer.length)) != -1) {
+            builder.append(buffer, 0, amount);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Used to write a json tree as bytes.
+     *
+     * @param tree The json tree.
+     * @return The bytes.
+     */
+    public static byte @NotNull [] write(@NotNull JsonElement tree) {
+        TagWriter writer = new TagWriter();
+        try {
+            PacketCodec.getShared().getAdapter(JsonElement.class).write(writer, tree);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Used to read encoded data as json text.
+     * The json is created while it is read,
+     * so it can be given to a {@link JsonReader}.
+     *
+     * @param data The url safe base 64 data.
+     * @return The reader.
+     */
+    public static @NotNull TagReader read(@NotNull String data) {
+        return BinaryPayloadCodec.read(Base64.getUrlDecoder().decode(data));
+    }
+
+    /**
+     * Used to read bytes as json text.
+     *
+     * @param bytes The bytes.
+     * @return The reader.
+     */
+    public static @NotNull TagReader read(byte @NotNull [] bytes) {
+        return new TagReader(bytes);
+    }
+
+    /**
+     * Represents a json writer that writes tags
+     * instead of json text, so type adapters
+     * can write binary payloads directly.
+     */
+    private static final class TagWriter extends JsonWriter {
+
+        private static final @NotNull Writer UNWRITABLE_WRITER = new Writer() {
+            @Override
+            public void write(char @NotNull [] buffer, int offset, int length) {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void flush() {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void close() {
+                throw new AssertionError();
+            }
+        };
+
+        private byte @NotNull [] buffer = new byte[256];
+        private int size;
+        private final @NotNull Map<String, Integer> keyMap = new HashMap<>();
+        private @Nullable String pendingKey;
+
+        private TagWriter() {
+            super(UNWRITABLE_WRITER);
+            this.setSerializeNulls(false);
+            this.writeByte(VERSION);
+        }
+
+        private byte @NotNull [] toByteArray() {
+            return Arrays.copyOf(this.buffer, this.size);
+        }
+
+        @Override
+        public @NotNull JsonWriter beginArray() {
+            this.writeKey();
+            this.writeByte(ARRAY);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter endArray() {
+            this.writeByte(END);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter beginObject() {
+            this.writeKey();
+            this.writeByte(OBJECT);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter endObject() {
+
+            // Null values are left out, so the
+            // key before them is not written.
+            this.pendingKey = null;
+            this.writeVarInt(END_KEY);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter name(@NotNull String name) {
+            Objects.requireNonNull(name, "name == null");
+            if (this.pendingKey != null) throw new IllegalStateException("Already wrote a name, expecting a value.");
+            this.pendingKey = name;
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(@Nullable String value) {
+            if (value == null) return this.nullValue();
+            this.writeKey();
+            this.writeByte(STRING);
+            this.writeString(value);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(boolean value) {
+            this.writeKey();
+            this.writeByte(value ? TRUE : FALSE);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(@Nullable Boolean value) {
+            if (value == null) return this.nullValue();
+            return this.value((boolean) value);
+        }
+
+        @Override
+        public @NotNull JsonWriter value(float value) {
+            return this.value((double) value);
+        }
+
+        @Override
+        public @NotNull JsonWriter value(double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+            }
+
+            this.writeKey();
+
+            // Whole numbers are smaller as integers.
+            if (value == Math.rint(value) && Math.abs(value) <= MAX_EXACT_DOUBLE
+                    && Double.doubleToRawLongBits(value) != Double.doubleToRawLongBits(-0.0)) {
+                this.writeByte(LONG);
+                this.writeVarLong((long) value);
+                return this;
+            }
+
+            // Check if the value fits in a float without losing any detail.
+            if ((double) (float) value == value) {
+                this.writeByte(FLOAT);
+                this.writeInt(Float.floatToIntBits((float) value));
+                return this;
+            }
+
+            this.writeByte(DOUBLE);
+            this.writeLong(Double.doubleToLongBits(value));
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(long value) {
+            this.writeKey();
+            this.writeByte(LONG);
+            this.writeVarLong(value);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter value(@Nullable Number value) {
+            if (value == null) return this.nullValue();
+
+            if (value instanceof Integer || value instanceof Long
+                    || value instanceof Short || value instanceof Byte) {
+                return this.value(value.longValue());
+            }
+
+            if (value instanceof Double || value instanceof Float) {
+                return this.value(value.doubleValue());
+            }
+
+            // Other numbers, such as big decimals, are kept as text.
+            this.writeKey();
+            this.writeByte(NUMBER);
+            this.writeString(value.toString());
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter nullValue() {
+
+            // Leave out null values in objects, like json.
+            if (this.pendingKey != null) {
+                this.pendingKey = null;
+                return this;
+            }
+
+            this.writeByte(NULL);
+            return this;
+        }
+
+        @Override
+        public @NotNull JsonWriter jsonValue(@Nullable String value) {
+            if (value == null) return this.nullValue();
+            try {
+                PacketCodec.getShared().getAdapter(JsonElement.class).write(this, JsonParser.parseString(value));
+            } catch (IOException exception) {
+                throw new RuntimeException(exception);
+            }
+            return this;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        /**
+         * Used to write the key of the value being written,
+         * if the value is in an object.
+         */
+        private void writeKey() {
+            String key = this.pendingKey;
+            if (key == null) return;
+            this.pendingKey = null;
+
+            Integer index = this.keyMap.get(key);
+            if (index != null) {
+                this.writeVarInt(index + NEW_KEY + 1);
+                return;
+            }
+
+            this.keyMap.put(key, this.keyMap.size());
+            this.writeVarInt(NEW_KEY);
+            this.writeString(key);
+        }
+
+        private void writeString(@NotNull String string) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            this.writeVarInt(bytes.length);
+            this.ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+            this.size += bytes.length;
+        }
+
+        private void writeVarInt(int value) {
+            this.writeUnsignedVarLong(value & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Used to write a signed number, so small
+         * negative numbers also use few bytes.
+         *
+         * @param value The number.
+         */
+        private void writeVarLong(long value) {
+            this.writeUnsignedVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeUnsignedVarLong(long value) {
+            this.ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.size++] = (byte) value;
+        }
+
+        private void writeInt(int value) {
+            this.ensure(4);
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                this.buffer[this.size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeLong(long value) {
+            this.ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                this.buffer[this.size++] = (byte) (value >>> shift);
+            }
+        }
+
+        private void writeByte(byte value) {
+            this.ensure(1);
+            this.buffer[this.size++] = value;
+        }
+
+        private void ensure(int amount) {
+            if (this.size + amount <= this.buffer.length) return;
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.size + amount));
+        }
+    }
+
+    /**
+     * Represents a reader that turns tags into json text
+     * one value at a time, so a {@link JsonReader} can
+     * read binary payloads without a json tree.
+     */
+    public static final class TagReader extends Reader {
+
+        private final byte @NotNull [] bytes;
+        private int index;
+        private final @NotNull List<String> keyList = new ArrayList<>();
+        private final @NotNull StringBuilder text = new StringBuilder();
+        private int textIndex;
+
+        // The containers that have been started but not ended.
+        private byte @NotNull [] containers = new byte[16];
+        private int depth;
+        private boolean first;
+        private boolean started;
+        private boolean finished;
+
+        private TagReader(byte @NotNull [] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public int read(char @NotNull [] buffer, int offset, int length) {
+            if (length == 0) return 0;
+
+            // Start again once all the text has been read.
+            if (this.textIndex >= this.text.length()) {
+                this.text.setLength(0);
+                this.textIndex = 0;
+            }
+
+            // Create text until there is enough to fill the buffer.
+            while (this.text.length() - this.textIndex < length && !this.finished) {
+                this.next();
+            }
+
+            if (this.textIndex >= this.text.length()) return -1;
+
+            int amount = Math.min(length, this.text.length() - this.textIndex);
+            this.text.getChars(this.textIndex, this.textIndex + amount, buffer, offset);
+            this.textIndex += amount;
+            return amount;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private void next() {
+
+            // Check if this is the first value.
+            if (!this.started) {
+                this.started = true;
+                byte version = this.readByte();
+                if (version != VERSION) {
+                    throw new RuntimeException("Unsupported binary payload version " + version + ".");
+                }
+                this.nextValue(this.readByte());
+                return;
+            }
+
+            // Check if every value has been read.
+            if (this.depth == 0) {
+                this.finished = true;
+                return;
+            }
+
+            if (this.containers[this.depth - 1] == OBJECT) {
+                int reference = this.readVarInt();
+                if (reference == END_KEY) {
+                    this.end('}');
+                    return;
+                }
+
+                if (!this.first) this.text.append(',');
+                this.first = false;
+                this.appendString(this.readKey(reference));
+                this.text.append(':');
+                this.nextValue(this.readByte());
+                return;
+            }
+
+            byte tag = this.readByte();
+            if (tag == END) {
+                this.end(']');
+                return;
+            }
+
+            if (!this.first) this.text.append(',');
+            this.first = false;
+            this.nextValue(tag);
+        }
+
+        private void nextValue(byte tag) {
+            switch (tag) {
+                case NULL -> this.text.append("null");
+                case TRUE -> this.text.append("true");
+                case FALSE -> this.text.append("false");
+                case LONG -> {
+                    long value = this.readVarLong();
+                    this.text.append((value >>> 1) ^ -(value & 1));
+                }
+                case FLOAT -> this.text.append((double) Float.intBitsToFloat(this.readInt()));
+                case DOUBLE -> this.text.append(Double.longBitsToDouble(this.readLong()));
+                case NUMBER -> this.text.append(this.readString());
+                case STRING -> this.appendString(this.readString());
+                case ARRAY -> this.start(ARRAY, '[');
+                case OBJECT -> this.start(OBJECT, '{');
+                default -> throw new RuntimeException("Unknown binary payload tag " + tag + " at " + (this.index - 1) + ".");
+            }
+        }
+
+        private void start(byte container, char character) {
+            if (this.depth == this.containers.length) {
+                this.containers = Arrays.copyOf(this.containers, this.depth * 2);
+            }
+            this.containers[this.depth++] = container;
+            this.first = true;
+            this.text.append(character);
+        }
+
+        private void end(char character) {
+            this.depth--;
+            this.first = false;
+            this.text.append(character);
+        }
+
+        private void appendString(@NotNull String string) {
+            this.text.append('"');
+
+            // Most strings have nothing to escape.
+            int position = 0;
+            while (position < string.length()) {
+                char character = string.charAt(position);
+                if (character < 0x20 || character == '"' || character == '\\') break;
+                position++;
+            }
+            this.text.append(string, 0, position);
+
+            for (; position < string.length(); position++) {
+                char character = string.charAt(position);
+                switch (character) {
+                    case '"' -> this.text.append("\\\"");
+                    case '\\' -> this.text.append("\\\\");
+                    case '\n' -> this.text.append("\\n");
+                    case '\r' -> this.text.append("\\r");
+                    case '\t' -> this.text.append("\\t");
+                    default -> {
+                        if (character < 0x20) this.text.append(String.format("\\u%04x", (int) character));
+                        else this.text.append(character);
+                    }
+                }
+            }
+            this.text.append('"');
+        }
+
+        private @NotNull String readKey(int reference) {
+            if (reference > NEW_KEY) {
+                int keyIndex = reference - NEW_KEY - 1;
+                if (keyIndex >= this.keyList.size()) {
+                    throw new RuntimeException("Binary payload referred to an unknown key.");
+                }
+                return this.keyList.get(keyIndex);
+            }
+
+            String key = this.readString();
+            this.keyList.add(key);
+            return key;
+        }
+
+        private @NotNull String readString() {
+            int length = this.readVarInt();
+            this.check(length);
+            String string = new String(this.bytes, this.index, length, StandardCharsets.UTF_8);
+            this.index += length;
+            return string;
+        }
+
+        private int readVarInt() {
+            long value = this.readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new RuntimeException("Binary payload length was out of range.");
+            }
+            return (int) value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte next = this.readByte();
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) return value;
+            }
+            throw new RuntimeException("Binary payload number was too long.");
+        }
+
+        private int readInt() {
+            this.check(4);
+            int value = 0;
+            for (int count = 0; count < 4; count++) {
+                value = (value << 8) | (this.bytes[this.index++] & 0xFF);
+            }
+            return value;
+        }
+
+        private long readLong() {
+            this.check(8);
+            long value = 0;
+            for (int count = 0; count < 8; count++) {
+                value = (value << 8) | (this.bytes[this.index++] & 0xFF);
+            }
+            return value;
+        }
+
+        private byte readByte() {
+            this.check(1);
+            return this.bytes[this.index++];
+        }
+
+        private void check(int amount) {
+            if (amount < 0 || this.index + amount > this.bytes.length) {
+                throw new RuntimeException("Binary payload ended early.");
+            }
+        }
+    }
+
+    /**
+     * Used to get the instance of the binary codec.
+     *
+     * @return The binary codec.
+     */
+    public static @NotNull BinaryPayloadCodec getShared() {
+        return BinaryPayloadCodec.SHARED;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Contains the capabilities the client and server
+ * agree on during validation.
+ * <ul>
+ *     <li>The server lists its capabilities after accepting the password, for example "1:framed:client_amount".</li>
+ *     <li>The client lists the ones it will use after its identifier and name.</li>
+ *     <li>Unknown capabilities are ignored, so older clients and servers still connect.</li>
+ * </ul>
+ */
+public final class Capability {
+
+    /**
+     * Packets are sent as length prefixed frames instead of lines.
+     */
+    public static final @NotNull String FRAMED = "framed";
+
+    /**
+     * The server sends the number of valid clients
+     * whenever a client joins or leaves.
+     */
+    public static final @NotNull String CLIENT_AMOUNT = "client_amount";
+
+    /**
+     * The client sends the events it listens to, and the server
+     * only sends it those events. The server also tells the caller
+     * how many clients an event was sent to.
+     */
+    public static final @NotNull String SUBSCRIPTIONS = "subscriptions";
+
+    /**
+     * Sent as a subscription when a client
+     * could listen to any event.
+     */
+    public static final @NotNull String ALL_EVENTS = "*";
+
+    /**
+     * The server sends events with a target only to the
+     * client with that identifier or name.
+     */
+    public static final @NotNull String TARGETS = "targets";
+
+    /**
+     * The client sends the channels it has joined, and the server
+     * sends events and objects for a channel only to its members.
+     */
+    public static final @NotNull String CHANNELS = "channels";
+
+    /**
+     * The server sends balanced events to only one
+     * of the clients that listen to them.
+     */
+    public static final @NotNull String BALANCE = "balance";
+
+    /**
+     * The server collects the results of an event and sends
+     * them to the caller in batches instead of one at a time.
+     */
+    public static final @NotNull String AGGREGATE = "aggregate";
+
+    /**
+     * The server stops sending results once an event's completion
+     * condition is met, and tells the clients still running
+     * the event that they can stop.
+     */
+    public static final @NotNull String COMPLETION = "completion";
+
+    /**
+     * The server gives each event and object class a number,
+     * and packets can use the number instead of the class name.
+     */
+    public static final @NotNull String TYPE_IDS = "type_ids";
+
+    /**
+     * Packets are sent with their data as nested json
+     * instead of json inside a string.
+     */
+    public static final @NotNull String NESTED_DATA = "nested_data";
+
+    /**
+     * Sent for each payload codec, other than json, that
+     * a side can read. Followed by the codec's identifier,
+     * for example "codec_binary".
+     */
+    public static final @NotNull String CODEC_PREFIX = "codec_";
+
+    /**
+     * The character placed between each part.
+     */
+    public static final @NotNull String SEPARATOR = ":";
+
+    private Capability() {
+    }
+
+    /**
+     * Used to get the capabilities in a validation message.
+     *
+     * @param message The validation message.
+     * @param from    The index of the first capability
+     *                after the message is split.
+     * @return The set of capabilities.
+     */
+    public static @NotNull Set<String> parse(@NotNull String message, int from) {
+        String[] parts = message.split(SEPARATOR);
+        if (parts.length <= from) return Collections.emptySet();
+        return new HashSet<>(Arrays.asList(parts).subList(from, parts.length));
+    }
+
+    /**
+     * Used to append capabilities to a validation message.
+     *
+     * @param message      The start of the message.
+     * @param capabilities The capabilities to append.
+     * @return The validation message.
+     */
+    public static @NotNull String append(@NotNull String message, @NotNull Collection<String> capabilities) {
+        StringBuilder builder = new StringBuilder(message);
+        for (String capability : capabilities) {
+            builder.append(SEPARATOR).append(capability);
+        }
+        return builder.toString();
+    }
+}
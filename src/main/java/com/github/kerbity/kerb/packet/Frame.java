@@ -0,0 +1,116 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a single message read from a connection.
+ * When the framed protocol is used, each message is sent as
+ * a four byte payload length, a packet type code and the payload.
+ * When the line protocol is used, the type is unknown
+ * and the payload is the line that was read.
+ */
+public class Frame {
+
+    /**
+     * The number of bytes before the payload.
+     * The payload length followed by the type code.
+     */
+    public static final int HEADER_SIZE = 5;
+
+    /**
+     * The largest payload that will be accepted.
+     * Anything larger is treated as a broken connection.
+     */
+    public static final int MAX_PAYLOAD_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The type code used when the packet type is unknown.
+     */
+    public static final byte UNKNOWN_TYPE = 0;
+
+    /**
+     * The capability sent during validation
+     * to agree on using frames.
+     */
+    public static final @NotNull String CAPABILITY = Capability.FRAMED;
+
+    private final byte type;
+    private final byte @NotNull [] payload;
+
+    /**
+     * Used to create a new frame.
+     *
+     * @param type    The packet type code.
+     * @param payload The payload bytes.
+     */
+    public Frame(byte type, byte @NotNull [] payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+
+    /**
+     * Used to get the packet type code.
+     *
+     * @return The packet type code.
+     */
+    public byte getType() {
+        return this.type;
+    }
+
+    /**
+     * Used to get the packet type from the type code.
+     *
+     * @return The packet type.
+     * Null if the type is unknown.
+     */
+    public @Nullable PacketType getPacketType() {
+        return PacketType.fromCode(this.type);
+    }
+
+    /**
+     * Used to get the payload bytes.
+     * These should not be modified.
+     *
+     * @return The payload bytes.
+     */
+    public byte @NotNull [] getPayload() {
+        return this.payload;
+    }
+
+    /**
+     * Used to get the payload as a string.
+     *
+     * @return The payload as a string.
+     */
+    public @NotNull String getPayloadString() {
+        return new String(this.payload, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return this.getPayloadString();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the default payload codec.
+ * The data is encoded as json using the {@link PacketCodec}.
+ */
+public final class JsonPayloadCodec implements PayloadCodec {
+
+    /**
+     * The identifier of the json codec.
+     */
+    public static final @NotNull String IDENTIFIER = "json";
+
+    private static final @NotNull JsonPayloadCodec SHARED = new JsonPayloadCodec();
+
+    private JsonPayloadCodec() {
+    }
+
+    @Override
+    public @NotNull String getIdentifier() {
+        return JsonPayloadCodec.IDENTIFIER;
+    }
+
+    @Override
+    public @NotNull String encode(@Nullable Object object) {
+        return PacketCodec.getShared().toJson(object);
+    }
+
+    @Override
+    public <T> @Nullable T decode(@Nullable String data, @NotNull Class<T> type) {
+        return PacketCodec.getShared().fromJson(data, type);
+    }
+
+    @Override
+    public @Nullable String toJson(@Nullable String data) {
+        return data;
+    }
+
+    /**
+     * Used to get the instance of the json codec.
+     *
+     * @return The json codec.
+     */
+    public static @NotNull JsonPayloadCodec getShared() {
+        return JsonPayloadCodec.SHARED;
+    }
+}
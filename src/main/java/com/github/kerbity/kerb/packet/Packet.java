@@ -20,46 +20,135 @@
 
 package com.github.kerbity.kerb.packet;
 
-import com.github.squishylib.configuration.implementation.MemoryConfigurationSection;
-import com.google.gson.Gson;
+import com.github.kerbity.kerb.result.CompletionCondition;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.UUID;
 
 /**
- * Represents a packet of data stored
- * as a map of string to object.
+ * Represents a packet of data.
+ * The routing values are kept as fields, and the data
+ * is kept as the json or encoded string it was sent as,
+ * so reading and routing a packet does not create a map.
+ * For code that uses the configuration api, see
+ * {@link PacketConfigurationSection}.
  * For more infomation on packets see the package info.
  */
-public class Packet extends MemoryConfigurationSection {
+public class Packet {
+
+    static final @NotNull String TYPE_KEY = "type";
+    static final @NotNull String IDENTIFIER_KEY = "identifier";
+    static final @NotNull String SEQUENCE_IDENTIFIER_KEY = "sequence_identifier";
+    static final @NotNull String SOURCE_KEY = "source";
+    static final @NotNull String TARGET_KEY = "target";
+    static final @NotNull String CHANNEL_KEY = "channel";
+    static final @NotNull String BALANCE_KEY = "balance";
+    static final @NotNull String COMPLETION_KEY = "completion";
+    static final @NotNull String CODEC_KEY = "codec";
+    static final @NotNull String DATA_KEY = "data";
+
+    private static final int UUID_LENGTH = 36;
+    private static final int DASH = 16;
+
+    private @Nullable PacketType type;
+    private @Nullable String identifier;
+
+    // The sequence identifier is a uuid, so it is kept as two longs
+    // and only turned into a string when it is requested.
+    private boolean hasSequenceBits;
+    private long sequenceMostBits;
+    private long sequenceLeastBits;
+    private @Nullable String sequenceIdentifier;
+
+    private @Nullable String source;
+    private @Nullable String target;
+    private @Nullable String channel;
+    private @Nullable String balance;
+    private @Nullable String completion;
+    private @Nullable String codec;
+    private @Nullable String data;
+
+    // Values this version does not know about,
+    // so they are not lost when a packet is relayed.
+    private @Nullable Map<String, Object> extraMap;
+
+    private @Nullable Frame frame;
 
     /**
      * Used to create an empty packet.
      */
     public Packet() {
-        super(new HashMap<>());
     }
 
     /**
-     * Used to create a packet.
+     * Used to create a packet from a map of its values.
      *
-     * @param map The instance of the map the
-     *            packet should use.
+     * @param map The map of keys to values.
      */
     public Packet(@NotNull Map<String, Object> map) {
-        super(map);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            this.put(entry.getKey(), entry.getValue());
+        }
     }
 
     /**
-     * Used to packet the map into a json string.
+     * Used to packet the packet into a json string.
+     * The data is written as a json string,
+     * so every client and server can read it.
      *
      * @return The packet as a string.
      */
     public @NotNull String getPacketString() {
-        Gson gson = new Gson();
-        return gson.toJson(this.data);
+        return PacketCodec.getShared().writePacket(this, false);
+    }
+
+    /**
+     * Used to packet the packet into a json string.
+     *
+     * @param nestedData True if the data should be written as
+     *                   nested json instead of a json string.
+     * @return The packet as a string.
+     */
+    public @NotNull String getPacketString(boolean nestedData) {
+        return PacketCodec.getShared().writePacket(this, nestedData);
+    }
+
+    /**
+     * Used to get the packet as a frame.
+     * The packet is only encoded the first time this is called,
+     * or the original bytes are used if the packet was read
+     * from a frame, so the same frame can be sent to many
+     * connections. Changing the packet with its setters
+     * will cause it to be encoded again.
+     *
+     * @return The packet as a frame.
+     */
+    public @NotNull Frame toFrame() {
+        Frame frame = this.frame;
+        if (frame != null) return frame;
+        return this.encode(false);
+    }
+
+    /**
+     * Used to get the packet as a frame, with the data
+     * written as nested json or as a json string.
+     * The frame is reused when it already has
+     * data in a form that can be read.
+     *
+     * @param nestedData True if the receiver can read nested data.
+     * @return The packet as a frame.
+     */
+    public @NotNull Frame toFrame(boolean nestedData) {
+        Frame frame = this.frame;
+        if (frame != null && (nestedData || !PacketHeader.isNestedValue(frame.getPayload(), DATA_KEY))) {
+            return frame;
+        }
+        return this.encode(nestedData);
     }
 
     /**
@@ -68,7 +157,7 @@ public class Packet extends MemoryConfigurationSection {
      * @return The type of packet.
      */
     public @Nullable PacketType getType() {
-        return PacketType.fromIdentifier(this.getString("type"));
+        return this.type;
     }
 
     /**
@@ -77,7 +166,7 @@ public class Packet extends MemoryConfigurationSection {
      * @return The packet's identifier.
      */
     public @Nullable String getIdentifier() {
-        return this.getString("identifier");
+        return this.identifier;
     }
 
     /**
@@ -87,16 +176,53 @@ public class Packet extends MemoryConfigurationSection {
      * @return The sequence identifier.
      */
     public @Nullable String getSequenceIdentifier() {
-        return this.getString("sequence_identifier", null);
+        if (this.sequenceIdentifier == null && this.hasSequenceBits) {
+            this.sequenceIdentifier = new UUID(this.sequenceMostBits, this.sequenceLeastBits).toString();
+        }
+        return this.sequenceIdentifier;
+    }
+
+    /**
+     * Used to check if the sequence identifier is a uuid,
+     * so it can be compared using its bits.
+     *
+     * @return True if the sequence identifier is a uuid.
+     */
+    public boolean hasSequenceBits() {
+        return this.hasSequenceBits;
+    }
+
+    /**
+     * Used to get the most significant bits
+     * of the sequence identifier.
+     *
+     * @return The most significant bits.
+     * 0 if the sequence identifier is not a uuid.
+     */
+    public long getSequenceMostBits() {
+        return this.sequenceMostBits;
+    }
+
+    /**
+     * Used to get the least significant bits
+     * of the sequence identifier.
+     *
+     * @return The least significant bits.
+     * 0 if the sequence identifier is not a uuid.
+     */
+    public long getSequenceLeastBits() {
+        return this.sequenceLeastBits;
     }
 
     /**
      * Used to get the raw data.
+     * This is the data's json, whether it
+     * was sent nested or as a json string.
      *
      * @return Teh rew data.
      */
     public @Nullable String getData() {
-        return this.getString("data");
+        return this.data;
     }
 
     /**
@@ -107,8 +233,43 @@ public class Packet extends MemoryConfigurationSection {
      * @return The requested class as data.
      */
     public @Nullable <T> T getData(@NotNull Class<T> clazz) {
-        Gson gson = new Gson();
-        return gson.fromJson(this.getString("data"), clazz);
+        return this.getPayloadCodec().decode(this.data, clazz);
+    }
+
+    /**
+     * Used to get the data as json,
+     * whichever codec it was encoded with.
+     *
+     * @return The data as json.
+     */
+    public @Nullable String getJsonData() {
+        return this.getPayloadCodec().toJson(this.data);
+    }
+
+    /**
+     * Used to get the identifier of the codec
+     * the data was encoded with.
+     *
+     * @return The codec identifier or null
+     * if the data is json.
+     */
+    public @Nullable String getCodec() {
+        return this.codec;
+    }
+
+    /**
+     * Used to get the codec the data was encoded with.
+     *
+     * @return The payload codec.
+     * @throws RuntimeException If the codec is not registered.
+     */
+    public @NotNull PayloadCodec getPayloadCodec() {
+        String identifier = this.codec;
+        if (identifier == null) return JsonPayloadCodec.getShared();
+
+        PayloadCodec codec = PayloadCodecRegistry.getShared().get(identifier);
+        if (codec == null) throw new RuntimeException("Packet data uses an unknown payload codec. codec=" + identifier);
+        return codec;
     }
 
     /**
@@ -121,7 +282,87 @@ public class Packet extends MemoryConfigurationSection {
      * @return The details of the target.
      */
     public @Nullable String getSource() {
-        return this.getString("source", null);
+        return this.source;
+    }
+
+    /**
+     * Used to get the identifier or name of the client
+     * this packet should only be sent to.
+     *
+     * @return The target or null if the packet
+     * is not targeted.
+     */
+    public @Nullable String getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Used to get the channel this packet
+     * should only be sent to the members of.
+     *
+     * @return The channel or null if the packet
+     * is not sent to a channel.
+     */
+    public @Nullable String getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Used to get how the server picks the one client
+     * this packet is sent to.
+     * This is the strategy identifier, followed by
+     * a colon and the key if there is one.
+     *
+     * @return The balance or null if the packet
+     * is not sent to any one client.
+     */
+    public @Nullable String getBalance() {
+        return this.balance;
+    }
+
+    /**
+     * Used to get the condition that completes
+     * the results of this event early.
+     *
+     * @return The condition identifier or null
+     * if the event waits for every result.
+     */
+    public @Nullable String getCompletion() {
+        return this.completion;
+    }
+
+    /**
+     * Used to get the values this version of
+     * the packet does not have fields for.
+     *
+     * @return The map of keys to values.
+     */
+    public @NotNull Map<String, Object> getExtraMap() {
+        if (this.extraMap == null) return Collections.emptyMap();
+        return Collections.unmodifiableMap(this.extraMap);
+    }
+
+    /**
+     * Used to get every value of the packet as a map.
+     * A new map is created each time, so changing
+     * it will not change the packet.
+     *
+     * @return The map of keys to values.
+     */
+    public @NotNull Map<String, Object> getMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        if (this.type != null) map.put(TYPE_KEY, this.type.getIdentifier());
+        if (this.identifier != null) map.put(IDENTIFIER_KEY, this.identifier);
+        if (this.getSequenceIdentifier() != null) map.put(SEQUENCE_IDENTIFIER_KEY, this.getSequenceIdentifier());
+        if (this.source != null) map.put(SOURCE_KEY, this.source);
+        if (this.target != null) map.put(TARGET_KEY, this.target);
+        if (this.channel != null) map.put(CHANNEL_KEY, this.channel);
+        if (this.balance != null) map.put(BALANCE_KEY, this.balance);
+        if (this.completion != null) map.put(COMPLETION_KEY, this.completion);
+        if (this.codec != null) map.put(CODEC_KEY, this.codec);
+        if (this.data != null) map.put(DATA_KEY, this.data);
+        if (this.extraMap != null) map.putAll(this.extraMap);
+        return map;
     }
 
     /**
@@ -132,7 +373,8 @@ public class Packet extends MemoryConfigurationSection {
      * @return This instance.
      */
     public @NotNull Packet setType(@NotNull PacketType packetType) {
-        this.set("type", packetType.getIdentifier());
+        this.frame = null;
+        this.putType(packetType);
         return this;
     }
 
@@ -145,7 +387,8 @@ public class Packet extends MemoryConfigurationSection {
      * @return This instance.
      */
     public @NotNull Packet setIdentifier(@NotNull String identifier) {
-        this.set("identifier", identifier);
+        this.frame = null;
+        this.identifier = identifier;
         return this;
     }
 
@@ -157,7 +400,9 @@ public class Packet extends MemoryConfigurationSection {
      * @return This instance.
      */
     public @NotNull Packet setSequenceIdentifier(@NotNull String sequenceIdentifier) {
-        this.set("sequence_identifier", sequenceIdentifier);
+        this.frame = null;
+        this.sequenceIdentifier = sequenceIdentifier;
+        this.hasSequenceBits = this.readSequenceBits(sequenceIdentifier);
         return this;
     }
 
@@ -169,8 +414,38 @@ public class Packet extends MemoryConfigurationSection {
      * @return This instance.
      */
     public @NotNull Packet setData(@NotNull Object object) {
-        Gson gson = new Gson();
-        this.set("data", gson.toJson(object));
+        return this.setData(object, JsonPayloadCodec.getShared());
+    }
+
+    /**
+     * Used to set the packet's data to json
+     * that has already been encoded, so it
+     * is not encoded again as a string.
+     *
+     * @param json The data's json.
+     * @return This instance.
+     */
+    public @NotNull Packet setJsonData(@NotNull String json) {
+        this.frame = null;
+        this.data = json;
+        this.codec = null;
+        return this;
+    }
+
+    /**
+     * Used to set the packet's data using a payload codec.
+     * The codec should be one the receiver can read.
+     *
+     * @param object The instance of an object.
+     * @param codec  The codec used to encode the data.
+     * @return This instance.
+     */
+    public @NotNull Packet setData(@NotNull Object object, @NotNull PayloadCodec codec) {
+        this.frame = null;
+        this.data = codec.encode(object);
+
+        // Json data does not need the codec.
+        this.codec = codec == JsonPayloadCodec.getShared() ? null : codec.getIdentifier();
         return this;
     }
 
@@ -181,24 +456,283 @@ public class Packet extends MemoryConfigurationSection {
      * @return This instance.
      */
     public @NotNull Packet setSource(@NotNull String targetIdentifier) {
-        this.set("source", targetIdentifier);
+        this.frame = null;
+        this.source = targetIdentifier;
+        return this;
+    }
+
+    /**
+     * Used to set the identifier or name of the client
+     * this packet should only be sent to.
+     * The server will not send it to any other client.
+     *
+     * @param target The client's identifier or name.
+     * @return This instance.
+     */
+    public @NotNull Packet setTarget(@NotNull String target) {
+        this.frame = null;
+        this.target = target;
+        return this;
+    }
+
+    /**
+     * Used to set the channel this packet should
+     * only be sent to the members of.
+     *
+     * @param channel The name of the channel.
+     * @return This instance.
+     */
+    public @NotNull Packet setChannel(@NotNull String channel) {
+        this.frame = null;
+        this.channel = channel;
+        return this;
+    }
+
+    /**
+     * Used to set how the server picks the one client
+     * this packet is sent to.
+     *
+     * @param strategy The strategy used to pick the client.
+     * @param key      The key used by {@link BalanceStrategy#CONSISTENT_HASH}.
+     *                 Null if there isn't one.
+     * @return This instance.
+     */
+    public @NotNull Packet setBalance(@NotNull BalanceStrategy strategy, @Nullable String key) {
+        this.frame = null;
+        this.balance = key == null ? strategy.getIdentifier() : strategy.getIdentifier() + ":" + key;
+        return this;
+    }
+
+    /**
+     * Used to set the condition that completes the results
+     * of this event early. The server stops sending results
+     * once it is met.
+     *
+     * @param condition The completion condition.
+     * @return This instance.
+     */
+    public @NotNull Packet setCompletion(@NotNull CompletionCondition condition) {
+        this.frame = null;
+        this.completion = condition.getIdentifier();
         return this;
     }
 
+    /**
+     * Used to set a value by its key.
+     * Used when the packet is read from json
+     * or created from a map.
+     *
+     * @param key   The key of the value.
+     * @param value The value or null to remove it.
+     */
+    void put(@NotNull String key, @Nullable Object value) {
+        this.frame = null;
+        String string = value == null ? null : value.toString();
+
+        switch (key) {
+            case TYPE_KEY -> {
+                this.putType(string == null ? null : PacketType.fromIdentifier(string));
+
+                // Keep types from newer versions, so they are relayed.
+                if (string != null && this.type == null) this.putExtra(key, string);
+            }
+            case IDENTIFIER_KEY -> this.identifier = string;
+            case SEQUENCE_IDENTIFIER_KEY -> {
+                if (string != null) this.setSequenceIdentifier(string);
+                else {
+                    this.sequenceIdentifier = null;
+                    this.hasSequenceBits = false;
+                }
+            }
+            case SOURCE_KEY -> this.source = string;
+            case TARGET_KEY -> this.target = string;
+            case CHANNEL_KEY -> this.channel = string;
+            case BALANCE_KEY -> this.balance = string;
+            case COMPLETION_KEY -> this.completion = string;
+            case CODEC_KEY -> this.codec = string;
+            case DATA_KEY -> this.data = string;
+            default -> this.putExtra(key, value);
+        }
+    }
+
+    /**
+     * Used to set the type of packet when it is read.
+     *
+     * @param type The type of packet.
+     */
+    void putType(@Nullable PacketType type) {
+        this.type = type;
+        if (this.extraMap != null) this.extraMap.remove(TYPE_KEY);
+    }
+
+    /**
+     * Used to read the sequence identifier from
+     * a packet's json bytes without creating a string.
+     * If it is not a lowercase uuid, it is read as a string.
+     *
+     * @param payload The json bytes.
+     * @param start   The index of the first character in the quotes.
+     * @param length  The amount of bytes in the quotes.
+     * @return True if it was read as a uuid.
+     */
+    boolean putSequenceBits(byte @NotNull [] payload, int start, int length) {
+        if (length != UUID_LENGTH) return false;
+        long most = 0;
+        long least = 0;
+
+        for (int index = 0; index < UUID_LENGTH; index++) {
+            int value = Packet.getSequenceDigit(index, payload[start + index]);
+            if (value < 0) return false;
+            if (value == DASH) continue;
+            if (index < 18) most = (most << 4) | value;
+            else least = (least << 4) | value;
+        }
+
+        this.hasSequenceBits = true;
+        this.sequenceMostBits = most;
+        this.sequenceLeastBits = least;
+        this.sequenceIdentifier = null;
+        return true;
+    }
+
+    private void putExtra(@NotNull String key, @Nullable Object value) {
+        if (value == null) {
+            if (this.extraMap != null) this.extraMap.remove(key);
+            return;
+        }
+        if (this.extraMap == null) this.extraMap = new LinkedHashMap<>();
+        this.extraMap.put(key, value);
+    }
+
+    /**
+     * Used to read a lowercase uuid into the
+     * bits of the sequence identifier.
+     *
+     * @param text The sequence identifier.
+     * @return True if it was a uuid.
+     */
+    private boolean readSequenceBits(@NotNull String text) {
+        long most = 0;
+        long least = 0;
+        boolean valid = text.length() == UUID_LENGTH;
+
+        for (int index = 0; valid && index < UUID_LENGTH; index++) {
+            int value = Packet.getSequenceDigit(index, text.charAt(index));
+            if (value < 0) valid = false;
+            else if (value == DASH) continue;
+            else if (index < 18) most = (most << 4) | value;
+            else least = (least << 4) | value;
+        }
+
+        // Non uuid sequence identifiers are only kept as a string.
+        this.sequenceMostBits = valid ? most : 0;
+        this.sequenceLeastBits = valid ? least : 0;
+        return valid;
+    }
+
     /**
      * Used to get a json as a packet.
      *
      * @param json The instance of a json.
      * @return The instance of the packet.
      */
-    @SuppressWarnings("unchecked")
     public static @NotNull Packet getPacket(@NotNull String json) {
-        Gson gson = new Gson();
-        return new Packet(gson.fromJson(json, Map.class));
+        return Packet.readPacket(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Used to get a frame as a packet.
+     * The frame is kept so the packet can be
+     * relayed without being encoded again.
+     *
+     * @param frame The instance of the frame.
+     * @return The instance of the packet.
+     */
+    public static @NotNull Packet getPacket(@NotNull Frame frame) {
+        Packet packet = Packet.readPacket(frame.getPayload());
+        PacketType type = packet.getType();
+
+        // Keep the type code when the frame was read as a line.
+        packet.frame = frame.getType() != Frame.UNKNOWN_TYPE || type == null
+                ? frame
+                : new Frame(type.getCode(), frame.getPayload());
+        return packet;
+    }
+
+    /**
+     * Used to get a frame with its data as a json string,
+     * for connections that can not read nested data
+     * or the codec the data was encoded with.
+     *
+     * @param frame The instance of the frame.
+     * @return The frame with the data as a json string,
+     * or the same frame if it already was.
+     */
+    public static @NotNull Frame flattenData(@NotNull Frame frame) {
+        boolean encoded = PacketHeader.readValue(frame.getPayload(), CODEC_KEY) != null;
+        if (!encoded && !PacketHeader.isNestedValue(frame.getPayload(), DATA_KEY)) return frame;
+
+        Packet packet = Packet.getPacket(frame);
+        if (encoded) {
+            packet.data = packet.getJsonData();
+            packet.codec = null;
+            packet.frame = null;
+        }
+        return packet.toFrame(false);
+    }
+
+    /**
+     * Used to read the data of a frame as json without
+     * reading the rest of the packet.
+     *
+     * @param frame The instance of the frame.
+     * @return The data as json.
+     * Null if the packet has no data.
+     */
+    public static @Nullable String readJsonData(@NotNull Frame frame) {
+        String data = PacketHeader.readValue(frame.getPayload(), DATA_KEY);
+        String identifier = PacketHeader.readValue(frame.getPayload(), CODEC_KEY);
+        if (data == null || identifier == null) return data;
+
+        PayloadCodec codec = PayloadCodecRegistry.getShared().get(identifier);
+        if (codec == null) throw new RuntimeException("Packet data uses an unknown payload codec. codec=" + identifier);
+        return codec.toJson(data);
+    }
+
+    private static @NotNull Packet readPacket(byte @NotNull [] payload) {
+        Packet packet = new Packet();
+        if (!PacketHeader.readPacket(payload, packet)) throw new RuntimeException(
+                "Packet was not a json object. json=" + new String(payload, StandardCharsets.UTF_8)
+        );
+        return packet;
+    }
+
+    private @NotNull Frame encode(boolean nestedData) {
+        Frame frame = new Frame(
+                this.type == null ? Frame.UNKNOWN_TYPE : this.type.getCode(),
+                this.getPacketString(nestedData).getBytes(StandardCharsets.UTF_8)
+        );
+        this.frame = frame;
+        return frame;
     }
 
     @Override
     public String toString() {
         return this.getMap().toString();
     }
+
+    /**
+     * Used to get the value of a character in a uuid.
+     *
+     * @param index     The index of the character.
+     * @param character The character.
+     * @return The value of the hex digit, {@link Packet#DASH}
+     * for a dash in the right place or -1 if it is not valid.
+     */
+    private static int getSequenceDigit(int index, int character) {
+        if (index == 8 || index == 13 || index == 18 || index == 23) return character == '-' ? DASH : -1;
+        if (character >= '0' && character <= '9') return character - '0';
+        if (character >= 'a' && character <= 'f') return character - 'a' + 10;
+        return -1;
+    }
 }
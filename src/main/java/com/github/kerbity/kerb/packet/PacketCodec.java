@@ -0,0 +1,348 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import com.github.kerbity.kerb.client.registeredclient.RegisteredClientAdapter;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.github.kerbity.kerb.packet.serverevent.event.CheckAliveServerEvent;
+import com.github.kerbity.kerb.packet.serializer.CheckAliveServerEventSerializer;
+import com.github.kerbity.kerb.packet.serializer.PingEventSerializer;
+import com.github.kerbity.kerb.packet.serializer.RegisteredClientAdapterSerializer;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the json codec used to encode and decode packets.
+ * <ul>
+ *     <li>A single {@link Gson} is shared, instead of creating one for every packet.</li>
+ *     <li>The {@link TypeAdapter} for each class is kept, so it is only created once.</li>
+ *     <li>
+ *         The built-in events and client adapters use the serializers in
+ *         {@link com.github.kerbity.kerb.packet.serializer}, which do not use reflection.
+ *     </li>
+ *     <li>
+ *         Other classes can use a serializer by annotating them with gson's
+ *         {@link com.google.gson.annotations.JsonAdapter} or with {@link PacketCodec#register(Class, TypeAdapter)}.
+ *     </li>
+ *     <li>
+ *         A packet's data can be written as nested json, so it is not
+ *         escaped inside a string and is only encoded and decoded once.
+ *     </li>
+ *     <li>Gson and its adapters are thread safe, so the codec can be used by every connection.</li>
+ * </ul>
+ */
+public final class PacketCodec {
+
+    private static final @NotNull PacketCodec SHARED = new PacketCodec();
+
+    private final @NotNull Gson gson;
+    private final @NotNull Map<Class<?>, TypeAdapter<?>> adapterMap;
+
+    /**
+     * Used to create a new packet codec.
+     */
+    public PacketCodec() {
+        RegisteredClientAdapterSerializer clientSerializer = new RegisteredClientAdapterSerializer();
+
+        // Give gson the serializers, so they are also
+        // used when the classes are inside other classes.
+        this.gson = new GsonBuilder()
+                .registerTypeAdapter(RegisteredClientAdapter.class, clientSerializer)
+                .registerTypeAdapter(PingEvent.class, new PingEventSerializer(clientSerializer))
+                .registerTypeAdapter(CheckAliveServerEvent.class, new CheckAliveServerEventSerializer())
+                .create();
+        this.adapterMap = new ConcurrentHashMap<>();
+
+        // Create the adapters that are used most often.
+        this.getAdapter(RegisteredClientAdapter.class);
+        this.getAdapter(PingEvent.class);
+        this.getAdapter(CheckAliveServerEvent.class);
+    }
+
+    /**
+     * Used to get the shared instance of gson.
+     *
+     * @return The instance of gson.
+     */
+    public @NotNull Gson getGson() {
+        return this.gson;
+    }
+
+    /**
+     * Used to get the json adapter for a class.
+     * The adapter is only created the first time.
+     *
+     * @param type The class.
+     * @param <T>  The type of class.
+     * @return The json adapter.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> @NotNull TypeAdapter<T> getAdapter(@NotNull Class<T> type) {
+        return (TypeAdapter<T>) this.adapterMap.computeIfAbsent(type, this.gson::getAdapter);
+    }
+
+    /**
+     * Used to set the json adapter for a class, so gson's
+     * reflection is not used for it. This should be done
+     * before the class is first sent or received.
+     * The adapter is only used when the class is the packet's
+     * data, for classes inside other classes use gson's
+     * {@link com.google.gson.annotations.JsonAdapter}.
+     *
+     * @param type    The class.
+     * @param adapter The json adapter.
+     * @param <T>     The type of class.
+     * @return This instance.
+     */
+    public <T> @NotNull PacketCodec register(@NotNull Class<T> type, @NotNull TypeAdapter<T> adapter) {
+        this.adapterMap.put(type, adapter);
+        return this;
+    }
+
+    /**
+     * Used to encode an object as json.
+     * Gson's writer is used, so null
+     * values are left out.
+     *
+     * @param object The instance of the object.
+     * @return The json string.
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull String toJson(@Nullable Object object) {
+        if (object == null) return "null";
+        StringWriter stringWriter = new StringWriter();
+
+        try (JsonWriter writer = this.gson.newJsonWriter(stringWriter)) {
+            ((TypeAdapter<Object>) this.getAdapter(object.getClass())).write(writer, object);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        return stringWriter.toString();
+    }
+
+    /**
+     * Used to decode json into a class.
+     *
+     * @param json The json string.
+     * @param type The class to create.
+     * @param <T>  The type of class.
+     * @return The instance of the class.
+     * Null if the json is null.
+     */
+    public <T> @Nullable T fromJson(@Nullable String json, @NotNull Class<T> type) {
+        if (json == null) return null;
+        try {
+            return this.getAdapter(type).fromJson(json);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Used to encode a packet's map as json.
+     * The data is kept as a json string, so
+     * older clients and servers can read it.
+     * Packets are written with {@link PacketCodec#writePacket(Packet, boolean)},
+     * this is kept for code that uses the configuration api.
+     *
+     * @param map The packet's map.
+     * @return The json string.
+     */
+    public @NotNull String writePacket(@NotNull Map<String, Object> map) {
+        return this.writePacket(map, false);
+    }
+
+    /**
+     * Used to encode a packet's map as json.
+     *
+     * @param map        The packet's map.
+     * @param nestedData True if the data should be written as nested
+     *                   json instead of a json string. Data that is
+     *                   itself a json string is always kept as a string,
+     *                   so it can't be mistaken for the older format.
+     *                   Data from other payload codecs is not json,
+     *                   so it is also kept as a string.
+     * @return The json string.
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull String writePacket(@NotNull Map<String, Object> map, boolean nestedData) {
+        StringWriter stringWriter = new StringWriter();
+        nestedData = nestedData && !map.containsKey(Packet.CODEC_KEY);
+
+        try (JsonWriter writer = this.gson.newJsonWriter(stringWriter)) {
+            writer.beginObject();
+
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                Object value = entry.getValue();
+                if (value == null) continue;
+
+                writer.name(entry.getKey());
+
+                // Write the data without escaping it.
+                if (nestedData && entry.getKey().equals(Packet.DATA_KEY)
+                        && value instanceof String json && PacketCodec.isNestable(json)) {
+                    writer.jsonValue(json);
+                    continue;
+                }
+
+                if (value instanceof String string) {
+                    writer.value(string);
+                    continue;
+                }
+
+                ((TypeAdapter<Object>) this.getAdapter(value.getClass())).write(writer, value);
+            }
+
+            writer.endObject();
+
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        return stringWriter.toString();
+    }
+
+    /**
+     * Used to encode a packet as json.
+     * The packet's fields are written directly,
+     * without creating a map.
+     *
+     * @param packet     The instance of the packet.
+     * @param nestedData True if the data should be written as nested
+     *                   json instead of a json string, when it can be.
+     * @return The json string.
+     */
+    @SuppressWarnings("unchecked")
+    public @NotNull String writePacket(@NotNull Packet packet, boolean nestedData) {
+        StringWriter stringWriter = new StringWriter();
+        PacketType type = packet.getType();
+
+        try (JsonWriter writer = this.gson.newJsonWriter(stringWriter)) {
+            writer.beginObject();
+
+            if (type != null) writer.name(Packet.TYPE_KEY).value(type.getIdentifier());
+            PacketCodec.writeValue(writer, Packet.IDENTIFIER_KEY, packet.getIdentifier());
+            PacketCodec.writeValue(writer, Packet.SEQUENCE_IDENTIFIER_KEY, packet.getSequenceIdentifier());
+            PacketCodec.writeValue(writer, Packet.SOURCE_KEY, packet.getSource());
+            PacketCodec.writeValue(writer, Packet.TARGET_KEY, packet.getTarget());
+            PacketCodec.writeValue(writer, Packet.CHANNEL_KEY, packet.getChannel());
+            PacketCodec.writeValue(writer, Packet.BALANCE_KEY, packet.getBalance());
+            PacketCodec.writeValue(writer, Packet.COMPLETION_KEY, packet.getCompletion());
+            PacketCodec.writeValue(writer, Packet.CODEC_KEY, packet.getCodec());
+
+            // Write the data without escaping it.
+            String data = packet.getData();
+            if (data != null && nestedData && packet.getCodec() == null && PacketCodec.isNestable(data)) {
+                writer.name(Packet.DATA_KEY).jsonValue(data);
+            } else {
+                PacketCodec.writeValue(writer, Packet.DATA_KEY, data);
+            }
+
+            for (Map.Entry<String, Object> entry : packet.getExtraMap().entrySet()) {
+                Object value = entry.getValue();
+                writer.name(entry.getKey());
+
+                if (value instanceof String string) {
+                    writer.value(string);
+                    continue;
+                }
+
+                ((TypeAdapter<Object>) this.getAdapter(value.getClass())).write(writer, value);
+            }
+
+            writer.endObject();
+
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        return stringWriter.toString();
+    }
+
+    /**
+     * Used to decode a packet's map from json.
+     *
+     * @param json The json string.
+     * @return The packet's map.
+     */
+    public @NotNull Map<String, Object> readPacket(@NotNull String json) {
+        return this.readPacket(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Used to decode a packet's map from json bytes.
+     * The data is kept as json in both formats,
+     * and is only decoded when it is requested.
+     *
+     * @param payload The json bytes.
+     * @return The packet's map.
+     */
+    public @NotNull Map<String, Object> readPacket(byte @NotNull [] payload) {
+        Map<String, Object> map = PacketHeader.readValues(payload);
+        if (map == null) throw new RuntimeException(
+                "Packet was not a json object. json=" + new String(payload, StandardCharsets.UTF_8)
+        );
+        return map;
+    }
+
+    private static void writeValue(@NotNull JsonWriter writer, @NotNull String key, @Nullable String value) throws IOException {
+        if (value == null) return;
+        writer.name(key).value(value);
+    }
+
+    /**
+     * Used to check if json can be written as nested data.
+     * Json strings and null are kept as strings, as the older
+     * format also writes the data as a string.
+     *
+     * @param json The data's json.
+     * @return True if it can be nested.
+     */
+    private static boolean isNestable(@NotNull String json) {
+        for (int index = 0; index < json.length(); index++) {
+            char character = json.charAt(index);
+            if (Character.isWhitespace(character)) continue;
+            return character != '"' && character != 'n';
+        }
+        return false;
+    }
+
+    /**
+     * Used to get the codec shared by every
+     * client, server and packet.
+     *
+     * @return The shared packet codec.
+     */
+    public static @NotNull PacketCodec getShared() {
+        return PacketCodec.SHARED;
+    }
+}
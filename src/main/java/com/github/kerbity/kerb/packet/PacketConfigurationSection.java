@@ -0,0 +1,55 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import com.github.squishylib.configuration.implementation.MemoryConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a packet as a configuration section,
+ * for code that reads or changes packets using
+ * the configuration api.
+ * The section is a copy of the packet's values,
+ * so changes are only kept once it is turned
+ * back into a packet.
+ */
+public class PacketConfigurationSection extends MemoryConfigurationSection {
+
+    /**
+     * Used to create a configuration section
+     * with a copy of a packet's values.
+     *
+     * @param packet The instance of the packet.
+     */
+    public PacketConfigurationSection(@NotNull Packet packet) {
+        super(packet.getMap());
+    }
+
+    /**
+     * Used to create a packet from the
+     * values in this section.
+     *
+     * @return The new packet.
+     */
+    public @NotNull Packet toPacket() {
+        return new Packet(this.getMap());
+    }
+}
@@ -0,0 +1,726 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import com.github.kerbity.kerb.result.CompletionCondition;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the routing values of a packet.
+ * <ul>
+ *     <li>Packet type.</li>
+ *     <li>Packet identifier.</li>
+ *     <li>Sequence identifier.</li>
+ *     <li>Source.</li>
+ *     <li>Target.</li>
+ *     <li>Channel.</li>
+ *     <li>Balance.</li>
+ *     <li>Completion.</li>
+ * </ul>
+ * The header is read by scanning the packet's json bytes
+ * without parsing the rest of the packet, so the server
+ * can route a packet and forward the original bytes.
+ */
+public class PacketHeader {
+
+    private static final byte @NotNull [] TYPE_KEY = "type".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] IDENTIFIER_KEY = "identifier".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] SEQUENCE_IDENTIFIER_KEY = "sequence_identifier".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] SOURCE_KEY = "source".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] TARGET_KEY = "target".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] CHANNEL_KEY = "channel".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] BALANCE_KEY = "balance".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] COMPLETION_KEY = "completion".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] CODEC_KEY = "codec".getBytes(StandardCharsets.UTF_8);
+    private static final byte @NotNull [] DATA_KEY = "data".getBytes(StandardCharsets.UTF_8);
+    private static final int ALL_KEYS_FOUND = (1 << 8) - 1;
+
+    private static final @NotNull PacketType @NotNull [] TYPES = PacketType.values();
+    private static final byte @NotNull [] @NotNull [] TYPE_IDENTIFIERS = PacketHeader.getTypeIdentifiers();
+
+    private @Nullable String type;
+    private @Nullable String identifier;
+    private @Nullable String sequenceIdentifier;
+    private @Nullable String source;
+    private @Nullable String target;
+    private @Nullable String channel;
+    private @Nullable String balance;
+    private @Nullable String completion;
+
+    /**
+     * Used to create a new packet header.
+     *
+     * @param type               The packet type identifier.
+     * @param identifier         The packet's identifier.
+     * @param sequenceIdentifier The sequence identifier.
+     * @param source             The source of the packet.
+     * @param target             The client the packet should only be sent to.
+     * @param channel            The channel the packet should only be sent to.
+     * @param balance            How to pick the one client the packet is sent to.
+     * @param completion         The condition that completes the results early.
+     */
+    public PacketHeader(@Nullable String type,
+                        @Nullable String identifier,
+                        @Nullable String sequenceIdentifier,
+                        @Nullable String source,
+                        @Nullable String target,
+                        @Nullable String channel,
+                        @Nullable String balance,
+                        @Nullable String completion) {
+
+        this.type = type;
+        this.identifier = identifier;
+        this.sequenceIdentifier = sequenceIdentifier;
+        this.source = source;
+        this.target = target;
+        this.channel = channel;
+        this.balance = balance;
+        this.completion = completion;
+    }
+
+    /**
+     * Used to get the type of packet.
+     *
+     * @return The type of packet.
+     */
+    public @Nullable PacketType getType() {
+        if (this.type == null) return null;
+        return PacketType.fromIdentifier(this.type);
+    }
+
+    /**
+     * Used to get the packet's identifier.
+     *
+     * @return The packet's identifier.
+     */
+    public @Nullable String getIdentifier() {
+        return this.identifier;
+    }
+
+    /**
+     * Used to get the sequence identifier.
+     *
+     * @return The sequence identifier.
+     */
+    public @Nullable String getSequenceIdentifier() {
+        return this.sequenceIdentifier;
+    }
+
+    /**
+     * Used to get the source of the packet.
+     *
+     * @return The source of the packet.
+     */
+    public @Nullable String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Used to get the identifier or name of the
+     * client the packet should only be sent to.
+     *
+     * @return The target or null if the packet
+     * is not targeted.
+     */
+    public @Nullable String getTarget() {
+        return this.target;
+    }
+
+    /**
+     * Used to get the channel the packet should
+     * only be sent to the members of.
+     *
+     * @return The channel or null if the packet
+     * is not sent to a channel.
+     */
+    public @Nullable String getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Used to get the strategy used to pick the
+     * one client the packet is sent to.
+     *
+     * @return The strategy or null if the packet
+     * is not sent to any one client.
+     */
+    public @Nullable BalanceStrategy getBalanceStrategy() {
+        if (this.balance == null) return null;
+        int separator = this.balance.indexOf(':');
+        return BalanceStrategy.fromIdentifier(separator < 0 ? this.balance : this.balance.substring(0, separator));
+    }
+
+    /**
+     * Used to get the key used to pick the client
+     * when using {@link BalanceStrategy#CONSISTENT_HASH}.
+     *
+     * @return The key or null if there isn't one.
+     */
+    public @Nullable String getBalanceKey() {
+        if (this.balance == null) return null;
+        int separator = this.balance.indexOf(':');
+        return separator < 0 ? null : this.balance.substring(separator + 1);
+    }
+
+    /**
+     * Used to get the condition that completes
+     * the results of the event early.
+     *
+     * @return The condition or null if the event
+     * waits for every result.
+     */
+    public @Nullable CompletionCondition getCompletionCondition() {
+        if (this.completion == null) return null;
+        return CompletionCondition.fromIdentifier(this.completion);
+    }
+
+    /**
+     * Used to get a copy of this header
+     * with a different identifier.
+     *
+     * @param identifier The packet's identifier.
+     * @return The copy of the header.
+     */
+    public @NotNull PacketHeader withIdentifier(@Nullable String identifier) {
+        return new PacketHeader(
+                this.type,
+                identifier,
+                this.sequenceIdentifier,
+                this.source,
+                this.target,
+                this.channel,
+                this.balance,
+                this.completion
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "PacketHeader{type=" + this.type
+                + ", identifier=" + this.identifier
+                + ", sequence_identifier=" + this.sequenceIdentifier
+                + ", source=" + this.source
+                + ", target=" + this.target
+                + ", channel=" + this.channel
+                + ", balance=" + this.balance
+                + ", completion=" + this.completion + "}";
+    }
+
+    /**
+     * Used to get the header of a packet.
+     *
+     * @param packet The instance of the packet.
+     * @return The packet's header.
+     */
+    public static @NotNull PacketHeader of(@NotNull Packet packet) {
+        PacketType type = packet.getType();
+        return new PacketHeader(
+                type == null ? null : type.getIdentifier(),
+                packet.getIdentifier(),
+                packet.getSequenceIdentifier(),
+                packet.getSource(),
+                packet.getTarget(),
+                packet.getChannel(),
+                packet.getBalance(),
+                packet.getCompletion()
+        );
+    }
+
+    /**
+     * Used to read the header from a packet's json bytes.
+     * The scan stops once every header value is found, and other
+     * values, such as the data, are skipped without being decoded.
+     *
+     * @param payload The packet's json bytes.
+     * @return The packet's header.
+     * Null if the bytes are not a valid json object.
+     */
+    public static @Nullable PacketHeader read(byte @NotNull [] payload) {
+        PacketHeader header = new PacketHeader(null, null, null, null, null, null, null, null);
+
+        // The keys that have been found, stored as bits,
+        // so duplicate keys are not counted twice.
+        int found = 0;
+
+        int index = PacketHeader.skipWhitespace(payload, 0);
+        if (index >= payload.length || payload[index] != '{') return null;
+        index++;
+
+        while (true) {
+            index = PacketHeader.skipWhitespace(payload, index);
+            if (index >= payload.length) return null;
+            if (payload[index] == '}') return header;
+            if (payload[index] == ',') {
+                index++;
+                continue;
+            }
+
+            // Read the key.
+            if (payload[index] != '"') return null;
+            int keyEnd = PacketHeader.skipString(payload, index);
+            if (keyEnd < 0) return null;
+            int keyStart = index + 1;
+            int keyLength = keyEnd - 1 - keyStart;
+
+            index = PacketHeader.skipWhitespace(payload, keyEnd);
+            if (index >= payload.length || payload[index] != ':') return null;
+            index = PacketHeader.skipWhitespace(payload, index + 1);
+
+            // Skip the value.
+            int valueEnd = PacketHeader.skipValue(payload, index);
+            if (valueEnd < 0) return null;
+
+            // Check if the key is part of the header.
+            if (PacketHeader.matches(payload, keyStart, keyLength, TYPE_KEY)) {
+                header.type = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 0;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, IDENTIFIER_KEY)) {
+                header.identifier = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 1;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, SEQUENCE_IDENTIFIER_KEY)) {
+                header.sequenceIdentifier = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 2;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, SOURCE_KEY)) {
+                header.source = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 3;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, TARGET_KEY)) {
+                header.target = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 4;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, CHANNEL_KEY)) {
+                header.channel = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 5;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, BALANCE_KEY)) {
+                header.balance = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 6;
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, COMPLETION_KEY)) {
+                header.completion = PacketHeader.readValue(payload, index, valueEnd);
+                found |= 1 << 7;
+            }
+
+            if (found == ALL_KEYS_FOUND) return header;
+            index = valueEnd;
+        }
+    }
+
+    /**
+     * Used to read a single value from a packet's json bytes
+     * without parsing the rest of the packet.
+     * For example, the data of an event result.
+     *
+     * @param payload The packet's json bytes.
+     * @param key     The key of the value.
+     * @return The value as a string.
+     * Null if the key doesn't exist or the bytes are not a json object.
+     */
+    public static @Nullable String readValue(byte @NotNull [] payload, @NotNull String key) {
+        int start = PacketHeader.findValue(payload, key.getBytes(StandardCharsets.UTF_8));
+        if (start < 0) return null;
+        return PacketHeader.readValue(payload, start, PacketHeader.skipValue(payload, start));
+    }
+
+    /**
+     * Used to check if a value in a packet's json bytes is
+     * nested json, such as an object, array or number,
+     * instead of a string.
+     *
+     * @param payload The packet's json bytes.
+     * @param key     The key of the value.
+     * @return True if the value exists and is not a string or null.
+     */
+    public static boolean isNestedValue(byte @NotNull [] payload, @NotNull String key) {
+        int start = PacketHeader.findValue(payload, key.getBytes(StandardCharsets.UTF_8));
+        if (start < 0) return false;
+        return payload[start] != '"' && payload[start] != 'n';
+    }
+
+    /**
+     * Used to read every value in a packet's json bytes.
+     * Strings are unescaped, and other values, such as nested
+     * data, are kept as their json so they are only decoded
+     * once they are needed.
+     *
+     * @param payload The packet's json bytes.
+     * @return The map of keys to values.
+     * Null if the bytes are not a json object.
+     */
+    public static @Nullable Map<String, Object> readValues(byte @NotNull [] payload) {
+        Map<String, Object> map = new HashMap<>();
+
+        int index = PacketHeader.skipWhitespace(payload, 0);
+        if (index >= payload.length || payload[index] != '{') return null;
+        index++;
+
+        while (true) {
+            index = PacketHeader.skipWhitespace(payload, index);
+            if (index >= payload.length) return null;
+            if (payload[index] == '}') return map;
+            if (payload[index] == ',') {
+                index++;
+                continue;
+            }
+
+            // Read the key.
+            if (payload[index] != '"') return null;
+            int keyEnd = PacketHeader.skipString(payload, index);
+            if (keyEnd < 0) return null;
+            String key = PacketHeader.readValue(payload, index, keyEnd);
+
+            index = PacketHeader.skipWhitespace(payload, keyEnd);
+            if (index >= payload.length || payload[index] != ':') return null;
+            index = PacketHeader.skipWhitespace(payload, index + 1);
+
+            // Read the value.
+            int valueEnd = PacketHeader.skipValue(payload, index);
+            if (valueEnd < 0) return null;
+
+            String value = PacketHeader.readValue(payload, index, valueEnd);
+            if (key != null && value != null) map.put(key, value);
+            index = valueEnd;
+        }
+    }
+
+    /**
+     * Used to read a packet's json bytes into a packet.
+     * The packet's values are set without creating a map,
+     * the type is matched without creating a string and a
+     * uuid sequence identifier is read as its bits.
+     *
+     * @param payload The packet's json bytes.
+     * @param packet  The packet to read into.
+     * @return False if the bytes are not a json object.
+     */
+    static boolean readPacket(byte @NotNull [] payload, @NotNull Packet packet) {
+        int index = PacketHeader.skipWhitespace(payload, 0);
+        if (index >= payload.length || payload[index] != '{') return false;
+        index++;
+
+        while (true) {
+            index = PacketHeader.skipWhitespace(payload, index);
+            if (index >= payload.length) return false;
+            if (payload[index] == '}') return true;
+            if (payload[index] == ',') {
+                index++;
+                continue;
+            }
+
+            // Read the key.
+            if (payload[index] != '"') return false;
+            int keyEnd = PacketHeader.skipString(payload, index);
+            if (keyEnd < 0) return false;
+            int keyStart = index + 1;
+            int keyLength = keyEnd - 1 - keyStart;
+
+            index = PacketHeader.skipWhitespace(payload, keyEnd);
+            if (index >= payload.length || payload[index] != ':') return false;
+            index = PacketHeader.skipWhitespace(payload, index + 1);
+
+            int valueEnd = PacketHeader.skipValue(payload, index);
+            if (valueEnd < 0) return false;
+
+            // Check if the value can be read without creating a string.
+            if (PacketHeader.matches(payload, keyStart, keyLength, TYPE_KEY)) {
+                PacketType type = PacketHeader.readType(payload, index, valueEnd);
+                if (type != null) {
+                    packet.putType(type);
+                    index = valueEnd;
+                    continue;
+                }
+            } else if (PacketHeader.matches(payload, keyStart, keyLength, SEQUENCE_IDENTIFIER_KEY)
+                    && payload[index] == '"'
+                    && packet.putSequenceBits(payload, index + 1, valueEnd - index - 2)) {
+                index = valueEnd;
+                continue;
+            }
+
+            packet.put(
+                    PacketHeader.getKey(payload, keyStart, keyLength, keyEnd),
+                    PacketHeader.readValue(payload, index, valueEnd)
+            );
+            index = valueEnd;
+        }
+    }
+
+    /**
+     * Used to find where a value starts in a
+     * packet's json bytes.
+     *
+     * @param payload The packet's json bytes.
+     * @param key     The key of the value.
+     * @return The index of the start of the value.
+     * -1 if the key doesn't exist or the bytes are not a json object.
+     */
+    private static int findValue(byte @NotNull [] payload, byte @NotNull [] key) {
+        int index = PacketHeader.skipWhitespace(payload, 0);
+        if (index >= payload.length || payload[index] != '{') return -1;
+        index++;
+
+        while (true) {
+            index = PacketHeader.skipWhitespace(payload, index);
+            if (index >= payload.length || payload[index] == '}') return -1;
+            if (payload[index] == ',') {
+                index++;
+                continue;
+            }
+
+            // Read the key.
+            if (payload[index] != '"') return -1;
+            int keyEnd = PacketHeader.skipString(payload, index);
+            if (keyEnd < 0) return -1;
+            int keyStart = index + 1;
+            int keyLength = keyEnd - 1 - keyStart;
+
+            index = PacketHeader.skipWhitespace(payload, keyEnd);
+            if (index >= payload.length || payload[index] != ':') return -1;
+            index = PacketHeader.skipWhitespace(payload, index + 1);
+
+            // Skip the value.
+            int valueEnd = PacketHeader.skipValue(payload, index);
+            if (valueEnd < 0) return -1;
+
+            if (PacketHeader.matches(payload, keyStart, keyLength, key)) return index;
+            index = valueEnd;
+        }
+    }
+
+    /**
+     * Used to get the key of a value, using the
+     * packet's constants for the keys it knows.
+     *
+     * @param payload   The json bytes.
+     * @param keyStart  The index of the first character of the key.
+     * @param keyLength The amount of bytes in the key.
+     * @param keyEnd    The index after the key's closing quote.
+     * @return The key.
+     */
+    private static @NotNull String getKey(byte @NotNull [] payload, int keyStart, int keyLength, int keyEnd) {
+        if (PacketHeader.matches(payload, keyStart, keyLength, TYPE_KEY)) return Packet.TYPE_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, IDENTIFIER_KEY)) return Packet.IDENTIFIER_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, SEQUENCE_IDENTIFIER_KEY)) return Packet.SEQUENCE_IDENTIFIER_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, SOURCE_KEY)) return Packet.SOURCE_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, TARGET_KEY)) return Packet.TARGET_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, CHANNEL_KEY)) return Packet.CHANNEL_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, BALANCE_KEY)) return Packet.BALANCE_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, COMPLETION_KEY)) return Packet.COMPLETION_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, CODEC_KEY)) return Packet.CODEC_KEY;
+        if (PacketHeader.matches(payload, keyStart, keyLength, DATA_KEY)) return Packet.DATA_KEY;
+
+        String key = PacketHeader.readValue(payload, keyStart - 1, keyEnd);
+        return key == null ? "null" : key;
+    }
+
+    /**
+     * Used to match a type value to a packet type.
+     *
+     * @param payload The json bytes.
+     * @param start   The index of the start of the value.
+     * @param end     The index after the value.
+     * @return The packet type or null if it is not
+     * a known type without escapes.
+     */
+    private static @Nullable PacketType readType(byte @NotNull [] payload, int start, int end) {
+        if (payload[start] != '"') return null;
+        for (int index = 0; index < TYPES.length; index++) {
+            if (PacketHeader.matches(payload, start + 1, end - start - 2, TYPE_IDENTIFIERS[index])) {
+                return TYPES[index];
+            }
+        }
+        return null;
+    }
+
+    private static byte @NotNull [] @NotNull [] getTypeIdentifiers() {
+        byte[][] identifiers = new byte[TYPES.length][];
+        for (int index = 0; index < TYPES.length; index++) {
+            identifiers[index] = TYPES[index].getIdentifier().getBytes(StandardCharsets.UTF_8);
+        }
+        return identifiers;
+    }
+
+    private static int skipWhitespace(byte @NotNull [] payload, int index) {
+        while (index < payload.length) {
+            byte value = payload[index];
+            if (value != ' ' && value != '\n' && value != '\r' && value != '\t') return index;
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Used to skip a json string.
+     *
+     * @param payload The json bytes.
+     * @param index   The index of the opening quote.
+     * @return The index after the closing quote.
+     * -1 if the string does not end or contains a malformed escape.
+     */
+    private static int skipString(byte @NotNull [] payload, int index) {
+        index++;
+        while (index < payload.length) {
+            byte value = payload[index];
+            if (value == '\\') {
+                index = PacketHeader.skipEscape(payload, index);
+                if (index < 0) return -1;
+                continue;
+            }
+            if (value == '"') return index + 1;
+            index++;
+        }
+        return -1;
+    }
+
+    /**
+     * Used to skip an escape within a json string.
+     *
+     * @param payload The json bytes.
+     * @param index   The index of the backslash.
+     * @return The index after the escape.
+     * -1 if the escape is not valid json.
+     */
+    private static int skipEscape(byte @NotNull [] payload, int index) {
+        if (index + 1 >= payload.length) return -1;
+
+        switch (payload[index + 1]) {
+            case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> {
+                return index + 2;
+            }
+            case 'u' -> {
+                if (index + 5 >= payload.length) return -1;
+                for (int digit = index + 2; digit < index + 6; digit++) {
+                    if (Character.digit(payload[digit], 16) < 0) return -1;
+                }
+                return index + 6;
+            }
+            default -> {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Used to skip any json value.
+     *
+     * @param payload The json bytes.
+     * @param index   The index of the start of the value.
+     * @return The index after the value.
+     * -1 if the value does not end.
+     */
+    private static int skipValue(byte @NotNull [] payload, int index) {
+        if (index >= payload.length) return -1;
+        byte first = payload[index];
+
+        if (first == '"') return PacketHeader.skipString(payload, index);
+
+        // Skip objects and arrays by counting the depth.
+        if (first == '{' || first == '[') {
+            int depth = 0;
+            while (index < payload.length) {
+                byte value = payload[index];
+                if (value == '"') {
+                    index = PacketHeader.skipString(payload, index);
+                    if (index < 0) return -1;
+                    continue;
+                }
+                if (value == '{' || value == '[') depth++;
+                if (value == '}' || value == ']') depth--;
+                index++;
+                if (depth == 0) return index;
+            }
+            return -1;
+        }
+
+        // Skip numbers, booleans and null.
+        while (index < payload.length) {
+            byte value = payload[index];
+            if (value == ',' || value == '}' || value == ']'
+                    || value == ' ' || value == '\n' || value == '\r' || value == '\t') {
+                return index;
+            }
+            index++;
+        }
+        return -1;
+    }
+
+    private static boolean matches(byte @NotNull [] payload, int start, int length, byte @NotNull [] key) {
+        if (length != key.length) return false;
+        for (int index = 0; index < length; index++) {
+            if (payload[start + index] != key[index]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Used to read a header value as a string.
+     *
+     * @param payload The json bytes.
+     * @param start   The index of the start of the value.
+     * @param end     The index after the value.
+     *                This should have been found using
+     *                {@link PacketHeader#skipValue(byte[], int)},
+     *                so the escapes are known to be valid.
+     * @return The value as a string.
+     * Null if the value is json null.
+     */
+    private static @Nullable String readValue(byte @NotNull [] payload, int start, int end) {
+        if (payload[start] != '"') {
+            String value = new String(payload, start, end - start, StandardCharsets.UTF_8);
+            return value.equals("null") ? null : value;
+        }
+
+        // Check if the string can be used as it is.
+        boolean escaped = false;
+        for (int index = start + 1; index < end - 1; index++) {
+            if (payload[index] == '\\') {
+                escaped = true;
+                break;
+            }
+        }
+        if (!escaped) return new String(payload, start + 1, end - start - 2, StandardCharsets.UTF_8);
+
+        String raw = new String(payload, start + 1, end - start - 2, StandardCharsets.UTF_8);
+        StringBuilder builder = new StringBuilder(raw.length());
+        for (int index = 0; index < raw.length(); index++) {
+            char character = raw.charAt(index);
+            if (character != '\\' || index + 1 >= raw.length()) {
+                builder.append(character);
+                continue;
+            }
+
+            char next = raw.charAt(++index);
+            switch (next) {
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'u' -> {
+                    builder.append((char) Integer.parseInt(raw.substring(index + 1, index + 5), 16));
+                    index += 4;
+                }
+                default -> builder.append(next);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -31,39 +31,79 @@ public enum PacketType {
     /**
      * An event sent from a client to the server.
      */
-    EVENT("event"),
+    EVENT("event", (byte) 1),
 
     /**
      * After the event is received, the event is
      * sent back as an event_result.
      */
-    EVENT_RESULT("event_result"),
+    EVENT_RESULT("event_result", (byte) 2),
 
     /**
      * An event sent from the server to a specific client.
      */
-    SERVER_EVENT("server_event"),
+    SERVER_EVENT("server_event", (byte) 3),
 
     /**
      * A packet that contains some data
      * that will get sent to every client.
      */
-    OBJECT("object"),
+    OBJECT("object", (byte) 4),
 
     /**
      * Used to retrieve the number of clients.
      */
-    CLIENT_AMOUNT("client_amount");
+    CLIENT_AMOUNT("client_amount", (byte) 5),
+
+    /**
+     * Sent from a client to the server with the
+     * list of event identifiers the client listens to.
+     * The server sends it back once the list is used.
+     */
+    SUBSCRIPTIONS("subscriptions", (byte) 6),
+
+    /**
+     * Sent from the server to the client that called an event
+     * with the number of clients the event was sent to.
+     */
+    EVENT_RECIPIENTS("event_recipients", (byte) 7),
+
+    /**
+     * Sent from a client to the server with the
+     * list of channels the client has joined.
+     */
+    CHANNELS("channels", (byte) 8),
+
+    /**
+     * Sent from the server to the client that called an event
+     * with a list of event results collected for it.
+     */
+    EVENT_RESULTS("event_results", (byte) 9),
+
+    /**
+     * Sent from the server to the clients still running an event
+     * when the caller no longer needs their results.
+     */
+    EVENT_CANCEL("event_cancel", (byte) 10),
+
+    /**
+     * Sent from the server to the clients with the
+     * numbers given to event and object classes.
+     */
+    TYPE_IDS("type_ids", (byte) 11);
 
     private final @NotNull String identifier;
+    private final byte code;
 
     /**
      * Used to create a packet type.
      *
      * @param identifier The type identifier.
+     * @param code       The type code used in frame headers.
      */
-    PacketType(@NotNull String identifier) {
+    PacketType(@NotNull String identifier, byte code) {
         this.identifier = identifier;
+        this.code = code;
     }
 
     /**
@@ -75,6 +115,17 @@ public enum PacketType {
         return this.identifier;
     }
 
+    /**
+     * Used to get the packet type code.
+     * This is sent in the header of each frame
+     * so the type is known without reading the packet.
+     *
+     * @return The packet type code.
+     */
+    public byte getCode() {
+        return this.code;
+    }
+
     @Override
     public String toString() {
         return this.identifier;
@@ -94,4 +145,19 @@ public enum PacketType {
         }
         return null;
     }
+
+    /**
+     * Used to get the instance of a packet type
+     * from a packet type code.
+     *
+     * @param code The packet type code.
+     * @return The requested packet type.
+     * Null if the packet type doesn't exist.
+     */
+    public static @Nullable PacketType fromCode(byte code) {
+        for (PacketType type : PacketType.values()) {
+            if (type.getCode() == code) return type;
+        }
+        return null;
+    }
 }
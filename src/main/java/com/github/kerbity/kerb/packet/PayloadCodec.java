@@ -0,0 +1,79 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a way of encoding the data of a packet.
+ * <ul>
+ *     <li>Json is used by default and can be read by every client and server.</li>
+ *     <li>Other codecs are added to the {@link PayloadCodecRegistry} on both sides.</li>
+ *     <li>The codecs each side can read are agreed during validation.</li>
+ *     <li>The server converts the data to json for clients that can not read the codec.</li>
+ * </ul>
+ */
+public interface PayloadCodec {
+
+    /**
+     * Used to get the codec's identifier.
+     * This is sent in packets that use the codec,
+     * so it should not contain a colon.
+     *
+     * @return The codec's identifier.
+     */
+    @NotNull
+    String getIdentifier();
+
+    /**
+     * Used to encode an object as packet data.
+     *
+     * @param object The instance of the object.
+     * @return The encoded data.
+     */
+    @NotNull
+    String encode(@Nullable Object object);
+
+    /**
+     * Used to decode packet data into a class.
+     *
+     * @param data The encoded data.
+     * @param type The class to create.
+     * @param <T>  The type of class.
+     * @return The instance of the class.
+     * Null if the data is null.
+     */
+    <T> @Nullable T decode(@Nullable String data, @NotNull Class<T> type);
+
+    /**
+     * Used to convert encoded data into json, without
+     * knowing the class it was created from.
+     * This lets the server read the data, and send it to
+     * clients that can not read the codec.
+     *
+     * @param data The encoded data.
+     * @return The data as json.
+     * Null if the data is null.
+     */
+    @Nullable
+    String toJson(@Nullable String data);
+}
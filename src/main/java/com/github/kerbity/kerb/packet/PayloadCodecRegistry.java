@@ -0,0 +1,123 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the payload codecs a client or server can read.
+ * <ul>
+ *     <li>The json and binary codecs are registered by default.</li>
+ *     <li>Custom codecs should be registered before connecting, on both sides.</li>
+ *     <li>Each codec other than json is sent as a capability during validation.</li>
+ * </ul>
+ */
+public class PayloadCodecRegistry {
+
+    private static final @NotNull PayloadCodecRegistry SHARED = new PayloadCodecRegistry();
+
+    private final @NotNull Map<String, PayloadCodec> codecMap;
+
+    /**
+     * Used to create a registry with
+     * the default codecs.
+     */
+    public PayloadCodecRegistry() {
+        this.codecMap = new ConcurrentHashMap<>();
+        this.register(JsonPayloadCodec.getShared());
+        this.register(BinaryPayloadCodec.getShared());
+    }
+
+    /**
+     * Used to register a payload codec.
+     * A codec with the same identifier will be replaced.
+     *
+     * @param codec The instance of the codec.
+     * @return This instance.
+     */
+    public @NotNull PayloadCodecRegistry register(@NotNull PayloadCodec codec) {
+        if (codec.getIdentifier().contains(Capability.SEPARATOR)) {
+            throw new RuntimeException("Payload codec identifiers can not contain a colon. identifier=" + codec.getIdentifier());
+        }
+
+        this.codecMap.put(codec.getIdentifier().toLowerCase(), codec);
+        return this;
+    }
+
+    /**
+     * Used to get a payload codec.
+     *
+     * @param identifier The codec's identifier.
+     * @return The codec or null if it is not registered.
+     */
+    public @Nullable PayloadCodec get(@NotNull String identifier) {
+        return this.codecMap.get(identifier.toLowerCase());
+    }
+
+    /**
+     * Used to get the capabilities sent
+     * for the registered codecs.
+     * Json is not included as every
+     * side can read it.
+     *
+     * @return The list of capabilities.
+     */
+    public @NotNull List<String> getCapabilities() {
+        List<String> capabilities = new ArrayList<>();
+        for (String identifier : this.codecMap.keySet()) {
+            if (identifier.equals(JsonPayloadCodec.IDENTIFIER)) continue;
+            capabilities.add(Capability.CODEC_PREFIX + identifier);
+        }
+        return capabilities;
+    }
+
+    /**
+     * Used to check if a set of capabilities
+     * includes every registered codec.
+     *
+     * @param capabilities The set of capabilities.
+     * @return True if every codec can be read.
+     */
+    public boolean canReadAll(@NotNull Set<String> capabilities) {
+        for (String identifier : this.codecMap.keySet()) {
+            if (identifier.equals(JsonPayloadCodec.IDENTIFIER)) continue;
+            if (!capabilities.contains(Capability.CODEC_PREFIX + identifier)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Used to get the registry shared
+     * by every client and server.
+     *
+     * @return The shared payload codec registry.
+     */
+    public static @NotNull PayloadCodecRegistry getShared() {
+        return PayloadCodecRegistry.SHARED;
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a cache of the classes named in packets.
+ * <ul>
+ *     <li>Each class is loaded once, instead of taking the class loader's lock for every packet.</li>
+ *     <li>The json adapter used to create the class is taken from the {@link PacketCodec} when the class is loaded.</li>
+ *     <li>Class names that do not exist are also cached, so they are not looked up again.</li>
+ *     <li>The number of hits and misses can be used to check the cache is working.</li>
+ * </ul>
+ */
+public class TypeCache {
+
+    private static final @NotNull TypeCache SHARED = new TypeCache();
+
+    private final @NotNull Map<String, Entry> entryMap;
+    private final @NotNull LongAdder hits;
+    private final @NotNull LongAdder misses;
+
+    /**
+     * Represents a class that was looked up.
+     */
+    public static class Entry {
+
+        private static final @NotNull Entry MISSING = new Entry(null, null);
+
+        private final @Nullable Class<?> type;
+        private final @Nullable TypeAdapter<?> adapter;
+
+        private Entry(@Nullable Class<?> type, @Nullable TypeAdapter<?> adapter) {
+            this.type = type;
+            this.adapter = adapter;
+        }
+
+        /**
+         * Used to get the class.
+         *
+         * @return The class.
+         */
+        public @NotNull Class<?> getType() {
+            if (this.type == null) throw new IllegalStateException("The class does not exist.");
+            return this.type;
+        }
+
+        /**
+         * Used to create the class from its json.
+         *
+         * @param json The json.
+         * @return The instance of the class.
+         * Null if the json is null.
+         */
+        public @Nullable Object decode(@Nullable String json) {
+            if (json == null || this.adapter == null) return null;
+            try {
+                return this.adapter.fromJson(json);
+            } catch (IOException exception) {
+                throw new RuntimeException(exception);
+            }
+        }
+
+        /**
+         * Used to create the class from the next
+         * value of a json reader, so json nested in
+         * other json does not need to be read twice.
+         *
+         * @param reader The json reader.
+         * @return The instance of the class.
+         * @throws IOException If the json could not be read.
+         */
+        public @Nullable Object decode(@NotNull JsonReader reader) throws IOException {
+            if (this.adapter == null) {
+                reader.skipValue();
+                return null;
+            }
+            return this.adapter.read(reader);
+        }
+
+        /**
+         * Used to create the class from a packet's data,
+         * using the codec the data was encoded with.
+         *
+         * @param packet The instance of the packet.
+         * @return The instance of the class.
+         * Null if the data is null.
+         */
+        public @Nullable Object decode(@NotNull Packet packet) {
+            if (packet.getCodec() == null) return this.decode(packet.getData());
+            return packet.getPayloadCodec().decode(packet.getData(), this.getType());
+        }
+    }
+
+    /**
+     * Used to create an empty type cache.
+     */
+    public TypeCache() {
+        this.entryMap = new ConcurrentHashMap<>();
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+    }
+
+    /**
+     * Used to get the class and json adapter for a class name.
+     *
+     * @param name The class name.
+     * @return The cached entry.
+     * @throws ClassNotFoundException If the class does not exist.
+     */
+    public @NotNull Entry resolve(@NotNull String name) throws ClassNotFoundException {
+        Entry entry = this.entryMap.get(name);
+
+        if (entry != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+            entry = this.entryMap.computeIfAbsent(name, this::load);
+        }
+
+        if (entry == Entry.MISSING) throw new ClassNotFoundException(name);
+        return entry;
+    }
+
+    /**
+     * Used to get the number of lookups
+     * that were found in the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Used to get the number of lookups
+     * that had to load the class.
+     *
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Used to get the number of class names cached,
+     * including ones that do not exist.
+     *
+     * @return The number of cached class names.
+     */
+    public int getSize() {
+        return this.entryMap.size();
+    }
+
+    /**
+     * Used to remove every cached class.
+     * For example, if a class that did not exist
+     * has since been added to the class path.
+     *
+     * @return This instance.
+     */
+    public @NotNull TypeCache clear() {
+        this.entryMap.clear();
+        return this;
+    }
+
+    private @NotNull Entry load(@NotNull String name) {
+        try {
+            Class<?> type = Class.forName(name);
+            return new Entry(type, PacketCodec.getShared().getAdapter(type));
+        } catch (ClassNotFoundException | LinkageError exception) {
+            return Entry.MISSING;
+        }
+    }
+
+    /**
+     * Used to get the type cache shared
+     * by every client and server.
+     *
+     * @return The shared type cache.
+     */
+    public static @NotNull TypeCache getShared() {
+        return TypeCache.SHARED;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the numbers given to the event and object
+ * classes sent though a server.
+ * <ul>
+ *     <li>The server gives a class a number the first time a packet of that class is sent.</li>
+ *     <li>The number is sent to every client that agreed on {@link Capability#TYPE_IDS}.</li>
+ *     <li>Later packets can use the number, for example "#3", instead of the class name.</li>
+ *     <li>Classes are loaded using the shared {@link TypeCache}.</li>
+ * </ul>
+ */
+public class TypeRegistry {
+
+    /**
+     * Placed before a number to tell it apart from a class name.
+     */
+    public static final @NotNull String PREFIX = "#";
+
+    private final @NotNull Map<String, Integer> idMap;
+    private final @NotNull Map<Integer, String> nameMap;
+    private final @NotNull AtomicInteger nextId;
+
+    /**
+     * Used to create an empty type registry.
+     */
+    public TypeRegistry() {
+        this.idMap = new ConcurrentHashMap<>();
+        this.nameMap = new ConcurrentHashMap<>();
+        this.nextId = new AtomicInteger();
+    }
+
+    /**
+     * Used to give a class name the next number,
+     * if it does not already have one.
+     *
+     * @param name The class name.
+     * @return The class name's number.
+     */
+    public int register(@NotNull String name) {
+        return this.register(name, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Used to give a class name the next number,
+     * if it does not already have one and fewer
+     * than the max number have been given out.
+     *
+     * @param name    The class name.
+     * @param maxSize The max number of class names to give numbers to.
+     * @return The class name's number, or -1 if the registry is full.
+     */
+    public int register(@NotNull String name, int maxSize) {
+        Integer id = this.idMap.computeIfAbsent(name, key -> {
+
+            // Only take a number while there are some left.
+            int next = this.nextId.getAndUpdate(current -> current < maxSize ? current + 1 : current);
+            if (next >= maxSize) return null;
+
+            this.nameMap.put(next, key);
+            return next;
+        });
+
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Used to add a number that was given out by the server.
+     *
+     * @param id   The number.
+     * @param name The class name.
+     * @return This instance.
+     */
+    public @NotNull TypeRegistry put(int id, @NotNull String name) {
+        this.nameMap.put(id, name);
+        this.idMap.put(name, id);
+        return this;
+    }
+
+    /**
+     * Used to get the number of class names with a number.
+     *
+     * @return The size of the registry.
+     */
+    public int getSize() {
+        return this.idMap.size();
+    }
+
+    /**
+     * Used to check if a class name has a number.
+     *
+     * @param name The class name.
+     * @return True if the class name has a number.
+     */
+    public boolean contains(@NotNull String name) {
+        return this.idMap.containsKey(name);
+    }
+
+    /**
+     * Used to get the identifier to send for a class name.
+     *
+     * @param name The class name.
+     * @return The number with the prefix, or the class name
+     * if it does not have a number yet.
+     */
+    public @NotNull String compact(@NotNull String name) {
+        Integer id = this.idMap.get(name);
+        if (id == null) return name;
+        return PREFIX + id;
+    }
+
+    /**
+     * Used to get the class name of an identifier.
+     *
+     * @param identifier The number with the prefix or a class name.
+     * @return The class name.
+     * Null if the number has not been given out.
+     */
+    public @Nullable String getName(@NotNull String identifier) {
+        if (!TypeRegistry.isCompact(identifier)) return identifier;
+        try {
+            return this.nameMap.get(Integer.parseInt(identifier.substring(PREFIX.length())));
+        } catch (NumberFormatException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Used to get the class and json adapter of an identifier.
+     *
+     * @param identifier The number with the prefix or a class name.
+     * @return The cached entry.
+     * @throws ClassNotFoundException If the number has not been given out
+     *                                or the class does not exist.
+     */
+    public @NotNull TypeCache.Entry resolve(@NotNull String identifier) throws ClassNotFoundException {
+        String name = this.getName(identifier);
+        if (name == null) throw new ClassNotFoundException("Unknown type number " + identifier);
+        return TypeCache.getShared().resolve(name);
+    }
+
+    /**
+     * Used to get the class of an identifier.
+     *
+     * @param identifier The number with the prefix or a class name.
+     * @return The class.
+     * @throws ClassNotFoundException If the number has not been given out
+     *                                or the class does not exist.
+     */
+    public @NotNull Class<?> getClass(@NotNull String identifier) throws ClassNotFoundException {
+        return this.resolve(identifier).getType();
+    }
+
+    /**
+     * Used to get every number and class name,
+     * so they can be sent to a client.
+     *
+     * @return The list of number and class name pairs.
+     */
+    public @NotNull List<String[]> getEntries() {
+        List<String[]> entryList = new ArrayList<>(this.nameMap.size());
+        for (Map.Entry<Integer, String> entry : this.nameMap.entrySet()) {
+            entryList.add(new String[]{String.valueOf(entry.getKey()), entry.getValue()});
+        }
+        return entryList;
+    }
+
+    /**
+     * Used to remove every number.
+     * The numbers are only valid while connected
+     * to the server that gave them out.
+     *
+     * @return This instance.
+     */
+    public @NotNull TypeRegistry clear() {
+        this.idMap.clear();
+        this.nameMap.clear();
+        return this;
+    }
+
+    /**
+     * Used to check if an identifier is
+     * a number instead of a class name.
+     *
+     * @param identifier The identifier.
+     * @return True if it is a number.
+     */
+    public static boolean isCompact(@NotNull String identifier) {
+        return identifier.startsWith(PREFIX);
+    }
+}
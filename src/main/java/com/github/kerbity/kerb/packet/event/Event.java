@@ -22,8 +22,10 @@ package com.github.kerbity.kerb.packet.event;
 
 import com.github.kerbity.kerb.client.registeredclient.RegisteredClientAdapter;
 import com.github.kerbity.kerb.indicator.Packable;
+import com.github.kerbity.kerb.packet.JsonPayloadCodec;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.PayloadCodec;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -76,10 +78,21 @@ public abstract class Event implements Packable {
 
     @Override
     public @NotNull Packet packet() {
+        return this.packet(JsonPayloadCodec.getShared());
+    }
+
+    /**
+     * Used to turn the event into a packet,
+     * encoding it with a payload codec.
+     *
+     * @param codec The codec used to encode the event.
+     * @return The instance of the packet.
+     */
+    public @NotNull Packet packet(@NotNull PayloadCodec codec) {
         return new Packet()
                 .setType(PacketType.EVENT)
                 .setIdentifier(this.getIdentifier())
                 .setSource(this.getSource().getIdentifier())
-                .setData(this);
+                .setData(this, codec);
     }
 }
@@ -33,6 +33,8 @@
  *     </li>
  *     <li>
  *         Packet data: This will contain the data related to the packet type.
+ *         It is nested json when both sides have the nested data capability,
+ *         otherwise it is json inside a string.
  *     </li>
  * </ul>
  */
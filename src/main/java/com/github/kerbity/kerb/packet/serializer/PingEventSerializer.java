@@ -0,0 +1,94 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet.serializer;
+
+import com.github.kerbity.kerb.client.registeredclient.RegisteredClientAdapter;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Represents the json adapter for a {@link PingEvent}.
+ */
+public class PingEventSerializer extends TypeAdapter<PingEvent> {
+
+    private final @NotNull TypeAdapter<RegisteredClientAdapter> clientSerializer;
+
+    /**
+     * Used to create a ping event serializer.
+     *
+     * @param clientSerializer The serializer used for the
+     *                         source and the value.
+     */
+    public PingEventSerializer(@NotNull TypeAdapter<RegisteredClientAdapter> clientSerializer) {
+        this.clientSerializer = clientSerializer;
+    }
+
+    @Override
+    public void write(@NotNull JsonWriter writer, @Nullable PingEvent event) throws IOException {
+        if (event == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        if (event.get() != null) {
+            writer.name("value");
+            this.clientSerializer.write(writer, event.get());
+        }
+        if (event.getSource() != null) {
+            writer.name("source");
+            this.clientSerializer.write(writer, event.getSource());
+        }
+        writer.endObject();
+    }
+
+    @Override
+    public @Nullable PingEvent read(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        PingEvent event = new PingEvent();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "value" -> event.set(this.clientSerializer.read(reader));
+                case "source" -> {
+                    RegisteredClientAdapter source = this.clientSerializer.read(reader);
+                    if (source != null) event.setSource(source);
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return event;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet.serializer;
+
+import com.github.kerbity.kerb.client.registeredclient.RegisteredClientAdapter;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Represents the json adapter for a {@link RegisteredClientAdapter}.
+ */
+public class RegisteredClientAdapterSerializer extends TypeAdapter<RegisteredClientAdapter> {
+
+    @Override
+    public void write(@NotNull JsonWriter writer, @Nullable RegisteredClientAdapter client) throws IOException {
+        if (client == null) {
+            writer.nullValue();
+            return;
+        }
+
+        writer.beginObject();
+        writer.name("identifier").value(client.getIdentifier());
+        writer.name("name").value(client.getName());
+        writer.name("isValid").value(client.isValid());
+        writer.endObject();
+    }
+
+    @Override
+    public @Nullable RegisteredClientAdapter read(@NotNull JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        String identifier = null;
+        String name = null;
+        boolean isValid = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "identifier" -> identifier = Serializers.readString(reader);
+                case "name" -> name = Serializers.readString(reader);
+                case "isValid" -> isValid = Serializers.readBoolean(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new RegisteredClientAdapter(identifier, name, isValid);
+    }
+}
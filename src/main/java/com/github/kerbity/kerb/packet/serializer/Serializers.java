@@ -0,0 +1,75 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.packet.serializer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+
+/**
+ * Contains the methods shared by the serializers
+ * to read values the same way gson does.
+ */
+public final class Serializers {
+
+    private Serializers() {
+    }
+
+    /**
+     * Used to read a string that may be null.
+     * Numbers and booleans are read as strings.
+     *
+     * @param reader The json reader.
+     * @return The string or null.
+     * @throws IOException If the json is not valid.
+     */
+    public static @Nullable String readString(@NotNull JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) return Boolean.toString(reader.nextBoolean());
+        return reader.nextString();
+    }
+
+    /**
+     * Used to read a boolean.
+     * Null is read as false and
+     * strings are parsed.
+     *
+     * @param reader The json reader.
+     * @return The boolean.
+     * @throws IOException If the json is not valid.
+     */
+    public static boolean readBoolean(@NotNull JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NULL) {
+            reader.nextNull();
+            return false;
+        }
+        if (token == JsonToken.STRING) return Boolean.parseBoolean(reader.nextString());
+        return reader.nextBoolean();
+    }
+}
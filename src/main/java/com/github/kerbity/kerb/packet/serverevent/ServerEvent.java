@@ -21,8 +21,10 @@
 package com.github.kerbity.kerb.packet.serverevent;
 
 import com.github.kerbity.kerb.indicator.Packable;
+import com.github.kerbity.kerb.packet.JsonPayloadCodec;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.PayloadCodec;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -49,9 +51,20 @@ public class ServerEvent implements Packable {
 
     @Override
     public @NotNull Packet packet() {
+        return this.packet(JsonPayloadCodec.getShared());
+    }
+
+    /**
+     * Used to turn the server event into a packet,
+     * encoding it with a payload codec.
+     *
+     * @param codec The codec used to encode the server event.
+     * @return The instance of the packet.
+     */
+    public @NotNull Packet packet(@NotNull PayloadCodec codec) {
         return new Packet()
                 .setType(PacketType.SERVER_EVENT)
                 .setIdentifier(this.getIdentifier())
-                .setData(this);
+                .setData(this, codec);
     }
 }
@@ -24,17 +24,37 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 /**
  * Represents a completable result collection.
  * A collection of results that will
  * be eventually completed.
+ * <ul>
+ *     <li>The wait methods park the thread until they are signalled.</li>
+ *     <li>Adding a result only takes the lock when a thread is waiting.</li>
+ *     <li>
+ *         {@link CompletableResultSet#onResult(Consumer)}, {@link CompletableResultSet#onComplete(Consumer)}
+ *         and {@link CompletableResultSet#toFuture()} can be used instead of waiting.
+ *     </li>
+ * </ul>
  *
  * @param <T> The type of result.
  */
 public class CompletableResultSet<T> extends ResultSet<T> {
 
-    private static final int LOCK_TIME_MILLS = 100;
+    private final @NotNull ReentrantLock lock;
+    private final @NotNull Condition changed;
+    private final @NotNull AtomicInteger waiting;
+    private final @NotNull CompletableFuture<ResultSet<T>> future;
+    private final @NotNull List<ResultListener<T>> resultListenerList;
+    private volatile @Nullable CompletionCondition completionCondition;
 
     /**
      * Used to create a new completable result set.
@@ -44,6 +64,15 @@ public class CompletableResultSet<T> extends ResultSet<T> {
      */
     public CompletableResultSet(int maxSize) {
         super(maxSize);
+
+        this.lock = new ReentrantLock();
+        this.changed = this.lock.newCondition();
+        this.waiting = new AtomicInteger();
+        this.future = new CompletableFuture<>();
+        this.resultListenerList = new CopyOnWriteArrayList<>();
+
+        // Check if there are no results to wait for.
+        if (maxSize <= 0) this.complete(CompleteReason.SIZE);
     }
 
     /**
@@ -52,14 +81,7 @@ public class CompletableResultSet<T> extends ResultSet<T> {
      * @return The completed result set.
      */
     public @NotNull ResultSet<T> waitForComplete() {
-        while (!this.isComplete()) {
-            try {
-                Thread.sleep(LOCK_TIME_MILLS);
-            } catch (InterruptedException exception) {
-                throw new RuntimeException(exception);
-            }
-        }
-
+        this.await(this::isComplete);
         return this;
     }
 
@@ -71,16 +93,7 @@ public class CompletableResultSet<T> extends ResultSet<T> {
      * @return The list of results.
      */
     public @NotNull List<T> waitForFinalResult() {
-
-        // Wait for completion.
-        while (!this.isComplete()) {
-            try {
-                Thread.sleep(LOCK_TIME_MILLS);
-            } catch (InterruptedException exception) {
-                throw new RuntimeException(exception);
-            }
-        }
-
+        this.await(this::isComplete);
         return this.get();
     }
 
@@ -94,16 +107,7 @@ public class CompletableResultSet<T> extends ResultSet<T> {
      * @return The instance of the list.
      */
     public @NotNull List<T> waitFor(int amount) {
-
-        // Wait for completion.
-        while (!(this.getSize() >= amount || this.isComplete())) {
-            try {
-                Thread.sleep(LOCK_TIME_MILLS);
-            } catch (InterruptedException exception) {
-                throw new RuntimeException(exception);
-            }
-        }
-
+        this.await(() -> this.getSize() >= amount || this.isComplete());
         return this.get();
     }
 
@@ -146,16 +150,11 @@ public class CompletableResultSet<T> extends ResultSet<T> {
     public @Nullable T waitForFirst() {
 
         // Wait for the result to contain at least 1 entry.
-        while (!(!this.get().isEmpty() || this.isComplete())) {
-            try {
-                Thread.sleep(LOCK_TIME_MILLS);
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            }
-        }
+        this.await(() -> this.getSize() > 0 || this.isComplete());
 
-        if (this.get().isEmpty()) return null;
-        return this.get().get(0);
+        List<T> results = this.get();
+        if (results.isEmpty()) return null;
+        return results.get(0);
     }
 
     /**
@@ -170,25 +169,10 @@ public class CompletableResultSet<T> extends ResultSet<T> {
     public @Nullable T waitForFirstNonNull() {
 
         // Wait for the result to contain at least 1 non-null entry.
-        while (true) {
-
-            // Check if the result is complete for this method.
-            if (this.isComplete()) break;
-            if (this.containsNonNull()) break;
-
-            try {
-                Thread.sleep(LOCK_TIME_MILLS);
-            } catch (InterruptedException exception) {
-                throw new RuntimeException(exception);
-            }
-        }
+        this.await(() -> this.isComplete() || this.containsNonNull());
 
         // Attempt to find the first non-null result.
-        for (T result : this.get()) {
-            if (result == null) continue;
-            return result;
-        }
-        return null;
+        return this.getFirstNonNull();
     }
 
     /**
@@ -222,12 +206,18 @@ public class CompletableResultSet<T> extends ResultSet<T> {
     @Override
     public @NotNull CompletableResultSet<T> addResult(@Nullable T result) {
         super.addResult(result);
+        boolean full = this.getSize() >= this.getMaxSize();
+        boolean met = this.isConditionMet();
+        this.signal();
 
-        // Auto completes the completable result collection.
-        if (this.get().size() >= this.getMaxSize()) {
-            this.complete(CompleteReason.SIZE);
+        // Tell the result listeners.
+        for (ResultListener<T> listener : this.resultListenerList) {
+            this.deliver(listener);
         }
 
+        // Auto completes the completable result collection.
+        if (full) this.complete(CompleteReason.SIZE);
+        else if (met) this.complete(CompleteReason.CONDITION);
         return this;
     }
 
@@ -249,16 +239,201 @@ public class CompletableResultSet<T> extends ResultSet<T> {
         return this;
     }
 
+    /**
+     * Used to change the expected size of the results.
+     * If there are already enough results,
+     * they will be completed.
+     *
+     * @param maxSize The new expected size.
+     * @return This instance.
+     */
+    @Override
+    public @NotNull CompletableResultSet<T> setMaxSize(int maxSize) {
+        super.setMaxSize(maxSize);
+        boolean full = this.getSize() >= this.getMaxSize();
+        boolean met = this.isConditionMet();
+        this.signal();
+
+        if (full) this.complete(CompleteReason.SIZE);
+        else if (met) this.complete(CompleteReason.CONDITION);
+        return this;
+    }
+
+    /**
+     * Used to get the condition that completes
+     * the results before every result is added.
+     *
+     * @return The completion condition or null.
+     */
+    public @Nullable CompletionCondition getCompletionCondition() {
+        return this.completionCondition;
+    }
+
+    /**
+     * Used to set a condition that completes the results
+     * before every result is added. For example, once
+     * the first non-null result is added.
+     *
+     * @param completionCondition The completion condition.
+     * @return This instance.
+     */
+    public @NotNull CompletableResultSet<T> setCompletionCondition(@Nullable CompletionCondition completionCondition) {
+        boolean met;
+
+        this.lock.lock();
+        try {
+            this.completionCondition = completionCondition;
+            met = this.isConditionMet();
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (met) this.complete(CompleteReason.CONDITION);
+        return this;
+    }
+
     /**
      * Used to state that the results are complete.
      * If any of the wait methods were called they
      * will return the results.
+     * Only the first reason is kept.
      *
      * @return This instance.
      */
     public @NotNull ResultSet<T> complete(@NotNull CompleteReason reason) {
-        this.completeReason = reason;
-        this.isComplete = true;
+        this.lock.lock();
+        try {
+            if (this.isComplete) return this;
+            this.completeReason = reason;
+            this.isComplete = true;
+            this.changed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.future.complete(this);
         return this;
     }
+
+    /**
+     * Used to run a consumer for every result, without waiting.
+     * Results that were already added are given straight away.
+     * The consumer is run on the thread that adds the result,
+     * so it should not block. Each result is given once.
+     *
+     * @param consumer The consumer to run for each result.
+     * @return This instance.
+     */
+    public @NotNull CompletableResultSet<T> onResult(@NotNull Consumer<T> consumer) {
+        ResultListener<T> listener = new ResultListener<>(consumer);
+        this.resultListenerList.add(listener);
+
+        // Give the results that were added before the listener.
+        this.deliver(listener);
+        return this;
+    }
+
+    /**
+     * Used to run a consumer when the results are complete,
+     * without waiting. If the results are already complete,
+     * it is run straight away.
+     *
+     * @param consumer The consumer to run with the completed results.
+     * @return This instance.
+     */
+    public @NotNull CompletableResultSet<T> onComplete(@NotNull Consumer<ResultSet<T>> consumer) {
+        this.future.thenAccept(consumer);
+        return this;
+    }
+
+    /**
+     * Used to get a future that is completed
+     * with the final list of results.
+     *
+     * @return The future of the final results.
+     */
+    public @NotNull CompletableFuture<List<T>> toFuture() {
+        return this.future.thenApply(ResultSet::get);
+    }
+
+    /**
+     * Used to give a result listener the filled results
+     * it has not been given yet, in order.
+     * Each result is claimed with the listener's index,
+     * so it is only given once when this is called from
+     * more than one thread.
+     *
+     * @param listener The result listener.
+     */
+    private void deliver(@NotNull ResultListener<T> listener) {
+        while (true) {
+            int index = listener.delivered.get();
+            if (!this.isFilled(index)) return;
+            if (!listener.delivered.compareAndSet(index, index + 1)) continue;
+            listener.consumer.accept(this.getResult(index));
+        }
+    }
+
+    private boolean isConditionMet() {
+        CompletionCondition condition = this.completionCondition;
+        return condition != null && condition.isMet(this);
+    }
+
+    /**
+     * Used to wake up the parked threads, so they
+     * check their condition again. The lock is only
+     * taken when a thread is waiting.
+     */
+    private void signal() {
+        if (this.waiting.get() == 0) return;
+
+        this.lock.lock();
+        try {
+            this.changed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Used to park the current thread until the condition is true.
+     * The condition is checked each time a result is
+     * added or the results are completed.
+     *
+     * @param condition The condition to wait for.
+     */
+    private void await(@NotNull BooleanSupplier condition) {
+        this.lock.lock();
+
+        // Count the waiter before checking the condition, so a result
+        // added after the check will see it and take the lock to signal.
+        this.waiting.incrementAndGet();
+        try {
+            while (!condition.getAsBoolean()) {
+                this.changed.await();
+            }
+        } catch (InterruptedException exception) {
+            throw new RuntimeException(exception);
+        } finally {
+            this.waiting.decrementAndGet();
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Represents a result listener and the
+     * number of results it has been given.
+     *
+     * @param <T> The type of result.
+     */
+    private static final class ResultListener<T> {
+
+        private final @NotNull Consumer<T> consumer;
+        private final @NotNull AtomicInteger delivered;
+
+        private ResultListener(@NotNull Consumer<T> consumer) {
+            this.consumer = consumer;
+            this.delivered = new AtomicInteger();
+        }
+    }
 }
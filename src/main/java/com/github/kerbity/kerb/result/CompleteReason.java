@@ -38,5 +38,11 @@ public enum CompleteReason {
     /**
      * All the expected results where sent back.
      */
-    SIZE
+    SIZE,
+
+    /**
+     * The results met the completion condition
+     * the event was called with.
+     */
+    CONDITION
 }
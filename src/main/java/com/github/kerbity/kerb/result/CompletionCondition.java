@@ -0,0 +1,261 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.result;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents a condition that completes the results
+ * of an event before every client has replied.
+ * <ul>
+ *     <li>The condition is sent with the event, so the server can stop sending results once it is met.</li>
+ *     <li>Clients still running their listeners are told to stop.</li>
+ *     <li>The caller's result set is completed with {@link CompleteReason#CONDITION}.</li>
+ * </ul>
+ */
+public class CompletionCondition {
+
+    /**
+     * Represents the types of completion condition.
+     */
+    public enum Type {
+
+        /**
+         * Completed when the first non-null result is added.
+         */
+        FIRST_NON_NULL("first_non_null"),
+
+        /**
+         * Completed when a certain amount of results are added.
+         */
+        AMOUNT("amount"),
+
+        /**
+         * Completed when a ratio of the expected results are added.
+         * This uses the same amount as {@link CompletableResultSet#waitForRatio(Ratio)}.
+         */
+        RATIO("ratio"),
+
+        /**
+         * Completed when the first cancelled result is added.
+         */
+        FIRST_CANCELLED("first_cancelled");
+
+        private final @NotNull String identifier;
+
+        /**
+         * Used to create a completion condition type.
+         *
+         * @param identifier The type identifier.
+         */
+        Type(@NotNull String identifier) {
+            this.identifier = identifier;
+        }
+
+        /**
+         * Used to get the type identifier.
+         *
+         * @return The type identifier.
+         */
+        public @NotNull String getIdentifier() {
+            return this.identifier;
+        }
+
+        @Override
+        public String toString() {
+            return this.identifier;
+        }
+
+        /**
+         * Used to get the instance of a type
+         * from a type identifier.
+         *
+         * @param identifier The type identifier.
+         * @return The requested type.
+         * Null if the type doesn't exist.
+         */
+        public static @Nullable Type fromIdentifier(@NotNull String identifier) {
+            for (Type type : Type.values()) {
+                if (type.getIdentifier().equalsIgnoreCase(identifier)) return type;
+            }
+            return null;
+        }
+    }
+
+    private final @NotNull Type type;
+    private final int amount;
+    private final @Nullable Ratio ratio;
+
+    private CompletionCondition(@NotNull Type type, int amount, @Nullable Ratio ratio) {
+        this.type = type;
+        this.amount = amount;
+        this.ratio = ratio;
+    }
+
+    /**
+     * Used to get the type of condition.
+     *
+     * @return The type of condition.
+     */
+    public @NotNull Type getType() {
+        return this.type;
+    }
+
+    /**
+     * Used to get the amount of results needed
+     * to meet the condition.
+     *
+     * @param maxSize The number of results expected.
+     * @return The amount of results needed.
+     */
+    public int getRequiredAmount(int maxSize) {
+        if (this.type == Type.AMOUNT) return Math.min(this.amount, maxSize);
+        if (this.type != Type.RATIO || this.ratio == null) return 1;
+
+        // Check if the ratio is equal.
+        if (this.ratio.isIdentical()) return maxSize;
+
+        // Check if the left is smaller.
+        if (this.ratio.isLeftSmallerOrEqual()) return this.ratio.getLeftScaled(maxSize).getLeft();
+
+        // Otherwise, the right is smaller.
+        return this.ratio.getRightScaled(maxSize).getRight();
+    }
+
+    /**
+     * Used to check if the condition has been met.
+     *
+     * @param size              The number of results added.
+     * @param maxSize           The number of results expected.
+     * @param containsNonNull   True if a non-null result was added.
+     * @param containsCancelled True if a cancelled result was added.
+     * @return True if the results can be completed.
+     */
+    public boolean isMet(int size, int maxSize, boolean containsNonNull, boolean containsCancelled) {
+        return switch (this.type) {
+            case FIRST_NON_NULL -> containsNonNull;
+            case FIRST_CANCELLED -> containsCancelled;
+            case AMOUNT, RATIO -> size >= this.getRequiredAmount(maxSize);
+        };
+    }
+
+    /**
+     * Used to check if the condition has been met
+     * by the results in a result set.
+     *
+     * @param resultSet The instance of the result set.
+     * @return True if the results can be completed.
+     */
+    public boolean isMet(@NotNull ResultSet<?> resultSet) {
+        return this.isMet(
+                resultSet.getSize(),
+                resultSet.getMaxSize(),
+                resultSet.containsNonNull(),
+                resultSet.containsCancelled()
+        );
+    }
+
+    /**
+     * Used to get the condition as it is sent in a packet.
+     * For example, "amount:3" or "ratio:1:2".
+     *
+     * @return The condition identifier.
+     */
+    public @NotNull String getIdentifier() {
+        return switch (this.type) {
+            case AMOUNT -> this.type.getIdentifier() + ":" + this.amount;
+            case RATIO -> this.type.getIdentifier() + ":" + this.ratio;
+            default -> this.type.getIdentifier();
+        };
+    }
+
+    @Override
+    public String toString() {
+        return this.getIdentifier();
+    }
+
+    /**
+     * Used to create a condition that is met by
+     * the first non-null result.
+     *
+     * @return The completion condition.
+     */
+    public static @NotNull CompletionCondition firstNonNull() {
+        return new CompletionCondition(Type.FIRST_NON_NULL, 1, null);
+    }
+
+    /**
+     * Used to create a condition that is met
+     * once a certain amount of results are added.
+     *
+     * @param amount The amount of results.
+     * @return The completion condition.
+     */
+    public static @NotNull CompletionCondition amount(int amount) {
+        return new CompletionCondition(Type.AMOUNT, Math.max(1, amount), null);
+    }
+
+    /**
+     * Used to create a condition that is met once a
+     * ratio of the expected results are added.
+     *
+     * @param ratio The ratio of results.
+     * @return The completion condition.
+     */
+    public static @NotNull CompletionCondition ratio(@NotNull Ratio ratio) {
+        return new CompletionCondition(Type.RATIO, 1, new Ratio(ratio.getLeft(), ratio.getRight()));
+    }
+
+    /**
+     * Used to create a condition that is met by
+     * the first cancelled result.
+     *
+     * @return The completion condition.
+     */
+    public static @NotNull CompletionCondition firstCancelled() {
+        return new CompletionCondition(Type.FIRST_CANCELLED, 1, null);
+    }
+
+    /**
+     * Used to get the instance of a completion
+     * condition from a condition identifier.
+     *
+     * @param identifier The condition identifier.
+     * @return The requested condition.
+     * Null if the condition is not valid.
+     */
+    public static @Nullable CompletionCondition fromIdentifier(@NotNull String identifier) {
+        String[] parts = identifier.split(":");
+        Type type = Type.fromIdentifier(parts[0]);
+        if (type == null) return null;
+
+        try {
+            return switch (type) {
+                case AMOUNT -> CompletionCondition.amount(Integer.parseInt(parts[1]));
+                case RATIO -> CompletionCondition.ratio(new Ratio(Integer.parseInt(parts[1]), Integer.parseInt(parts[2])));
+                default -> new CompletionCondition(type, 1, null);
+            };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+            return null;
+        }
+    }
+}
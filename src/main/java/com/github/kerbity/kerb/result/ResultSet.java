@@ -29,23 +29,50 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Represents a result set.
  * Contains all the current results.
+ * <ul>
+ *     <li>Results can be added from many threads at the same time without locking.</li>
+ *     <li>
+ *         Each result claims the next slot. Slots are stored in small chunks
+ *         that are created when needed, so the max size can be raised.
+ *     </li>
+ *     <li>
+ *         Checking for non-null, cancelled and completed results
+ *         does not need to look through the results.
+ *     </li>
+ * </ul>
  *
  * @param <T> The type the set contains.
  */
 public class ResultSet<T> implements GenericCreator<T> {
 
-    private final @NotNull List<T> resultList;
-    protected @NotNull CompleteReason completeReason;
-    private final int maxSize;
+    /**
+     * Stored in a slot when the result is null, so
+     * empty slots can be told apart from null results.
+     */
+    private static final @NotNull Object NULL_RESULT = new Object();
+
+    private static final int CHUNK_BITS = 4;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
 
-    protected boolean isComplete;
-    private boolean containsCancelled;
-    private boolean containsCompleted;
-    private @Nullable Object defaultSettableValue;
+    private volatile @NotNull AtomicReferenceArray<AtomicReferenceArray<Object>> chunks;
+    private final @NotNull AtomicInteger claimed;
+    private final @NotNull AtomicInteger size;
+    protected volatile @NotNull CompleteReason completeReason;
+    private volatile int maxSize;
+
+    protected volatile boolean isComplete;
+    private volatile boolean containsCancelled;
+    private volatile boolean containsCompleted;
+    private volatile boolean resultNonNull;
+    private volatile boolean resultCancelled;
+    private volatile boolean resultCompleted;
+    private volatile @Nullable Object defaultSettableValue;
 
     /**
      * Used to create a new result set.
@@ -54,7 +81,9 @@ public class ResultSet<T> implements GenericCreator<T> {
      * @param maxSize The maximum size of the result set.
      */
     public ResultSet(int maxSize) {
-        this.resultList = new ArrayList<>();
+        this.chunks = new AtomicReferenceArray<>(Math.max(1, ResultSet.getChunkIndex(Math.max(0, maxSize) + CHUNK_SIZE - 1)));
+        this.claimed = new AtomicInteger();
+        this.size = new AtomicInteger();
         this.completeReason = CompleteReason.UNCOMPLETED;
         this.maxSize = maxSize;
     }
@@ -74,7 +103,7 @@ public class ResultSet<T> implements GenericCreator<T> {
      * @return The current size of the result set.
      */
     public int getSize() {
-        return this.resultList.size();
+        return this.size.get();
     }
 
     /**
@@ -86,13 +115,52 @@ public class ResultSet<T> implements GenericCreator<T> {
         return this.maxSize;
     }
 
+    /**
+     * Used to change the expected size of the result set.
+     * For example, when a different number of clients
+     * were sent an event than were expected.
+     *
+     * @param maxSize The new expected size.
+     * @return This instance.
+     */
+    public @NotNull ResultSet<T> setMaxSize(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        return this;
+    }
+
     /**
      * Used to get the current list of results.
+     * This is a copy, so it will not change
+     * when more results are added.
      *
      * @return The current list of results.
      */
+    @SuppressWarnings("unchecked")
     public @NotNull List<T> get() {
-        return this.resultList;
+        int amount = this.claimed.get();
+        List<T> resultList = new ArrayList<>(Math.min(amount, this.getSize()));
+        AtomicReferenceArray<AtomicReferenceArray<Object>> chunks = this.chunks;
+
+        for (int index = 0; index < amount; index++) {
+            int chunkIndex = ResultSet.getChunkIndex(index);
+            if (chunkIndex >= chunks.length()) chunks = this.chunks;
+            if (chunkIndex >= chunks.length()) break;
+
+            // Check if the chunk has not been created yet.
+            AtomicReferenceArray<Object> chunk = chunks.get(chunkIndex);
+            if (chunk == null) {
+                index += CHUNK_SIZE - 1;
+                continue;
+            }
+
+            // Check if the slot has been claimed but not yet filled.
+            Object result = chunk.get(index & (CHUNK_SIZE - 1));
+            if (result == null) continue;
+
+            resultList.add(result == NULL_RESULT ? null : (T) result);
+        }
+
+        return resultList;
     }
 
     /**
@@ -102,7 +170,7 @@ public class ResultSet<T> implements GenericCreator<T> {
      * @return The first completed result.
      */
     public @NotNull T getFirst() {
-        return this.resultList.get(0);
+        return this.get().get(0);
     }
 
     /**
@@ -113,7 +181,9 @@ public class ResultSet<T> implements GenericCreator<T> {
      * @return The first non-null result or null.
      */
     public @Nullable T getFirstNonNull() {
-        for (T result : this.resultList) {
+        if (!this.resultNonNull) return null;
+
+        for (T result : this.get()) {
             if (result == null) continue;
             return result;
         }
@@ -149,21 +219,118 @@ public class ResultSet<T> implements GenericCreator<T> {
      */
     public @NotNull ResultSet<T> addResult(@Nullable T result) {
 
-        // Check if the size of the results is already at the max.
-        if (this.resultList.size() >= this.maxSize) {
-            throw new RuntimeException("Completable result collection is already full.");
-        }
-
         // Check if it has already been completed.
         if (this.isComplete) {
             throw new RuntimeException("Completable result collection has already been completed.");
         }
 
+        // Claim the next slot, only while there is room,
+        // so a refused result does not use up a slot.
+        int index;
+        do {
+            index = this.claimed.get();
+            if (index >= this.maxSize) {
+                throw new RuntimeException("Completable result collection is already full.");
+            }
+        } while (!this.claimed.compareAndSet(index, index + 1));
+
+        // Update the running checks before the result can be seen.
+        if (result != null) {
+            this.resultNonNull = true;
+            if (result instanceof Cancellable<?> cancellable && cancellable.isCancelled()) this.resultCancelled = true;
+            if (result instanceof Completable<?> completable && completable.isComplete()) this.resultCompleted = true;
+        }
+
         // Add the result.
-        this.resultList.add(result);
+        this.getChunk(ResultSet.getChunkIndex(index)).set(index & (CHUNK_SIZE - 1), result == null ? NULL_RESULT : result);
+        this.size.incrementAndGet();
         return this;
     }
 
+    /**
+     * Used to check if a slot has been filled with a result.
+     * A slot is claimed before it is filled, so a later
+     * slot can be filled before an earlier one.
+     *
+     * @param index The index of the slot.
+     * @return True if the slot contains a result.
+     */
+    protected boolean isFilled(int index) {
+        return this.getSlot(index) != null;
+    }
+
+    /**
+     * Used to get the result in a filled slot.
+     *
+     * @param index The index of the slot.
+     * @return The result in the slot, which could be null.
+     */
+    @SuppressWarnings("unchecked")
+    protected @Nullable T getResult(int index) {
+        Object result = this.getSlot(index);
+        return result == NULL_RESULT ? null : (T) result;
+    }
+
+    private @Nullable Object getSlot(int index) {
+        AtomicReferenceArray<AtomicReferenceArray<Object>> chunks = this.chunks;
+        int chunkIndex = ResultSet.getChunkIndex(index);
+        if (chunkIndex >= chunks.length()) return null;
+
+        AtomicReferenceArray<Object> chunk = chunks.get(chunkIndex);
+        if (chunk == null) return null;
+        return chunk.get(index & (CHUNK_SIZE - 1));
+    }
+
+    /**
+     * Used to get a chunk of slots, creating it if needed.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @return The chunk of slots.
+     */
+    private @NotNull AtomicReferenceArray<Object> getChunk(int chunkIndex) {
+        AtomicReferenceArray<AtomicReferenceArray<Object>> chunks = this.chunks;
+        if (chunkIndex < chunks.length()) {
+            AtomicReferenceArray<Object> chunk = chunks.get(chunkIndex);
+            if (chunk != null) return chunk;
+        }
+        return this.createChunk(chunkIndex);
+    }
+
+    /**
+     * Used to create a chunk of slots.
+     * Chunks are only created or moved while locked,
+     * so a chunk can't be lost when the chunks are grown.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @return The chunk of slots.
+     */
+    private synchronized @NotNull AtomicReferenceArray<Object> createChunk(int chunkIndex) {
+        AtomicReferenceArray<AtomicReferenceArray<Object>> chunks = this.chunks;
+
+        // Check if there is no room for the chunk.
+        if (chunkIndex >= chunks.length()) {
+            AtomicReferenceArray<AtomicReferenceArray<Object>> larger = new AtomicReferenceArray<>(
+                    Math.max(chunkIndex + 1, chunks.length() * 2)
+            );
+            for (int index = 0; index < chunks.length(); index++) {
+                larger.set(index, chunks.get(index));
+            }
+            this.chunks = larger;
+            chunks = larger;
+        }
+
+        AtomicReferenceArray<Object> chunk = chunks.get(chunkIndex);
+        if (chunk != null) return chunk;
+
+        chunk = new AtomicReferenceArray<>(CHUNK_SIZE);
+        chunks.set(chunkIndex, chunk);
+        return chunk;
+    }
+
+    private static int getChunkIndex(int index) {
+        return index >>> CHUNK_BITS;
+    }
+
     /**
      * Used to add a result that may not be the correct type.
      * If the result is not the correct type, nothing will happen.
@@ -187,7 +354,7 @@ public class ResultSet<T> implements GenericCreator<T> {
      * @return True if completed.
      */
     public boolean isComplete() {
-        return this.isComplete || (this.maxSize == this.resultList.size());
+        return this.isComplete || (this.maxSize <= this.size.get());
     }
 
     /**
@@ -198,11 +365,7 @@ public class ResultSet<T> implements GenericCreator<T> {
      * a non-null result.
      */
     public boolean containsNonNull() {
-        for (T item : this.resultList) {
-            if (item == null) continue;
-            return true;
-        }
-        return false;
+        return this.resultNonNull;
     }
 
     /**
@@ -221,30 +384,12 @@ public class ResultSet<T> implements GenericCreator<T> {
     /**
      * Used to check if at least 1 current result was
      * rendered as cancelled.
+     * Results are checked when they are added.
      *
      * @return True if cancelled.
      */
     public boolean containsCancelled() {
-
-        try {
-            // Check if a result has been canceled.
-            for (T result : this.resultList) {
-                if (result == null) continue;
-                if (!(result instanceof Cancellable<?> cancellable)) continue;
-                if (cancellable.isCancelled()) return true;
-            }
-
-            // Return if all results should be rendered as canceled.
-            return this.containsCancelled;
-
-        } catch (Exception exception) {
-            try {
-                System.out.println(this.resultList);
-            } catch (Exception ignored) {
-            }
-            exception.printStackTrace();
-            return false;
-        }
+        return this.resultCancelled || this.containsCancelled;
     }
 
     /**
@@ -262,30 +407,12 @@ public class ResultSet<T> implements GenericCreator<T> {
     /**
      * Used to check if the results contain a result
      * that has the completed value set to true.
+     * Results are checked when they are added.
      *
      * @return True if a result is set to be completed.
      */
     public boolean containsCompleted() {
-
-        try {
-            // Check if a result contains a completed class.
-            for (T result : this.resultList) {
-                if (result == null) continue;
-                if (!(result instanceof Completable<?> completable)) continue;
-                if (completable.isComplete()) return true;
-            }
-
-            // Return if all results should be rendered as canceled.
-            return this.containsCompleted;
-
-        } catch (Exception exception) {
-            try {
-                System.out.println(this.resultList);
-            } catch (Exception ignored) {
-            }
-            exception.printStackTrace();
-            return false;
-        }
+        return this.resultCompleted || this.containsCompleted;
     }
 
     /**
@@ -306,7 +433,7 @@ public class ResultSet<T> implements GenericCreator<T> {
     public <C> @Nullable C getFirstSettable(@NotNull Class<C> type) {
 
         // Check if a result contains a settable value.
-        for (T result : this.resultList) {
+        for (T result : this.get()) {
             if (result == null) continue;
             if (!(result instanceof Settable<?, ?> settable)) continue;
             if (settable.get() == null) continue;
@@ -338,7 +465,7 @@ public class ResultSet<T> implements GenericCreator<T> {
 
         // Check if the results contain a settable value
         // that is the same as the pattern.
-        for (T result : this.resultList) {
+        for (T result : this.get()) {
             if (result == null) continue;
             if (!(result instanceof Settable<?, ?> settable)) continue;
 
@@ -0,0 +1,174 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server;
+
+import com.github.kerbity.kerb.packet.Capability;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketHeader;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.result.CompletionCondition;
+import com.github.kerbity.kerb.task.Task;
+import com.github.kerbity.kerb.task.TimingWheel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents the results of an event that was called
+ * with a {@link CompletionCondition}.
+ * <ul>
+ *     <li>Results are counted as they are sent back to the caller.</li>
+ *     <li>Once the condition is met, later results are not sent to the caller.</li>
+ *     <li>The clients that have not replied are sent a {@link PacketType#EVENT_CANCEL} packet.</li>
+ *     <li>The tracker is removed when every client has replied or the max wait time ends.</li>
+ * </ul>
+ */
+public class CompletionTracker {
+
+    private static final @NotNull String CANCELLED_KEY = "isCancelled";
+
+    private final @NotNull ServerConnection connection;
+    private final @NotNull String sequenceIdentifier;
+    private final @NotNull CompletionCondition condition;
+    private final int expected;
+    private final @NotNull Set<ServerConnection> pendingSet;
+    private final @NotNull ReentrantLock lock;
+
+    private int received;
+    private boolean containsNonNull;
+    private boolean containsCancelled;
+    private volatile boolean met;
+    private @Nullable Task timeOutTask;
+
+    /**
+     * Used to create a completion tracker.
+     *
+     * @param connection         The connection that called the event.
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @param condition          The condition that completes the results.
+     * @param recipientList      The connections the event was sent to.
+     */
+    public CompletionTracker(@NotNull ServerConnection connection,
+                             @NotNull String sequenceIdentifier,
+                             @NotNull CompletionCondition condition,
+                             @NotNull List<ServerConnection> recipientList) {
+
+        this.connection = connection;
+        this.sequenceIdentifier = sequenceIdentifier;
+        this.condition = condition;
+        this.expected = recipientList.size();
+        this.pendingSet = new HashSet<>(recipientList);
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Used to start the max wait time.
+     * When it ends, the tracker is removed from the connection.
+     *
+     * @param maxWaitTime The time to wait for every result.
+     * @return This instance.
+     */
+    public @NotNull CompletionTracker start(@NotNull Duration maxWaitTime) {
+        this.timeOutTask = TimingWheel.getShared().schedule(this::finish, maxWaitTime);
+        return this;
+    }
+
+    /**
+     * Used to check if the condition has been met.
+     *
+     * @return True if no more results should be sent.
+     */
+    public boolean isMet() {
+        return this.met;
+    }
+
+    /**
+     * Used to count a result sent back by a client.
+     *
+     * @param from The connection that sent the result.
+     * @param data The event's data.
+     * @return True if the result should be sent to the caller.
+     */
+    public boolean offer(@NotNull ServerConnection from, @Nullable String data) {
+        List<ServerConnection> toCancel = null;
+        boolean accepted;
+        boolean finished;
+
+        this.lock.lock();
+        try {
+            this.pendingSet.remove(from);
+            accepted = !this.met;
+
+            if (accepted) {
+                this.received++;
+                if (data != null) this.containsNonNull = true;
+                if (data != null && this.condition.getType() == CompletionCondition.Type.FIRST_CANCELLED) {
+                    this.containsCancelled |= CompletionTracker.isCancelled(data);
+                }
+
+                // Check if the caller needs any more results.
+                if (this.condition.isMet(this.received, this.expected, this.containsNonNull, this.containsCancelled)) {
+                    this.met = true;
+                    toCancel = new ArrayList<>(this.pendingSet);
+                }
+            }
+
+            finished = this.pendingSet.isEmpty();
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (toCancel != null) this.cancel(toCancel);
+        if (finished) this.finish();
+        return accepted;
+    }
+
+    private void cancel(@NotNull List<ServerConnection> connectionList) {
+        for (ServerConnection serverConnection : connectionList) {
+
+            // Check if the client knows how to stop the event.
+            if (!serverConnection.hasCapability(Capability.COMPLETION)) continue;
+            if (!serverConnection.isConnected()) continue;
+
+            serverConnection.sendPacket(new Packet()
+                    .setType(PacketType.EVENT_CANCEL)
+                    .setSequenceIdentifier(this.sequenceIdentifier)
+                    .setSource(this.connection.getIdentifier())
+            );
+        }
+    }
+
+    private void finish() {
+        if (this.timeOutTask != null) this.timeOutTask.cancel();
+        this.connection.removeCompletionTracker(this.sequenceIdentifier);
+    }
+
+    private static boolean isCancelled(@NotNull String data) {
+        return "true".equals(PacketHeader.readValue(data.getBytes(StandardCharsets.UTF_8), CANCELLED_KEY));
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Represents the connections registered with the server.
+ * <ul>
+ *     <li>Connections are added when accepted, before they are validated.</li>
+ *     <li>Once validated, they can also be found by identifier and name without a scan.</li>
+ *     <li>Adding, indexing and removing can happen at the same time from different threads.</li>
+ * </ul>
+ */
+public class ConnectionRegistry implements Iterable<ServerConnection> {
+
+    private final @NotNull Set<ServerConnection> connectionSet;
+    private final @NotNull Map<String, ServerConnection> identifierMap;
+    private final @NotNull Map<String, Set<ServerConnection>> nameMap;
+
+    /**
+     * Used to create an empty connection registry.
+     */
+    public ConnectionRegistry() {
+        this.connectionSet = ConcurrentHashMap.newKeySet();
+        this.identifierMap = new ConcurrentHashMap<>();
+        this.nameMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Used to add a connection that was accepted.
+     *
+     * @param connection The instance of the connection.
+     * @return True if it was not already registered.
+     */
+    public boolean add(@NotNull ServerConnection connection) {
+        return this.connectionSet.add(connection);
+    }
+
+    /**
+     * Used to index a connection by its identifier and name.
+     * This should be called once the connection is validated.
+     *
+     * @param connection The instance of the connection.
+     */
+    public void index(@NotNull ServerConnection connection) {
+        this.identifierMap.put(connection.getIdentifier(), connection);
+        this.nameMap.compute(connection.getName(), (name, connectionSet) -> {
+            if (connectionSet == null) connectionSet = ConcurrentHashMap.newKeySet();
+            connectionSet.add(connection);
+            return connectionSet;
+        });
+
+        // Check if it was removed while being indexed.
+        if (!this.connectionSet.contains(connection)) this.unindex(connection);
+    }
+
+    /**
+     * Used to remove a connection.
+     *
+     * @param connection The instance of the connection.
+     * @return True if the connection was registered.
+     */
+    public boolean remove(@NotNull ServerConnection connection) {
+        boolean removed = this.connectionSet.remove(connection);
+        if (connection.isValid()) this.unindex(connection);
+        return removed;
+    }
+
+    /**
+     * Used to get a validated connection by the client's identifier.
+     *
+     * @param identifier The client's identifier.
+     * @return The connection or null if there isn't one.
+     */
+    public @Nullable ServerConnection getByIdentifier(@NotNull String identifier) {
+        return this.identifierMap.get(identifier);
+    }
+
+    /**
+     * Used to get the validated connections with a client name.
+     *
+     * @param name The client's name.
+     * @return The set of connections.
+     */
+    public @NotNull Set<ServerConnection> getByName(@NotNull String name) {
+        Set<ServerConnection> connectionSet = this.nameMap.get(name);
+        if (connectionSet == null) return Set.of();
+        return Collections.unmodifiableSet(connectionSet);
+    }
+
+    /**
+     * Used to get a validated and connected connection
+     * by the client's identifier, or otherwise by its name.
+     *
+     * @param identifierOrName The client's identifier or name.
+     * @return The connection or null if there isn't one.
+     */
+    public @Nullable ServerConnection getByIdentifierOrName(@NotNull String identifierOrName) {
+        ServerConnection connection = this.getByIdentifier(identifierOrName);
+        if (connection != null && connection.isValid() && connection.isConnected()) return connection;
+
+        for (ServerConnection named : this.getByName(identifierOrName)) {
+            if (named.isValid() && named.isConnected()) return named;
+        }
+        return null;
+    }
+
+    /**
+     * Used to check if a connection is registered.
+     *
+     * @param connection The instance of the connection.
+     * @return True if it is registered.
+     */
+    public boolean contains(@NotNull ServerConnection connection) {
+        return this.connectionSet.contains(connection);
+    }
+
+    /**
+     * Used to get the number of registered connections.
+     *
+     * @return The number of connections.
+     */
+    public int size() {
+        return this.connectionSet.size();
+    }
+
+    /**
+     * Used to get a copy of the registered connections.
+     *
+     * @return The list of connections.
+     */
+    public @NotNull List<ServerConnection> toList() {
+        return new ArrayList<>(this.connectionSet);
+    }
+
+    /**
+     * Used to loop though the registered connections.
+     * This will not fail if connections are added or
+     * removed while looping.
+     *
+     * @return The iterator of connections.
+     */
+    @Override
+    public @NotNull Iterator<ServerConnection> iterator() {
+        return Collections.unmodifiableSet(this.connectionSet).iterator();
+    }
+
+    private void unindex(@NotNull ServerConnection connection) {
+        this.identifierMap.remove(connection.getIdentifier(), connection);
+
+        this.nameMap.computeIfPresent(connection.getName(), (name, connectionSet) -> {
+            connectionSet.remove(connection);
+            return connectionSet.isEmpty() ? null : connectionSet;
+        });
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server;
+
+import com.github.kerbity.kerb.packet.BalanceStrategy;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents the load balancer used to pick the one
+ * client a balanced event is sent to.
+ * <ul>
+ *     <li>Round robin keeps a counter for each event identifier.</li>
+ *     <li>Least outstanding uses the events each connection has not replied to yet.</li>
+ *     <li>
+ *         Consistent hashing gives each client a score for the key
+ *         and picks the highest, so only the keys of a client
+ *         that joins or leaves move.
+ *     </li>
+ * </ul>
+ */
+public class LoadBalancer {
+
+    private final @NotNull Map<String, AtomicInteger> counterMap;
+
+    /**
+     * Used to create a load balancer.
+     */
+    public LoadBalancer() {
+        this.counterMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Used to pick the client an event is sent to.
+     *
+     * @param strategy      The strategy used to pick the client.
+     * @param identifier    The event identifier.
+     * @param key           The key used for consistent hashing.
+     *                      If null, round robin is used instead.
+     * @param candidateList The connections that could be picked.
+     * @return The picked connection or null if there are no candidates.
+     */
+    public @Nullable ServerConnection select(@NotNull BalanceStrategy strategy,
+                                             @NotNull String identifier,
+                                             @Nullable String key,
+                                             @NotNull List<ServerConnection> candidateList) {
+
+        if (candidateList.isEmpty()) return null;
+
+        return switch (strategy) {
+            case ROUND_ROBIN -> candidateList.get(this.next(identifier, candidateList.size()));
+            case LEAST_OUTSTANDING -> this.selectLeastOutstanding(identifier, candidateList);
+            case CONSISTENT_HASH -> key == null
+                    ? candidateList.get(this.next(identifier, candidateList.size()))
+                    : LoadBalancer.selectConsistentHash(key, candidateList);
+        };
+    }
+
+    private int next(@NotNull String identifier, int size) {
+        AtomicInteger counter = this.counterMap.computeIfAbsent(identifier, key -> new AtomicInteger());
+        return Math.floorMod(counter.getAndIncrement(), size);
+    }
+
+    private @NotNull ServerConnection selectLeastOutstanding(@NotNull String identifier, @NotNull List<ServerConnection> candidateList) {
+
+        // Start from the next client in turn, so clients
+        // with the same amount take turns.
+        int start = this.next(identifier, candidateList.size());
+        ServerConnection selected = candidateList.get(start);
+        int fewest = selected.getAmountOfOutstanding();
+
+        for (int offset = 1; offset < candidateList.size() && fewest > 0; offset++) {
+            ServerConnection connection = candidateList.get((start + offset) % candidateList.size());
+            int amount = connection.getAmountOfOutstanding();
+            if (amount >= fewest) continue;
+            selected = connection;
+            fewest = amount;
+        }
+
+        return selected;
+    }
+
+    private static @NotNull ServerConnection selectConsistentHash(@NotNull String key, @NotNull List<ServerConnection> candidateList) {
+        ServerConnection selected = candidateList.get(0);
+        long highest = LoadBalancer.score(key, selected.getIdentifier());
+
+        for (int index = 1; index < candidateList.size(); index++) {
+            ServerConnection connection = candidateList.get(index);
+            long score = LoadBalancer.score(key, connection.getIdentifier());
+            if (score <= highest) continue;
+            selected = connection;
+            highest = score;
+        }
+
+        return selected;
+    }
+
+    private static long score(@NotNull String key, @NotNull String identifier) {
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L ^ identifier.hashCode();
+
+        // Mix the bits so similar keys get different scores.
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server;
+
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketCodec;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.task.Task;
+import com.github.kerbity.kerb.task.TimingWheel;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents the results of an event that are being
+ * collected for the connection that called it.
+ * <ul>
+ *     <li>Results are sent to the caller as one {@link PacketType#EVENT_RESULTS} packet per batch.</li>
+ *     <li>
+ *         The batch is a json array of {@code [identifier, data]} pairs. The data
+ *         is nested json, so it is not escaped inside a string.
+ *     </li>
+ *     <li>A batch is sent when it is full, when every result has arrived or when the linger time ends.</li>
+ *     <li>After the max wait time, the remaining results are sent and the batch is removed.</li>
+ * </ul>
+ */
+public class ResultBatch {
+
+    private final @NotNull ServerConnection connection;
+    private final @NotNull String sequenceIdentifier;
+    private final int expected;
+    private final int batchSize;
+    private final @NotNull Duration linger;
+    private final @NotNull ReentrantLock lock;
+
+    private @NotNull List<String[]> buffer;
+    private int received;
+    private boolean complete;
+    private @Nullable Task lingerTask;
+    private @Nullable Task timeOutTask;
+
+    /**
+     * Used to create a result batch.
+     *
+     * @param connection         The connection that called the event.
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @param expected           The number of results to expect.
+     * @param batchSize          The number of results in each batch.
+     *                           When 0, every result is sent in one batch.
+     * @param linger             The time a batch can wait for more results.
+     */
+    public ResultBatch(@NotNull ServerConnection connection,
+                       @NotNull String sequenceIdentifier,
+                       int expected,
+                       int batchSize,
+                       @NotNull Duration linger) {
+
+        this.connection = connection;
+        this.sequenceIdentifier = sequenceIdentifier;
+        this.expected = expected;
+        this.batchSize = batchSize;
+        this.linger = linger;
+        this.lock = new ReentrantLock();
+        this.buffer = new ArrayList<>();
+    }
+
+    /**
+     * Used to get the sequence identifier of the event.
+     *
+     * @return The sequence identifier.
+     */
+    public @NotNull String getSequenceIdentifier() {
+        return this.sequenceIdentifier;
+    }
+
+    /**
+     * Used to start the max wait time.
+     * When it ends, the results collected so far are
+     * sent and the batch is removed from the connection.
+     *
+     * @param maxWaitTime The time to wait for every result.
+     * @return This instance.
+     */
+    public @NotNull ResultBatch start(@NotNull Duration maxWaitTime) {
+        this.timeOutTask = TimingWheel.getShared().schedule(this::complete, maxWaitTime);
+        return this;
+    }
+
+    /**
+     * Used to add a result to the batch.
+     *
+     * @param identifier The event's class name.
+     * @param data       The event's data.
+     * @return False if the batch has already been completed,
+     * so the result should be sent on its own.
+     */
+    public boolean offer(@NotNull String identifier, @Nullable String data) {
+        List<String[]> toSend = null;
+        boolean finished = false;
+
+        this.lock.lock();
+        try {
+            if (this.complete) return false;
+
+            this.buffer.add(new String[]{identifier, data});
+            this.received++;
+
+            // Check if every result has arrived.
+            if (this.received >= this.expected) {
+                this.complete = true;
+                finished = true;
+                toSend = this.take();
+            }
+
+            // Check if the batch is full.
+            else if (this.batchSize > 0 && this.buffer.size() >= this.batchSize) {
+                toSend = this.take();
+            }
+
+            // Otherwise, send the batch if no more results arrive in time.
+            else if (this.batchSize > 0 && this.lingerTask == null) {
+                this.lingerTask = TimingWheel.getShared().schedule(this::flush, this.linger);
+            }
+
+        } finally {
+            this.lock.unlock();
+        }
+
+        if (toSend != null) this.send(toSend);
+        if (finished) this.finish();
+        return true;
+    }
+
+    /**
+     * Used to send the results collected so far.
+     */
+    public void flush() {
+        List<String[]> toSend;
+
+        this.lock.lock();
+        try {
+            toSend = this.take();
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.send(toSend);
+    }
+
+    /**
+     * Used to send the results collected so far
+     * and stop collecting results.
+     * Later results are sent on their own.
+     */
+    public void complete() {
+        List<String[]> toSend;
+
+        this.lock.lock();
+        try {
+            if (this.complete) return;
+            this.complete = true;
+            toSend = this.take();
+        } finally {
+            this.lock.unlock();
+        }
+
+        this.send(toSend);
+        this.finish();
+    }
+
+    private void finish() {
+        if (this.timeOutTask != null) this.timeOutTask.cancel();
+        this.connection.removeResultBatch(this.sequenceIdentifier);
+    }
+
+    private @NotNull List<String[]> take() {
+        if (this.lingerTask != null) {
+            this.lingerTask.cancel();
+            this.lingerTask = null;
+        }
+
+        List<String[]> taken = this.buffer;
+        this.buffer = new ArrayList<>();
+        return taken;
+    }
+
+    private void send(@NotNull List<String[]> results) {
+        if (results.isEmpty()) return;
+        if (!this.connection.isConnected()) return;
+
+        this.connection.sendPacket(new Packet()
+                .setType(PacketType.EVENT_RESULTS)
+                .setSequenceIdentifier(this.sequenceIdentifier)
+                .setJsonData(ResultBatch.toJson(results))
+        );
+    }
+
+    /**
+     * Used to write results as a json array of
+     * identifier and data pairs. The data is already
+     * json, so it is written without being escaped.
+     *
+     * @param results The identifier and data pairs.
+     * @return The json array.
+     */
+    private static @NotNull String toJson(@NotNull List<String[]> results) {
+        StringWriter stringWriter = new StringWriter();
+
+        try (JsonWriter writer = PacketCodec.getShared().getGson().newJsonWriter(stringWriter)) {
+            writer.beginArray();
+
+            for (String[] result : results) {
+                writer.beginArray();
+                writer.value(result[0]);
+                if (result[1] == null) writer.nullValue();
+                else writer.jsonValue(result[1]);
+                writer.endArray();
+            }
+
+            writer.endArray();
+
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+
+        return stringWriter.toString();
+    }
+}
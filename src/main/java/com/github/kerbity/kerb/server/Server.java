@@ -22,21 +22,41 @@ package com.github.kerbity.kerb.server;
 
 import com.github.kerbity.kerb.Connection;
 import com.github.kerbity.kerb.indicator.PasswordEncryption;
+import com.github.kerbity.kerb.packet.Capability;
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketHeader;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.PayloadCodecRegistry;
+import com.github.kerbity.kerb.packet.TypeRegistry;
 import com.github.kerbity.kerb.server.command.CommandManager;
+import com.github.kerbity.kerb.server.nio.NioChannel;
+import com.github.kerbity.kerb.server.nio.NioServerTransport;
+import com.github.kerbity.kerb.task.DispatchExecutor;
+import com.github.kerbity.kerb.task.KerbThreads;
+import com.github.kerbity.kerb.task.RejectionPolicy;
 import com.github.minemaniauk.developertools.console.Logger;
 import com.github.squishylib.configuration.Configuration;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.*;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
 import java.security.KeyStore;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Represents the server.
@@ -44,6 +64,8 @@ import java.util.List;
  */
 public class Server implements PasswordEncryption {
 
+    private static final int CONNECTION_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
     private boolean running;
     private boolean debugMode;
 
@@ -55,8 +77,16 @@ public class Server implements PasswordEncryption {
     private final @NotNull Configuration configuration;
     private final @NotNull Logger logger;
     private SSLServerSocket socket;
+    private @Nullable NioServerTransport transport;
     private final @NotNull CommandManager commandManager;
-    private final List<ServerConnection> connectionList;
+    private final @NotNull ConnectionRegistry connectionRegistry;
+    private final @NotNull SubscriptionIndex subscriptionIndex;
+    private final @NotNull SubscriptionIndex channelIndex;
+    private final @NotNull LoadBalancer loadBalancer;
+    private final @NotNull TypeRegistry typeRegistry;
+    private volatile boolean typeRegistryFull;
+    private @NotNull DispatchExecutor dispatchExecutor;
+    private @NotNull ExecutorService connectionExecutor;
 
     /**
      * Used to create an instance of the server.
@@ -78,7 +108,13 @@ public class Server implements PasswordEncryption {
         // Set up the logger.
         this.logger = Server.createLogger();
         this.commandManager = new CommandManager(this);
-        this.connectionList = new ArrayList<>();
+        this.connectionRegistry = new ConnectionRegistry();
+        this.subscriptionIndex = new SubscriptionIndex();
+        this.channelIndex = new SubscriptionIndex(null);
+        this.loadBalancer = new LoadBalancer();
+        this.typeRegistry = new TypeRegistry();
+        this.dispatchExecutor = this.createDispatchExecutor();
+        this.connectionExecutor = Server.createConnectionExecutor();
     }
 
     /**
@@ -96,7 +132,19 @@ public class Server implements PasswordEncryption {
      * @return The server's address.
      */
     public String getAddress() {
-        return this.socket.getInetAddress().getHostAddress();
+        return this.getServerSocket().getInetAddress().getHostAddress();
+    }
+
+    /**
+     * Used to get the server socket the
+     * server is currently listening on.
+     *
+     * @return The server socket.
+     * Null if the server has not been started.
+     */
+    private @Nullable ServerSocket getServerSocket() {
+        if (this.transport != null) return this.transport.getSocket();
+        return this.socket;
     }
 
     /**
@@ -138,20 +186,34 @@ public class Server implements PasswordEncryption {
     }
 
     /**
-     * Used to get the instance of the connection list.
+     * Used to get a copy of the connection list.
      * This list contains all the connection currently
      * connected to the server.
      *
      * @return The list of connections.
      */
     public @NotNull List<ServerConnection> getConnectionList() {
-        this.cleanConnectionList();
-        return this.connectionList;
+        return this.connectionRegistry.toList();
     }
 
+    /**
+     * Used to get the connection registry.
+     * Connections can be found by identifier and name,
+     * and looped though without copying.
+     *
+     * @return The connection registry.
+     */
+    public @NotNull ConnectionRegistry getConnectionRegistry() {
+        return this.connectionRegistry;
+    }
+
+    /**
+     * Used to remove null connections.
+     * The registry cannot contain null connections,
+     * so this does nothing.
+     */
+    @Deprecated
     public void cleanConnectionList() {
-        this.connectionList.remove(null);
-        if (this.connectionList.contains(null)) this.cleanConnectionList();
     }
 
     /**
@@ -160,7 +222,161 @@ public class Server implements PasswordEncryption {
      * @return The number of connected clients.
      */
     public int getSize() {
-        return this.connectionList.size();
+        return this.connectionRegistry.size();
+    }
+
+    /**
+     * Used to get the number of clients that have been validated.
+     * These are the clients that will receive events.
+     *
+     * @return The number of validated clients.
+     */
+    public int getAmountOfValidClients() {
+        int amount = 0;
+        for (ServerConnection connection : this.connectionRegistry) {
+            if (connection.isValid()) amount++;
+        }
+        return amount;
+    }
+
+    /**
+     * Used to get the capabilities the server offers
+     * to clients during validation.
+     *
+     * @return The list of capabilities.
+     */
+    public @NotNull List<String> getCapabilities() {
+        List<String> capabilities = new ArrayList<>();
+        if (this.isFramedProtocolEnabled()) capabilities.add(Capability.FRAMED);
+        capabilities.add(Capability.CLIENT_AMOUNT);
+        capabilities.add(Capability.SUBSCRIPTIONS);
+        capabilities.add(Capability.TARGETS);
+        capabilities.add(Capability.CHANNELS);
+        capabilities.add(Capability.BALANCE);
+        capabilities.add(Capability.AGGREGATE);
+        capabilities.add(Capability.COMPLETION);
+        capabilities.add(Capability.TYPE_IDS);
+        capabilities.add(Capability.NESTED_DATA);
+        capabilities.addAll(PayloadCodecRegistry.getShared().getCapabilities());
+        return capabilities;
+    }
+
+    /**
+     * Used to get the index of which
+     * connections listen to which events.
+     *
+     * @return The subscription index.
+     */
+    public @NotNull SubscriptionIndex getSubscriptionIndex() {
+        return this.subscriptionIndex;
+    }
+
+    /**
+     * Used to get the index of which
+     * connections are members of which channels.
+     *
+     * @return The channel index.
+     */
+    public @NotNull SubscriptionIndex getChannelIndex() {
+        return this.channelIndex;
+    }
+
+    /**
+     * Used to get the load balancer used to pick
+     * the client a balanced event is sent to.
+     *
+     * @return The load balancer.
+     */
+    public @NotNull LoadBalancer getLoadBalancer() {
+        return this.loadBalancer;
+    }
+
+    /**
+     * Used to get the numbers given to the
+     * event and object classes sent though this server.
+     *
+     * @return The type registry.
+     */
+    public @NotNull TypeRegistry getTypeRegistry() {
+        return this.typeRegistry;
+    }
+
+    /**
+     * Used to give a class name a number the first time
+     * it is sent, and send the number to every client
+     * that has the type ids capability.
+     * This is sent before the packet that used the class
+     * name is relayed, so clients can read the number
+     * before it is used.
+     * Once the max number of classes have numbers,
+     * no more numbers are given out.
+     *
+     * @param name The class name.
+     */
+    public void registerType(@NotNull String name) {
+        if (this.typeRegistry.contains(name)) return;
+
+        // Check if the max number of classes have numbers.
+        // Any other classes are still sent by name.
+        int id = this.typeRegistry.register(name, this.getTypeRegistryMaxSize());
+        if (id < 0) {
+            if (!this.typeRegistryFull) {
+                this.typeRegistryFull = true;
+                this.logger.warn("The type registry is full, so new classes will be sent by name. size=" + this.typeRegistry.getSize());
+            }
+            return;
+        }
+
+        Frame frame = new Packet()
+                .setType(PacketType.TYPE_IDS)
+                .setData(List.<String[]>of(new String[]{String.valueOf(id), name}))
+                .toFrame();
+
+        // Connections that are still validating are included,
+        // so they cannot miss a number given out while
+        // they are being sent the existing numbers.
+        for (ServerConnection connection : this.connectionRegistry) {
+            if (!connection.hasCapability(Capability.TYPE_IDS)) continue;
+            if (!connection.isConnected()) continue;
+            connection.sendFrame(frame);
+        }
+    }
+
+    /**
+     * Used to replace a type number with the class name,
+     * for clients that do not have the type ids capability.
+     *
+     * @param frame The frame to send.
+     * @return The frame with the class name, or the
+     * same frame if it did not use a type number.
+     */
+    public @NotNull Frame expandTypeId(@NotNull Frame frame) {
+        String identifier = PacketHeader.readValue(frame.getPayload(), "identifier");
+        if (identifier == null || !TypeRegistry.isCompact(identifier)) return frame;
+
+        String name = this.typeRegistry.getName(identifier);
+        if (name == null) return frame;
+
+        return Packet.getPacket(frame).setIdentifier(name).toFrame();
+    }
+
+    /**
+     * Used to send the number of validated clients to
+     * every client that has the client amount capability.
+     * Clients use this as the number of results
+     * to expect when calling an event.
+     */
+    public void broadcastClientAmount() {
+        Frame frame = new Packet()
+                .setType(PacketType.CLIENT_AMOUNT)
+                .setData(this.getAmountOfValidClients())
+                .toFrame();
+
+        for (ServerConnection connection : this.connectionRegistry) {
+            if (!connection.isValid()) continue;
+            if (!connection.hasCapability(Capability.CLIENT_AMOUNT)) continue;
+            connection.sendFrame(frame);
+        }
     }
 
     /**
@@ -193,6 +409,153 @@ public class Server implements PasswordEncryption {
         return Duration.ofMillis(this.configuration.getLong("max_wait_time_mills", 500));
     }
 
+    /**
+     * Used to get the number of event results to collect
+     * before they are sent to the caller as one packet.
+     * When 0, all the results are sent in a single packet.
+     *
+     * @return The number of results in each batch.
+     */
+    public int getResultBatchSize() {
+        return Math.max(0, this.configuration.getInteger("result_batch_size", 64));
+    }
+
+    /**
+     * Used to get how long a batch of event results can wait
+     * for more results before it is sent anyway.
+     *
+     * @return The duration to wait.
+     */
+    public @NotNull Duration getResultBatchLinger() {
+        return Duration.ofMillis(this.configuration.getLong("result_batch_linger_millis", 10));
+    }
+
+    /**
+     * Used to get the type of transport the server
+     * should use to handle connections.
+     *
+     * @return The type of transport.
+     */
+    public @NotNull TransportType getTransportType() {
+        TransportType type = TransportType.fromIdentifier(this.configuration.getString("transport", "blocking"));
+        if (type == null) return TransportType.BLOCKING;
+        return type;
+    }
+
+    /**
+     * Used to get the number of event loop threads
+     * used when the transport is non-blocking.
+     *
+     * @return The number of event loop threads.
+     */
+    public int getNioThreads() {
+        return this.configuration.getInteger("nio_threads", 2);
+    }
+
+    /**
+     * Used to get the max number of class names
+     * that can be given a number. Packets are still
+     * relayed once it is full, using the class name.
+     *
+     * @return The max size of the type registry.
+     */
+    public int getTypeRegistryMaxSize() {
+        return this.configuration.getInteger("type_registry_max_size", 1024);
+    }
+
+    /**
+     * Used to get the max number of bytes that can be
+     * waiting to be sent to a client when the transport
+     * is non-blocking. Clients that fall further behind
+     * than this are disconnected.
+     *
+     * @return The max number of pending bytes.
+     */
+    public long getNioMaxPendingBytes() {
+        return this.configuration.getLong("nio_max_pending_bytes", 67108864);
+    }
+
+    /**
+     * Used to check if clients are allowed to use
+     * the length prefixed frame protocol.
+     * Clients that don't support it will still use lines.
+     *
+     * @return True if the framed protocol is enabled.
+     */
+    public boolean isFramedProtocolEnabled() {
+        return this.configuration.getBoolean("framed_protocol", true);
+    }
+
+    /**
+     * Used to get the max number of threads used
+     * to interpret packets from clients.
+     *
+     * @return The max number of dispatch threads.
+     */
+    public int getDispatchThreads() {
+        return this.configuration.getInteger("dispatch_threads", DispatchExecutor.DEFAULT_THREADS);
+    }
+
+    /**
+     * Used to get the max number of packets that can
+     * wait to be interpreted before the rejection
+     * policy is used.
+     *
+     * @return The max number of waiting packets.
+     */
+    public int getDispatchQueueSize() {
+        return this.configuration.getInteger("dispatch_queue_size", DispatchExecutor.DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Used to get what the server should do with a
+     * packet when the dispatch queue is full.
+     *
+     * @return The rejection policy.
+     */
+    public @NotNull RejectionPolicy getDispatchRejectionPolicy() {
+        RejectionPolicy policy = RejectionPolicy.fromIdentifier(this.configuration.getString("dispatch_rejection_policy", "caller_runs"));
+        if (policy == null) return RejectionPolicy.CALLER_RUNS;
+        return policy;
+    }
+
+    /**
+     * Used to check if virtual threads should be used
+     * to read connections, interpret packets and run tasks.
+     * This is ignored when the java version does not support them.
+     *
+     * @return True if virtual threads should be used.
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return this.configuration.getBoolean("virtual_threads", false);
+    }
+
+    /**
+     * Used to get the executor that interprets
+     * packets from every connection.
+     *
+     * @return The dispatch executor.
+     */
+    public @NotNull DispatchExecutor getDispatchExecutor() {
+        return this.dispatchExecutor;
+    }
+
+    /**
+     * Used to get the executor that runs the work for
+     * connections joining and leaving, such as checking
+     * passwords and sending the amount of clients.
+     * <ul>
+     *     <li>Tasks are never discarded or run on the calling thread.</li>
+     *     <li>It is kept apart from the dispatch executor,
+     *     so a busy dispatch queue can't stop clients joining.</li>
+     * </ul>
+     *
+     * @return The connection executor.
+     */
+    public @NotNull ExecutorService getConnectionExecutor() {
+        return this.connectionExecutor;
+    }
+
     /**
      * Used to set if the server is in debug mode.
      *
@@ -258,6 +621,20 @@ public class Server implements PasswordEncryption {
         this.printStartMessage();
         this.logger.log("Creating server socket.");
 
+        // Set up the type of threads to use.
+        if (this.isVirtualThreadsEnabled() && !KerbThreads.setVirtual(true)) {
+            this.logger.warn("Virtual threads are not supported by this java version, platform threads will be used.");
+        }
+        if (KerbThreads.isVirtual()) this.logger.log("Using virtual threads.");
+
+        // Check if the dispatch executor was stopped.
+        if (this.dispatchExecutor.isShutdown()) {
+            this.dispatchExecutor = this.createDispatchExecutor();
+        }
+        if (this.connectionExecutor.isShutdown()) {
+            this.connectionExecutor = Server.createConnectionExecutor();
+        }
+
         try {
 
             // Set up key store.
@@ -278,7 +655,25 @@ public class Server implements PasswordEncryption {
             sslContext.init(new KeyManager[]{x509KeyManager}, new TrustManager[]{x509TrustManager}, null);
 
 
+            // Check if the server should use the non-blocking transport.
+            if (this.getTransportType() == TransportType.NIO) {
+                this.transport = new NioServerTransport(sslContext, this.port, this.getNioThreads(), this.getNioMaxPendingBytes(), this.logger);
+
+                this.logger.log("Server socket created.");
+                this.logger.log("Using the nio transport with " + this.getNioThreads() + " event loops.");
+                this.logger.log("Listening on : " + this.port);
+                this.logger.log("&7");
+
+                this.running = true;
+
+                // Start the main server loop.
+                new Thread(this::startCommandLoop).start();
+                this.startNioLoop();
+                return;
+            }
+
             // Attempt to create the server socket.
+            this.transport = null;
             SSLServerSocketFactory serverSocketFactory = sslContext.getServerSocketFactory();
             this.socket = (SSLServerSocket) serverSocketFactory.createServerSocket(this.port);
             this.socket.setNeedClientAuth(true);
@@ -322,12 +717,12 @@ public class Server implements PasswordEncryption {
                 // Create the client thread.
                 ServerConnection serverThread = new ServerConnection(this, client, clientLogger);
 
-                // Add the connection to the list.
-                this.connectionList.add(serverThread);
+                // Add the connection to the registry.
+                this.connectionRegistry.add(serverThread);
                 clientLogger.log("&rConnected to the server, waiting for validation. {clients: " + this.getSize() + "}");
 
                 // Thread the client loop.
-                new Thread(serverThread::start).start();
+                KerbThreads.start("kerb-connection-" + client.getPort(), serverThread::start);
 
             } catch (IOException exception) {
                 if (exception.getMessage().contains("Socket closed")) {
@@ -340,6 +735,49 @@ public class Server implements PasswordEncryption {
         }
     }
 
+    private void startNioLoop() {
+        if (this.transport == null) return;
+
+        while (this.running) {
+            try {
+
+                // Wait for new client connection.
+                SocketChannel socketChannel = this.transport.accept();
+                Socket client = socketChannel.socket();
+
+                // Create an extensions of the logger.
+                Logger clientLogger = this.logger.createExtension("&7[&r" + this.getLocalClientName(client) + "&7] ");
+
+                // Check if the client is blocked.
+                if (this.isBlocked(client)) {
+                    clientLogger.log("Tried to connect but is blocked.");
+                    socketChannel.close();
+                    continue;
+                }
+
+                // Create the connection.
+                NioChannel channel = this.transport.createChannel(socketChannel);
+                ServerConnection connection = new ServerConnection(this, channel, clientLogger);
+
+                // Add the connection to the registry.
+                this.connectionRegistry.add(connection);
+                clientLogger.log("&rConnected to the server, waiting for validation. {clients: " + this.getSize() + "}");
+
+                // Queue the salt and hand the channel to an event loop.
+                connection.open();
+                this.transport.register(channel);
+
+            } catch (ClosedChannelException exception) {
+                this.logger.warn("Socket was closed when trying to accept connections.");
+                return;
+
+            } catch (IOException exception) {
+                this.logger.warn("Exception occurred while attempting to accept a client connection.");
+                throw new RuntimeException(exception);
+            }
+        }
+    }
+
     /**
      * Used to get a client's name from configuration.
      * This may not be the exact name the client has
@@ -398,7 +836,7 @@ public class Server implements PasswordEncryption {
         try {
 
             // Loop until the socket is connected.
-            while (this.socket == null || this.socket.getInetAddress() == null) {
+            while (this.getServerSocket() == null || this.getServerSocket().getInetAddress() == null) {
                 Thread.sleep(100);
             }
 
@@ -419,7 +857,7 @@ public class Server implements PasswordEncryption {
         this.running = false;
 
         // Disconnect all clients from the server.
-        for (ServerConnection connection : new ArrayList<>(this.getConnectionList())) {
+        for (ServerConnection connection : this.getConnectionList()) {
             connection.getLogger().log("[-] Disconnecting client from the server.");
             connection.disconnect(false);
         }
@@ -427,13 +865,40 @@ public class Server implements PasswordEncryption {
         try {
 
             // Attempt to close the server.
-            if (this.socket != null) this.socket.close();
+            if (this.transport != null) this.transport.stop();
+            else if (this.socket != null) this.socket.close();
             this.logger.log("Server socket closed.");
             this.logger.log("&7");
 
         } catch (IOException exception) {
             throw new RuntimeException(exception);
         }
+
+        this.dispatchExecutor.shutdown();
+        this.connectionExecutor.shutdown();
+    }
+
+    private @NotNull DispatchExecutor createDispatchExecutor() {
+        return new DispatchExecutor(
+                "kerb-dispatch",
+                this.getDispatchThreads(),
+                this.getDispatchQueueSize(),
+                this.getDispatchRejectionPolicy(),
+                this.logger
+        );
+    }
+
+    private static @NotNull ExecutorService createConnectionExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                CONNECTION_THREADS,
+                CONNECTION_THREADS,
+                60,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                KerbThreads.factory("kerb-connection-task", true)
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
@@ -443,7 +908,21 @@ public class Server implements PasswordEncryption {
      * @param serverConnection The instance of the server connection.
      */
     public void remove(@NotNull ServerConnection serverConnection) {
-        this.connectionList.remove(serverConnection);
+        boolean removed = this.connectionRegistry.remove(serverConnection);
+        this.subscriptionIndex.remove(serverConnection);
+        this.channelIndex.remove(serverConnection);
+
+        // Forget the balanced events it called,
+        // and the ones it had not replied to.
+        for (ServerConnection connection : this.connectionRegistry) {
+            connection.removeOutstanding(serverConnection);
+        }
+        serverConnection.clearOutstanding();
+
+        // Let the other clients know a client has left.
+        if (removed && serverConnection.isValid() && this.running) {
+            this.connectionExecutor.execute(this::broadcastClientAmount);
+        }
     }
 
     private void printStartMessage() {
@@ -23,11 +23,21 @@ package com.github.kerbity.kerb.server;
 import com.github.kerbity.kerb.Connection;
 import com.github.kerbity.kerb.indicator.PasswordEncryption;
 import com.github.kerbity.kerb.client.registeredclient.RegisteredClient;
+import com.github.kerbity.kerb.packet.Capability;
+import com.github.kerbity.kerb.packet.Frame;
 import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.PayloadCodecRegistry;
 import com.github.kerbity.kerb.packet.serverevent.ServerEvent;
 import com.github.kerbity.kerb.packet.serverevent.event.CheckAliveServerEvent;
 import com.github.kerbity.kerb.result.CompletableResultSet;
+import com.github.kerbity.kerb.result.CompletionCondition;
 import com.github.kerbity.kerb.result.CompleteReason;
+import com.github.kerbity.kerb.server.nio.ChannelHandler;
+import com.github.kerbity.kerb.server.nio.NioChannel;
+import com.github.kerbity.kerb.task.DispatchExecutor;
+import com.github.kerbity.kerb.task.Task;
+import com.github.kerbity.kerb.task.TimingWheel;
 import com.github.minemaniauk.developertools.console.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -36,25 +46,33 @@ import java.io.IOException;
 import java.net.Socket;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a client connection to the server.
  */
-public class ServerConnection extends Connection implements PasswordEncryption {
+public class ServerConnection extends Connection implements PasswordEncryption, ChannelHandler {
 
     private static final @NotNull String TIME_OUT_IDENTIFIER = "time_out";
     private static final @NotNull String STAY_ALIVE_IDENTIFIER = "stay_alive";
 
     private @Nullable String identifier;
     private @Nullable String name;
+    private volatile @NotNull Set<@NotNull String> capabilities = Set.of();
 
     private boolean running;
-    private boolean isValid;
+    private volatile boolean isValid;
+    private volatile boolean isPasswordAccepted;
+    private byte @Nullable [] salt;
 
     private final @NotNull Server server;
+    private final @Nullable NioChannel channel;
     private @NotNull Logger logger;
     private final @NotNull ServerConnectionPacketManager packetManager;
     private final @NotNull Map<@NotNull String, @NotNull CompletableResultSet<?>> resultMap;
+    private final @NotNull Map<@NotNull String, @NotNull Outstanding> outstandingMap;
+    private final @NotNull Map<@NotNull String, @NotNull ResultBatch> resultBatchMap;
+    private final @NotNull Map<@NotNull String, @NotNull CompletionTracker> completionMap;
 
     /**
      * Used to create a server connection.
@@ -65,13 +83,40 @@ public class ServerConnection extends Connection implements PasswordEncryption {
      */
     public ServerConnection(@NotNull Server server, @NotNull Socket socket, @NotNull Logger logger) {
         this.server = server;
+        this.channel = null;
         this.logger = logger;
         this.packetManager = new ServerConnectionPacketManager(this);
-        this.resultMap = new HashMap<>();
+        this.resultMap = new ConcurrentHashMap<>();
+        this.outstandingMap = new ConcurrentHashMap<>();
+        this.resultBatchMap = new ConcurrentHashMap<>();
+        this.completionMap = new ConcurrentHashMap<>();
 
         this.setupStreams(socket, logger.createExtension("[Socket] "));
     }
 
+    /**
+     * Used to create a server connection
+     * that uses a non-blocking channel.
+     * The channel will pass the data it reads to
+     * {@link ServerConnection#receive(Frame)}.
+     *
+     * @param server  The instance of the server.
+     * @param channel The instance of the channel.
+     */
+    public ServerConnection(@NotNull Server server, @NotNull NioChannel channel, @NotNull Logger logger) {
+        this.server = server;
+        this.channel = channel;
+        this.logger = logger;
+        this.packetManager = new ServerConnectionPacketManager(this);
+        this.resultMap = new ConcurrentHashMap<>();
+        this.outstandingMap = new ConcurrentHashMap<>();
+        this.resultBatchMap = new ConcurrentHashMap<>();
+        this.completionMap = new ConcurrentHashMap<>();
+
+        channel.setHandler(this);
+        this.setupStreams(channel.getSocket(), channel.getOutputStream(), logger.createExtension("[Socket] "));
+    }
+
     @Override
     public boolean getDebugMode() {
         return this.server.isDebugMode();
@@ -188,10 +233,91 @@ public class ServerConnection extends Connection implements PasswordEncryption {
         return this.getSocket().isConnected();
     }
 
+    /**
+     * Used to check if the connection has been closed.
+     *
+     * @return True if the socket is closed.
+     */
+    public boolean isClosed() {
+        return this.getSocket() == null || this.getSocket().isClosed();
+    }
+
+    /**
+     * Used to record that a balanced event was sent
+     * to this client and has not been replied to.
+     * The record is removed after the max wait time,
+     * as the caller will have stopped waiting for it.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @param caller             The connection that called the event.
+     */
+    public void addOutstanding(@NotNull String sequenceIdentifier, @NotNull ServerConnection caller) {
+        Task timeOutTask = TimingWheel.getShared().schedule(
+                () -> this.removeOutstanding(sequenceIdentifier),
+                this.server.getMaxWaitTime()
+        );
+        this.outstandingMap.put(sequenceIdentifier, new Outstanding(caller, timeOutTask));
+    }
+
+    /**
+     * Used to record that the client replied to an event.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     */
+    public void removeOutstanding(@NotNull String sequenceIdentifier) {
+        Outstanding outstanding = this.outstandingMap.remove(sequenceIdentifier);
+        if (outstanding != null) outstanding.timeOutTask.cancel();
+    }
+
+    /**
+     * Used to remove the balanced events a connection called,
+     * as nothing is waiting for them once it has disconnected.
+     *
+     * @param caller The connection that called the events.
+     */
+    public void removeOutstanding(@NotNull ServerConnection caller) {
+        for (Map.Entry<String, Outstanding> entry : this.outstandingMap.entrySet()) {
+            if (entry.getValue().caller != caller) continue;
+            this.removeOutstanding(entry.getKey());
+        }
+    }
+
+    /**
+     * Used to remove every balanced event this client
+     * has not replied to, for example, when it disconnects.
+     */
+    public void clearOutstanding() {
+        for (String sequenceIdentifier : this.outstandingMap.keySet()) {
+            this.removeOutstanding(sequenceIdentifier);
+        }
+    }
+
+    /**
+     * Used to get the number of balanced events sent
+     * to this client that it has not replied to.
+     *
+     * @return The number of outstanding events.
+     */
+    public int getAmountOfOutstanding() {
+        return this.outstandingMap.size();
+    }
+
+    /**
+     * Used to check if the client sent a capability
+     * during validation.
+     *
+     * @param capability The capability to check for.
+     * @return True if the client will use the capability.
+     */
+    public boolean hasCapability(@NotNull String capability) {
+        return this.capabilities.contains(capability);
+    }
+
     /**
      * Used to check if the connection is valid.
      * A valid connection is where the password has
-     * been sent, and it is correct.
+     * been sent, it is correct and the client has
+     * sent its identifier.
      *
      * @return True if the connection has been validated.
      */
@@ -208,6 +334,39 @@ public class ServerConnection extends Connection implements PasswordEncryption {
         this.send(data);
     }
 
+    /**
+     * Used to send a packet though the socket.
+     *
+     * @param packet The packet to send.
+     */
+    public void sendPacket(@NotNull Packet packet) {
+        this.send(packet);
+    }
+
+    /**
+     * Used to send an encoded frame though the socket.
+     * The same frame can be given to many connections
+     * without being encoded again.
+     *
+     * @param frame The frame to send.
+     */
+    public void sendFrame(@NotNull Frame frame) {
+
+        // Send class names to clients that do not use type numbers.
+        if (!this.hasCapability(Capability.TYPE_IDS)) {
+            frame = this.server.expandTypeId(frame);
+        }
+
+        // Send the data as a json string to clients that
+        // do not read nested data or every payload codec.
+        if (!this.hasCapability(Capability.NESTED_DATA)
+                || !PayloadCodecRegistry.getShared().canReadAll(this.capabilities)) {
+            frame = Packet.flattenData(frame);
+        }
+
+        this.send(frame);
+    }
+
     /**
      * Used to add the server result with a max wait time.
      * This will also register the server result with the server connection.
@@ -237,6 +396,100 @@ public class ServerConnection extends Connection implements PasswordEncryption {
 
         }, this.server.getMaxWaitTime(), sequenceIdentifier);
 
+        // Stop waiting once the results are complete.
+        resultSet.onComplete(results -> {
+            this.stopTask(sequenceIdentifier);
+            this.removeResult(sequenceIdentifier);
+        });
+
+        return this;
+    }
+
+    /**
+     * Used to collect the results of an event this client called,
+     * so they are sent back in batches. Uses the same max wait
+     * time as {@link ServerConnection#addResult(String, CompletableResultSet)}.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @param expected           The number of clients the event was sent to.
+     * @return This instance.
+     */
+    public @NotNull ServerConnection aggregateResults(@NotNull String sequenceIdentifier, int expected) {
+        ResultBatch batch = new ResultBatch(
+                this,
+                sequenceIdentifier,
+                expected,
+                this.server.getResultBatchSize(),
+                this.server.getResultBatchLinger()
+        );
+
+        this.resultBatchMap.put(sequenceIdentifier, batch);
+        batch.start(this.server.getMaxWaitTime());
+        return this;
+    }
+
+    /**
+     * Used to get the batch collecting the results
+     * of an event this client called.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @return The result batch or null.
+     */
+    public @Nullable ResultBatch getResultBatch(@NotNull String sequenceIdentifier) {
+        return this.resultBatchMap.get(sequenceIdentifier);
+    }
+
+    /**
+     * Used to stop collecting the results of an event.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @return This instance.
+     */
+    public @NotNull ServerConnection removeResultBatch(@NotNull String sequenceIdentifier) {
+        this.resultBatchMap.remove(sequenceIdentifier);
+        return this;
+    }
+
+    /**
+     * Used to stop sending the results of an event this client
+     * called once its completion condition is met.
+     * Uses the same max wait time as
+     * {@link ServerConnection#addResult(String, CompletableResultSet)}.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @param condition          The condition that completes the results.
+     * @param recipientList      The connections the event was sent to.
+     * @return This instance.
+     */
+    public @NotNull ServerConnection trackCompletion(@NotNull String sequenceIdentifier,
+                                                     @NotNull CompletionCondition condition,
+                                                     @NotNull List<ServerConnection> recipientList) {
+
+        CompletionTracker tracker = new CompletionTracker(this, sequenceIdentifier, condition, recipientList);
+        this.completionMap.put(sequenceIdentifier, tracker);
+        tracker.start(this.server.getMaxWaitTime());
+        return this;
+    }
+
+    /**
+     * Used to get the tracker counting the results
+     * of an event this client called.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @return The completion tracker or null.
+     */
+    public @Nullable CompletionTracker getCompletionTracker(@NotNull String sequenceIdentifier) {
+        return this.completionMap.get(sequenceIdentifier);
+    }
+
+    /**
+     * Used to stop tracking the results of an event.
+     *
+     * @param sequenceIdentifier The event's sequence identifier.
+     * @return This instance.
+     */
+    public @NotNull ServerConnection removeCompletionTracker(@NotNull String sequenceIdentifier) {
+        this.completionMap.remove(sequenceIdentifier);
         return this;
     }
 
@@ -271,7 +524,7 @@ public class ServerConnection extends Connection implements PasswordEncryption {
                 .setSequenceIdentifier(sequenceIdentifier)
                 .setSource(this.getRegisteredClient().getIdentifier());
 
-        this.send(packet.getPacketString());
+        this.send(packet);
         if (this.getDebugMode()) this.logger.log("&5[ServerEvent] " + packet.getPacketString());
 
         return resultCollection;
@@ -283,30 +536,7 @@ public class ServerConnection extends Connection implements PasswordEncryption {
      * procsesses will stop when this connection is waiting.
      */
     public void start() {
-        this.running = true;
-        this.isValid = false;
-
-        // Start time out checker.
-        // Used to check if the connection has sent the password quick enough.
-        this.startTimeOutChecker();
-
-        // Validate the client.
-        boolean valid = this.validate();
-        if (!valid) {
-
-            // Don't log as it should have been explained in the validate method.
-            this.disconnect(false);
-            return;
-        }
-
-        // Check if it should remove duplicate names.
-        if (this.server.kickDuplicateNames()) {
-            this.removeDuplicateNames();
-        }
-
-        // Start the stay an alive checker.
-        // Used to check if the client is still connected.
-        this.startStayAliveChecker();
+        this.open();
 
         // Start the connection loop.
         while (running) {
@@ -320,20 +550,18 @@ public class ServerConnection extends Connection implements PasswordEncryption {
                 }
 
                 // Wait and read the incoming data.
-                String data = this.read();
+                Frame frame = this.readFrame();
 
                 // Check if the data is null.
-                if (data == null) {
-                    this.logger.log("[-] Client disconnected from the server.");
-                    this.disconnect(false);
+                if (frame == null) {
+                    this.onDisconnect();
                     return;
                 }
 
-                // Convert the data to a packet.
-                new Thread(() -> {
-                    Packet packet = Packet.getPacket(data);
-                    this.packetManager.interpret(packet);
-                }).start();
+                this.receive(frame);
+
+                // Stop reading while the dispatch executor catches up.
+                this.server.getDispatchExecutor().awaitAvailable(() -> !this.running);
 
             } catch (IOException exception) {
                 exception.printStackTrace();
@@ -341,6 +569,72 @@ public class ServerConnection extends Connection implements PasswordEncryption {
         }
     }
 
+    /**
+     * Used to open the connection.
+     * This will start the validation by sending the salt.
+     * The rest of the validation is done as the data
+     * is passed to {@link ServerConnection#receive(Frame)}.
+     */
+    public void open() {
+        this.running = true;
+        this.isValid = false;
+        this.isPasswordAccepted = false;
+
+        // Start time out checker.
+        // Used to check if the connection has sent the password quick enough.
+        this.startTimeOutChecker();
+
+        if (this.getDebugMode()) this.logger.log("[DEBUG] Validating client.");
+
+        // Generate the salt.
+        // This will be used to encrypt the password.
+        this.salt = this.createSalt();
+        if (this.getDebugMode()) this.logger.log("[DEBUG] Created salt: " + Arrays.toString(this.salt));
+
+        // Send the salt so the client can encrypt the password.
+        this.send(this.salt);
+    }
+
+    @Override
+    public void receive(@NotNull Frame frame) {
+
+        // Check if the client is still sending the password.
+        if (!this.isPasswordAccepted) {
+            byte[] salt = this.salt;
+            if (salt == null) return;
+            this.salt = null;
+
+            // Hashing the password is slow, so it
+            // is checked off the reading thread.
+            this.server.getConnectionExecutor().execute(() -> this.validate(frame.getPayloadString(), salt));
+            return;
+        }
+
+        // Check if the client has sent its identifier.
+        if (!this.isValid) {
+            this.identify(frame.getPayloadString());
+            return;
+        }
+
+        // Route the frame in this connection's lane,
+        // so packets are handled in the order they were sent.
+        DispatchExecutor dispatchExecutor = this.server.getDispatchExecutor();
+        dispatchExecutor.execute(this, () -> this.packetManager.interpret(frame));
+
+        // Stop reading the channel while the dispatch executor catches up.
+        // Blocking readers wait after receiving instead.
+        if (this.channel != null && dispatchExecutor.isSaturated()) {
+            this.channel.pauseReading();
+            dispatchExecutor.onAvailable(this.channel::resumeReading);
+        }
+    }
+
+    @Override
+    public void onDisconnect() {
+        this.logger.log("[-] Client disconnected from the server.");
+        this.disconnect(false);
+    }
+
     /**
      * Starts the time-out checker task.
      * This task will check if the client was validated
@@ -394,67 +688,101 @@ public class ServerConnection extends Connection implements PasswordEncryption {
      * from the server.
      */
     public void removeDuplicateNames() {
-        for (ServerConnection serverConnection : new ArrayList<>(this.server.getConnectionList())) {
+        for (ServerConnection serverConnection : new ArrayList<>(this.server.getConnectionRegistry().getByName(this.getName()))) {
+            if (serverConnection == this) continue;
             if (serverConnection.getIdentifier().equals(this.getIdentifier())) continue;
-            if (!serverConnection.getName().equals(this.getName())) continue;
             this.logger.log("[-] Disconnected client as a client with the same name or identifier connected.");
             serverConnection.disconnect(false);
         }
-        this.server.cleanConnectionList();
     }
 
     /**
-     * Used to check if the client is valid.
-     * This is called when the connection is created
-     * to check if the client can connect to the server.
+     * Used to check if the password sent by the client is valid.
+     * If the password is incorrect the client will be disconnected.
      *
-     * @return True if the client was validated.
+     * @param data The encrypted password sent by the client.
+     * @param salt The salt that was sent to the client.
      */
-    private boolean validate() {
+    private void validate(@NotNull String data, byte @NotNull [] salt) {
         try {
 
-            if (this.getDebugMode()) this.logger.log("[DEBUG] Validating client.");
-            this.isValid = false;
-
-            // Generate the salt.
-            // This will be used to encrypt the password.
-            byte[] salt = this.createSalt();
-            if (this.getDebugMode()) this.logger.log("[DEBUG] Created salt: " + salt);
-
-            // Send the salt so the client can encrypt the password.
-            this.send(salt);
-
-            // Read the encrypted password.
-            byte[] password = this.readBytes();
-            if (this.getSocket() == null || this.getSocket().isClosed()) {
-                this.logger.log("[-] Disconnecting client due to the socket closing.");
-                return false;
-            }
-
             // Check if the password is incorrect.
-            if (!Arrays.equals(password, this.server.getHashedPassword(salt))) {
+            if (!Arrays.equals(Connection.parseBytes(data), this.server.getHashedPassword(salt))) {
                 this.logger.log("[-] Disconnecting client due to the password being incorrect.");
                 this.send("0");
-                return false;
+                this.disconnect(false);
+                return;
             }
 
-            this.isValid = true;
-            this.send("1");
-
-            // Get the client identifier.
-            String identifierAndName = this.read();
-            this.identifier = identifierAndName.split(":")[0];
-            this.name = identifierAndName.split(":")[1];
-
-            this.logger = this.logger.createExtension("[&r" + this.name + "&7] ");
-            this.logger.log("&aClient was validated.");
-            return true;
+            // Let the client know the password was correct
+            // and which capabilities can be used.
+            this.isPasswordAccepted = true;
+            this.send(Capability.append("1", this.server.getCapabilities()));
 
         } catch (Exception exception) {
+            this.logger.warn("Exception occurred while validating a client.");
+            this.disconnect(false);
             throw new RuntimeException(exception);
         }
     }
 
+    /**
+     * Used to set the client's identifier and name.
+     * This is the last step of validation.
+     * If the client also sent the framed capability,
+     * everything after this will be sent as frames.
+     *
+     * @param identifierAndName The identifier, name and capabilities
+     *                          separated by colons.
+     */
+    private void identify(@NotNull String identifierAndName) {
+        String[] parts = identifierAndName.split(Capability.SEPARATOR);
+        this.identifier = parts[0];
+        this.name = parts[1];
+        Set<String> capabilities = Capability.parse(identifierAndName, 2);
+
+        // Check if the client would like to use frames.
+        if (capabilities.contains(Capability.FRAMED) && this.server.isFramedProtocolEnabled()) {
+            this.setFramed(true);
+            if (this.channel != null) this.channel.setFramed(true);
+        }
+
+        this.setNestedData(capabilities.contains(Capability.NESTED_DATA));
+
+        // Set once framing is decided, as other
+        // threads may start sending to the client.
+        this.capabilities = capabilities;
+
+        // Send the numbers already given to classes.
+        if (this.hasCapability(Capability.TYPE_IDS) && !this.server.getTypeRegistry().getEntries().isEmpty()) {
+            this.sendPacket(new Packet()
+                    .setType(PacketType.TYPE_IDS)
+                    .setData(this.server.getTypeRegistry().getEntries())
+            );
+        }
+
+        // Send every event to the client until
+        // it sends the events it listens to.
+        this.server.getSubscriptionIndex().subscribeAll(this);
+        this.isValid = true;
+        this.server.getConnectionRegistry().index(this);
+
+        this.logger = this.logger.createExtension("[&r" + this.name + "&7] ");
+        this.logger.log("&aClient was validated.");
+
+        // Check if it should remove duplicate names.
+        if (this.server.kickDuplicateNames()) {
+            this.removeDuplicateNames();
+        }
+
+        // Start the stay an alive checker.
+        // Used to check if the client is still connected.
+        this.startStayAliveChecker();
+
+        // Let the clients know a client has joined.
+        this.server.getConnectionExecutor().execute(this.server::broadcastClientAmount);
+    }
+
     /**
      * Used to disconnect the client from the server.
      */
@@ -484,4 +812,19 @@ public class ServerConnection extends Connection implements PasswordEncryption {
             throw new RuntimeException(exception);
         }
     }
+
+    /**
+     * Represents a balanced event sent to this client
+     * that it has not replied to.
+     */
+    private static class Outstanding {
+
+        private final @NotNull ServerConnection caller;
+        private final @NotNull Task timeOutTask;
+
+        private Outstanding(@NotNull ServerConnection caller, @NotNull Task timeOutTask) {
+            this.caller = caller;
+            this.timeOutTask = timeOutTask;
+        }
+    }
 }
@@ -20,8 +20,12 @@
 
 package com.github.kerbity.kerb.server;
 
+import com.github.kerbity.kerb.packet.Frame;
 import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketHeader;
 import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.TypeRegistry;
 import com.github.kerbity.kerb.server.packetmanager.*;
 import org.jetbrains.annotations.NotNull;
 
@@ -34,6 +38,7 @@ import java.util.List;
  */
 public class ServerConnectionPacketManager {
 
+    private final @NotNull ServerConnection connection;
     private final @NotNull List<PacketManager> packetManagerList;
 
     /**
@@ -43,12 +48,69 @@ public class ServerConnectionPacketManager {
      */
     public ServerConnectionPacketManager(@NotNull ServerConnection connection) {
 
+        this.connection = connection;
         this.packetManagerList = new ArrayList<>();
         this.packetManagerList.add(new ClientAmountPacketManager(connection));
         this.packetManagerList.add(new EventPacketManger(connection));
         this.packetManagerList.add(new EventResultPacketManager(connection));
         this.packetManagerList.add(new ObjectPacketManager(connection));
         this.packetManagerList.add(new ServerEventPacketManager(connection));
+        this.packetManagerList.add(new SubscriptionPacketManager(connection));
+        this.packetManagerList.add(new ChannelPacketManager(connection));
+    }
+
+    /**
+     * Used to interpret a frame.
+     * Packets that only need routing are relayed using
+     * their header, so the rest of the packet is not parsed.
+     *
+     * @param frame The instance of a frame.
+     */
+    public void interpret(@NotNull Frame frame) {
+        PacketHeader header = PacketHeader.read(frame.getPayload());
+        if (header == null) {
+            this.interpret(Packet.getPacket(frame));
+            return;
+        }
+
+        PacketType type = header.getType();
+
+        // Check if the packet names an event or object class.
+        if (header.getIdentifier() != null
+                && (type == PacketType.EVENT || type == PacketType.EVENT_RESULT || type == PacketType.OBJECT)) {
+
+            // Route using the class name the number was given to.
+            if (TypeRegistry.isCompact(header.getIdentifier())) {
+                String name = this.connection.getServer().getTypeRegistry().getName(header.getIdentifier());
+                if (name == null) {
+                    this.connection.getLogger().warn("Received a packet with an unknown type number. identifier=" + header.getIdentifier());
+                    return;
+                }
+                header = header.withIdentifier(name);
+            }
+
+            // Otherwise, give the class a number for later packets.
+            else {
+                this.connection.getServer().registerType(header.getIdentifier());
+            }
+        }
+
+        for (PacketManager manager : this.packetManagerList) {
+            if (!manager.getPacketType().equals(type)) continue;
+
+            if (manager instanceof RelayPacketManager relayPacketManager) {
+
+                // Keep the type code when the frame was read as a line.
+                relayPacketManager.relay(header, frame.getType() == Frame.UNKNOWN_TYPE
+                        ? new Frame(type.getCode(), frame.getPayload())
+                        : frame
+                );
+                return;
+            }
+
+            manager.interpret(Packet.getPacket(frame));
+            return;
+        }
     }
 
     /**
@@ -0,0 +1,172 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server;
+
+import com.github.kerbity.kerb.packet.Capability;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Represents the index of which connections
+ * are subscribed to which keys, such as events or channels.
+ * <ul>
+ *     <li>Connections subscribed to the all key are kept in one set and receive every key.</li>
+ *     <li>Other connections are kept in a set for each key they are subscribed to.</li>
+ *     <li>Updates are locked, getting the recipients of a key is not.</li>
+ * </ul>
+ */
+public class SubscriptionIndex {
+
+    private final @NotNull Map<String, Set<ServerConnection>> connectionMap;
+    private final @NotNull Set<ServerConnection> allEventsSet;
+    private final @NotNull Map<ServerConnection, Set<String>> subscriptionMap;
+    private final @NotNull ReentrantLock lock;
+    private final @Nullable String allKey;
+
+    /**
+     * Used to create an empty subscription index
+     * for event identifiers.
+     */
+    public SubscriptionIndex() {
+        this(Capability.ALL_EVENTS);
+    }
+
+    /**
+     * Used to create an empty subscription index.
+     *
+     * @param allKey The key that subscribes a connection
+     *               to every key. Null if there isn't one.
+     */
+    public SubscriptionIndex(@Nullable String allKey) {
+        this.allKey = allKey;
+        this.connectionMap = new ConcurrentHashMap<>();
+        this.allEventsSet = ConcurrentHashMap.newKeySet();
+        this.subscriptionMap = new HashMap<>();
+        this.lock = new ReentrantLock();
+    }
+
+    /**
+     * Used to subscribe a connection to every key.
+     * For events, connections start like this until
+     * they send the events they listen to.
+     *
+     * @param connection The instance of the connection.
+     */
+    public void subscribeAll(@NotNull ServerConnection connection) {
+        if (this.allKey == null) return;
+        this.update(connection, Set.of(this.allKey));
+    }
+
+    /**
+     * Used to replace the keys a connection is subscribed to.
+     *
+     * @param connection    The instance of the connection.
+     * @param subscriptions The keys it is subscribed to.
+     */
+    public void update(@NotNull ServerConnection connection, @NotNull Set<String> subscriptions) {
+        this.lock.lock();
+        try {
+            this.removeUnlocked(connection);
+
+            // Check if the connection was disconnected
+            // before the update was received.
+            if (connection.isClosed()) return;
+
+            this.subscriptionMap.put(connection, subscriptions);
+
+            if (this.allKey != null && subscriptions.contains(this.allKey)) {
+                this.allEventsSet.add(connection);
+                return;
+            }
+
+            for (String identifier : subscriptions) {
+                this.connectionMap.computeIfAbsent(identifier, key -> ConcurrentHashMap.newKeySet())
+                        .add(connection);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Used to remove a connection from the index.
+     *
+     * @param connection The instance of the connection.
+     */
+    public void remove(@NotNull ServerConnection connection) {
+        this.lock.lock();
+        try {
+            this.removeUnlocked(connection);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Used to get the connections subscribed to a key.
+     *
+     * @param identifier The key, such as an event identifier.
+     * @return The list of connections.
+     */
+    public @NotNull List<ServerConnection> getRecipients(@NotNull String identifier) {
+        Set<ServerConnection> subscribed = this.connectionMap.get(identifier);
+        List<ServerConnection> recipients = new ArrayList<>(
+                this.allEventsSet.size() + (subscribed == null ? 0 : subscribed.size())
+        );
+
+        recipients.addAll(this.allEventsSet);
+        if (subscribed != null) recipients.addAll(subscribed);
+        return recipients;
+    }
+
+    /**
+     * Used to get the keys a connection is subscribed to.
+     *
+     * @param connection The instance of the connection.
+     * @return The set of keys.
+     */
+    public @NotNull Set<String> getSubscriptions(@NotNull ServerConnection connection) {
+        this.lock.lock();
+        try {
+            return this.subscriptionMap.getOrDefault(connection, Set.of());
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void removeUnlocked(@NotNull ServerConnection connection) {
+        Set<String> subscriptions = this.subscriptionMap.remove(connection);
+        if (subscriptions == null) return;
+
+        this.allEventsSet.remove(connection);
+        for (String identifier : subscriptions) {
+            Set<ServerConnection> connectionSet = this.connectionMap.get(identifier);
+            if (connectionSet == null) continue;
+
+            connectionSet.remove(connection);
+            if (connectionSet.isEmpty()) this.connectionMap.remove(identifier);
+        }
+    }
+}
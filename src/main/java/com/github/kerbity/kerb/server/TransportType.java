@@ -0,0 +1,84 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents the types of transport the
+ * server can use to handle connections.
+ */
+public enum TransportType {
+
+    /**
+     * Each connection is read on its own thread
+     * using blocking sockets.
+     */
+    BLOCKING("blocking"),
+
+    /**
+     * Connections are handled by a small fixed number
+     * of event loop threads using non-blocking channels.
+     */
+    NIO("nio");
+
+    private final @NotNull String identifier;
+
+    /**
+     * Used to create a transport type.
+     *
+     * @param identifier The transport identifier.
+     */
+    TransportType(@NotNull String identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Used to get the transport identifier.
+     * This is the value used in the configuration.
+     *
+     * @return The transport identifier.
+     */
+    public @NotNull String getIdentifier() {
+        return this.identifier;
+    }
+
+    @Override
+    public String toString() {
+        return this.identifier;
+    }
+
+    /**
+     * Used to get the instance of a transport type
+     * from a transport identifier.
+     *
+     * @param identifier The transport identifier.
+     * @return The requested transport type.
+     * Null if the transport type doesn't exist.
+     */
+    public static @Nullable TransportType fromIdentifier(@NotNull String identifier) {
+        for (TransportType type : TransportType.values()) {
+            if (type.getIdentifier().equalsIgnoreCase(identifier)) return type;
+        }
+        return null;
+    }
+}
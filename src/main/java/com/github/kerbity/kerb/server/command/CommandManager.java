@@ -24,6 +24,7 @@ import com.github.kerbity.kerb.server.Server;
 import com.github.kerbity.kerb.server.command.command.DebugCommand;
 import com.github.kerbity.kerb.server.command.command.HelpCommand;
 import com.github.kerbity.kerb.server.command.command.ListCommand;
+import com.github.kerbity.kerb.server.command.command.TypesCommand;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
@@ -47,6 +48,7 @@ public class CommandManager {
         this.commandList.add(new DebugCommand());
         this.commandList.add(new ListCommand());
         this.commandList.add(new HelpCommand());
+        this.commandList.add(new TypesCommand());
     }
 
     /**
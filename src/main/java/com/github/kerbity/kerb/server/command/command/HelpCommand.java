@@ -35,10 +35,11 @@ public class HelpCommand implements Command {
     public void execute(@NotNull Server server, @NotNull String command) {
 
         // Create a new logger.
-        server.getLogger().log("&rCommands &e3 &7[");
+        server.getLogger().log("&rCommands &e4 &7[");
         server.getLogger().log("  &rhelp &7Lists the commands you can execute.");
         server.getLogger().log("  &rdebug <true/false> &7Used to toggle the servers debug mode.");
         server.getLogger().log("  &rlist &7Used to list the current clients connected.");
+        server.getLogger().log("  &rtypes &7Used to show the cached event and object classes.");
         server.getLogger().log("&7]");
     }
 }
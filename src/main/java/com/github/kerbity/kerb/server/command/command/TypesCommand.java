@@ -0,0 +1,50 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.command.command;
+
+import com.github.kerbity.kerb.packet.TypeCache;
+import com.github.kerbity.kerb.server.Server;
+import com.github.kerbity.kerb.server.command.Command;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents the types command.
+ * Used to show the cached event and object classes.
+ */
+public class TypesCommand implements Command {
+
+    @Override
+    public @NotNull String getIdentifier() {
+        return "types";
+    }
+
+    @Override
+    public void execute(@NotNull Server server, @NotNull String command) {
+        TypeCache cache = TypeCache.getShared();
+
+        server.getLogger().log("&rTypes &7[");
+        server.getLogger().log("  &7numbers:&r" + server.getTypeRegistry().getEntries().size());
+        server.getLogger().log("  &7cached:&r" + cache.getSize());
+        server.getLogger().log("  &7hits:&r" + cache.getHits());
+        server.getLogger().log("  &7misses:&r" + cache.getMisses());
+        server.getLogger().log("&7]");
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.nio;
+
+import com.github.kerbity.kerb.packet.Frame;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a handler for a non-blocking channel.
+ * The methods are called on the channel's event loop thread,
+ * so they should not block for long periods of time.
+ */
+public interface ChannelHandler {
+
+    /**
+     * Called when a frame is read from the channel.
+     * When the channel is not framed, each line
+     * is given as a frame with an unknown type.
+     *
+     * @param frame The frame that was read.
+     */
+    void receive(@NotNull Frame frame);
+
+    /**
+     * Called when the other side closes the channel.
+     */
+    void onDisconnect();
+}
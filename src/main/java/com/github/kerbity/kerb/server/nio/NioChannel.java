@@ -0,0 +1,603 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.nio;
+
+import com.github.kerbity.kerb.packet.Frame;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Represents a non-blocking ssl connection.
+ * All reading, writing and handshaking is done
+ * on the event loop thread the channel is registered with.
+ * Data can be written from any thread.
+ * <p>
+ * The amount of bytes waiting to be sent is capped.
+ * If a slow consumer lets it grow past the cap,
+ * the channel will be disconnected.
+ */
+public class NioChannel {
+
+    private static final @NotNull ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final @NotNull SocketChannel channel;
+    private final @NotNull SSLEngine engine;
+    private final @NotNull NioEventLoop eventLoop;
+    private final @NotNull Queue<ByteBuffer> writeQueue;
+    private final @NotNull AtomicLong pendingBytes;
+    private long maxPendingBytes;
+    private final @NotNull ByteArrayOutputStream lineBuffer;
+    private final @NotNull ByteBuffer frameHeader;
+    private byte @Nullable [] framePayload;
+    private int framePosition;
+    private byte frameType;
+    private @Nullable ChannelHandler handler;
+    private @Nullable SelectionKey key;
+
+    private @NotNull ByteBuffer networkIn;
+    private @NotNull ByteBuffer networkOut;
+    private @NotNull ByteBuffer applicationIn;
+
+    private boolean handshakeComplete;
+    private boolean paused;
+    private volatile boolean framed;
+    private volatile boolean disconnected;
+
+    /**
+     * Used to create a new non-blocking channel.
+     *
+     * @param channel   The instance of the socket channel.
+     *                  This should already be in non-blocking mode.
+     * @param engine    The instance of the ssl engine.
+     * @param eventLoop The event loop that will handle this channel.
+     */
+    public NioChannel(@NotNull SocketChannel channel, @NotNull SSLEngine engine, @NotNull NioEventLoop eventLoop) {
+        this.channel = channel;
+        this.engine = engine;
+        this.eventLoop = eventLoop;
+        this.writeQueue = new ConcurrentLinkedQueue<>();
+        this.pendingBytes = new AtomicLong();
+        this.maxPendingBytes = Long.MAX_VALUE;
+        this.lineBuffer = new ByteArrayOutputStream();
+        this.frameHeader = ByteBuffer.allocate(Frame.HEADER_SIZE);
+
+        int packetSize = engine.getSession().getPacketBufferSize();
+        this.networkIn = ByteBuffer.allocate(packetSize);
+        this.networkOut = ByteBuffer.allocate(packetSize);
+        this.applicationIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+    }
+
+    /**
+     * Used to get the instance of the socket channel.
+     *
+     * @return The instance of the socket channel.
+     */
+    public @NotNull SocketChannel getChannel() {
+        return this.channel;
+    }
+
+    /**
+     * Used to get the event loop that handles this channel.
+     *
+     * @return The instance of the event loop.
+     */
+    public @NotNull NioEventLoop getEventLoop() {
+        return this.eventLoop;
+    }
+
+    /**
+     * Used to get the socket view of the channel.
+     * This can be used to get the address and check
+     * if the channel has been closed.
+     *
+     * @return The socket view of the channel.
+     */
+    public @NotNull Socket getSocket() {
+        return this.channel.socket();
+    }
+
+    /**
+     * Used to set the handler that will receive the
+     * data read from this channel.
+     *
+     * @param handler The instance of the handler.
+     * @return This instance.
+     */
+    public @NotNull NioChannel setHandler(@NotNull ChannelHandler handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    /**
+     * Used to set if the data read from the channel
+     * should be decoded as frames instead of lines.
+     * This can be changed while data is being decoded,
+     * as each message is decoded using the current mode.
+     *
+     * @param framed True if the data should be decoded as frames.
+     * @return This instance.
+     */
+    public @NotNull NioChannel setFramed(boolean framed) {
+        this.framed = framed;
+        return this;
+    }
+
+    /**
+     * Used to set the max number of bytes that can be
+     * waiting to be sent before the channel is disconnected.
+     * A single write larger than the cap is still allowed
+     * when nothing else is waiting to be sent.
+     *
+     * @param maxPendingBytes The max number of pending bytes.
+     * @return This instance.
+     */
+    public @NotNull NioChannel setMaxPendingBytes(long maxPendingBytes) {
+        this.maxPendingBytes = maxPendingBytes;
+        return this;
+    }
+
+    /**
+     * Used to get the number of bytes that have been
+     * written but not yet handed to the ssl engine.
+     *
+     * @return The number of pending bytes.
+     */
+    public long getPendingBytes() {
+        return this.pendingBytes.get();
+    }
+
+    /**
+     * Used to stop reading from the channel.
+     * Data that has already been read is kept until
+     * {@link NioChannel#resumeReading()} is called.
+     * This should only be called on the event loop,
+     * for example, by the handler while receiving.
+     *
+     * @return This instance.
+     */
+    public @NotNull NioChannel pauseReading() {
+        this.paused = true;
+        this.updateInterest();
+        return this;
+    }
+
+    /**
+     * Used to continue reading from the channel.
+     * The data kept while paused is handled first.
+     * This can be called from any thread.
+     *
+     * @return This instance.
+     */
+    public @NotNull NioChannel resumeReading() {
+        this.eventLoop.execute(() -> {
+            if (!this.paused || this.disconnected) return;
+            this.paused = false;
+
+            try {
+                this.decode();
+                if (!this.paused) this.unwrap();
+                this.flushNetwork();
+            } catch (IOException exception) {
+                this.onDisconnect();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Used to get an output stream that writes to this channel.
+     * The bytes are queued without being copied, so they should
+     * not be modified after being written. The queued bytes are
+     * sent by the event loop when the stream is flushed.
+     *
+     * @return The output stream.
+     */
+    public @NotNull OutputStream getOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int value) {
+                NioChannel.this.queue(ByteBuffer.wrap(new byte[]{(byte) value}));
+            }
+
+            @Override
+            public void write(byte @NotNull [] bytes, int offset, int length) {
+                NioChannel.this.queue(ByteBuffer.wrap(bytes, offset, length));
+            }
+
+            @Override
+            public void flush() {
+                NioChannel.this.flush();
+            }
+        };
+    }
+
+    /**
+     * Used to write bytes to the channel.
+     * This can be called from any thread.
+     *
+     * @param bytes The bytes to write.
+     *              These should not be modified after.
+     * @return This instance.
+     */
+    public @NotNull NioChannel write(byte @NotNull [] bytes) {
+        this.queue(ByteBuffer.wrap(bytes));
+        return this.flush();
+    }
+
+    /**
+     * Used to ask the event loop to send the queued bytes.
+     * This can be called from any thread.
+     *
+     * @return This instance.
+     */
+    public @NotNull NioChannel flush() {
+        if (this.disconnected) return this;
+
+        this.eventLoop.execute(() -> {
+            try {
+                this.flushWriteQueue();
+            } catch (IOException exception) {
+                this.onDisconnect();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Used to add a buffer to the write queue.
+     * If this puts the channel over its pending byte cap,
+     * the buffer is dropped and the channel is disconnected.
+     *
+     * @param buffer The buffer to queue.
+     */
+    private void queue(@NotNull ByteBuffer buffer) {
+        if (this.disconnected) return;
+
+        int length = buffer.remaining();
+        long pending = this.pendingBytes.addAndGet(length);
+
+        // Check if the consumer is not keeping up.
+        if (pending > this.maxPendingBytes && pending != length) {
+            this.eventLoop.getLogger().warn("Disconnecting a channel that has "
+                    + pending + " bytes waiting to be sent, which is more than the max of "
+                    + this.maxPendingBytes + ".");
+            this.eventLoop.execute(this::onDisconnect);
+            return;
+        }
+
+        this.writeQueue.add(buffer);
+    }
+
+    /**
+     * Called by the event loop when the channel
+     * has been registered with its selector.
+     *
+     * @param key The channel's selection key.
+     * @throws IOException If the handshake could not be started.
+     */
+    protected void onRegister(@NotNull SelectionKey key) throws IOException {
+        this.key = key;
+        this.engine.beginHandshake();
+        this.handshake(this.engine.getHandshakeStatus());
+        this.flushNetwork();
+    }
+
+    /**
+     * Called by the event loop when there is
+     * data to read from the channel.
+     *
+     * @throws IOException If the data could not be read.
+     */
+    protected void onReadable() throws IOException {
+        int read = 0;
+        while (!this.paused && (read = this.channel.read(this.networkIn)) > 0) {
+            this.unwrap();
+            if (this.disconnected || !this.channel.isOpen()) return;
+        }
+
+        // Check if the other side closed the channel.
+        if (read < 0) {
+            this.onDisconnect();
+            return;
+        }
+
+        this.flushNetwork();
+    }
+
+    /**
+     * Called by the event loop when the channel
+     * can be written to again.
+     *
+     * @throws IOException If the data could not be written.
+     */
+    protected void onWritable() throws IOException {
+        this.flushNetwork();
+
+        // Continue wrapping the queue once the
+        // network buffer has been sent.
+        if (this.networkOut.position() == 0) this.flushWriteQueue();
+    }
+
+    /**
+     * Called when the channel should be treated
+     * as disconnected. The handler is only told once.
+     */
+    protected void onDisconnect() {
+        if (this.disconnected) return;
+        this.disconnected = true;
+
+        try {
+            this.channel.close();
+        } catch (IOException ignored) {
+        }
+
+        if (this.handler != null) this.handler.onDisconnect();
+    }
+
+    private void unwrap() throws IOException {
+        this.networkIn.flip();
+
+        while (this.networkIn.hasRemaining() && !this.paused) {
+            SSLEngineResult result = this.engine.unwrap(this.networkIn, this.applicationIn);
+
+            // Check if the application buffer is too small.
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                this.applicationIn = NioChannel.grow(this.applicationIn, this.engine.getSession().getApplicationBufferSize());
+                continue;
+            }
+
+            // Check if the rest of the record has not arrived yet.
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) break;
+
+            // Check if the other side closed the ssl session.
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                this.onDisconnect();
+                return;
+            }
+
+            this.decode();
+            this.handshake(result.getHandshakeStatus());
+            if (this.disconnected || !this.channel.isOpen()) return;
+
+            // Stop if nothing happened, so it doesn't spin.
+            if (result.bytesConsumed() == 0 && result.bytesProduced() == 0
+                    && result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) break;
+        }
+
+        this.networkIn.compact();
+
+        // Check if a full record wont fit in the buffer.
+        if (!this.paused && !this.networkIn.hasRemaining()) {
+            this.networkIn = NioChannel.grow(this.networkIn, this.engine.getSession().getPacketBufferSize());
+        }
+    }
+
+    private @NotNull SSLEngineResult.HandshakeStatus wrap(@NotNull ByteBuffer source) throws IOException {
+        while (true) {
+            SSLEngineResult result = this.engine.wrap(source, this.networkOut);
+
+            // Check if the network buffer is too small.
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                this.networkOut = NioChannel.grow(this.networkOut, this.engine.getSession().getPacketBufferSize());
+                continue;
+            }
+
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                throw new SSLException("Attempted to write to a closed ssl engine.");
+            }
+
+            return result.getHandshakeStatus();
+        }
+    }
+
+    /**
+     * Used to wrap as much of a buffer as will fit
+     * in the network buffer. The network buffer is only
+     * grown when a single record will not fit in it empty.
+     *
+     * @param source The buffer to wrap.
+     * @return False if the network buffer became full
+     * before the whole buffer was wrapped.
+     * @throws IOException If the ssl engine was closed.
+     */
+    private boolean wrapAvailable(@NotNull ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            SSLEngineResult result = this.engine.wrap(source, this.networkOut);
+
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                throw new SSLException("Attempted to write to a closed ssl engine.");
+            }
+
+            // Check if the network buffer is too small.
+            if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                if (this.networkOut.position() > 0) return false;
+                this.networkOut = NioChannel.grow(this.networkOut, this.engine.getSession().getPacketBufferSize());
+            }
+        }
+        return true;
+    }
+
+    private void handshake(@NotNull SSLEngineResult.HandshakeStatus status) throws IOException {
+        while (true) {
+            switch (status) {
+                case NEED_TASK -> {
+                    Runnable task;
+                    while ((task = this.engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                    status = this.engine.getHandshakeStatus();
+                }
+                case NEED_WRAP -> status = this.wrap(EMPTY);
+                case FINISHED, NOT_HANDSHAKING -> {
+                    if (this.handshakeComplete) return;
+                    this.handshakeComplete = true;
+                    this.flushWriteQueue();
+                    return;
+                }
+                default -> {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flushWriteQueue() throws IOException {
+        if (!this.handshakeComplete) return;
+        if (this.disconnected || !this.channel.isOpen()) return;
+
+        ByteBuffer buffer;
+        while ((buffer = this.writeQueue.peek()) != null) {
+            int remaining = buffer.remaining();
+            boolean wrapped = this.wrapAvailable(buffer);
+            this.pendingBytes.addAndGet(buffer.remaining() - remaining);
+            if (!buffer.hasRemaining()) this.writeQueue.poll();
+            if (wrapped) continue;
+
+            // The network buffer is full, so attempt to send it.
+            // If the socket can't take it, the rest of the queue
+            // is left until the channel is writable again.
+            this.flushNetwork();
+            if (this.networkOut.position() > 0) return;
+        }
+
+        this.flushNetwork();
+    }
+
+    private void flushNetwork() throws IOException {
+        if (this.disconnected || !this.channel.isOpen()) return;
+
+        this.networkOut.flip();
+        this.channel.write(this.networkOut);
+        this.networkOut.compact();
+        this.updateInterest();
+    }
+
+    private void updateInterest() {
+        if (this.key == null || !this.key.isValid()) return;
+
+        // Only listen for read events while not paused and
+        // write events while there is data left over.
+        int interest = this.paused ? 0 : SelectionKey.OP_READ;
+        if (this.networkOut.position() > 0) interest |= SelectionKey.OP_WRITE;
+        this.key.interestOps(interest);
+    }
+
+    private void decode() throws IOException {
+        this.applicationIn.flip();
+
+        while (this.applicationIn.hasRemaining() && !this.paused) {
+            if (this.framed) this.decodeFrame();
+            else this.decodeLine();
+        }
+
+        // Keep anything left over from pausing.
+        this.applicationIn.compact();
+    }
+
+    private void decodeLine() throws IOException {
+        while (this.applicationIn.hasRemaining()) {
+            byte value = this.applicationIn.get();
+
+            if (value != '\n') {
+
+                // Check if the line is too long, so the other side
+                // can't fill the memory before it has been validated.
+                if (this.lineBuffer.size() >= Frame.MAX_PAYLOAD_SIZE) {
+                    throw new IOException("Received a line longer than " + Frame.MAX_PAYLOAD_SIZE + " bytes.");
+                }
+
+                this.lineBuffer.write(value);
+                continue;
+            }
+
+            // A full line has been read.
+            byte[] line = this.lineBuffer.toByteArray();
+            this.lineBuffer.reset();
+            if (line.length > 0 && line[line.length - 1] == '\r') line = Arrays.copyOf(line, line.length - 1);
+            if (this.handler != null) this.handler.receive(new Frame(Frame.UNKNOWN_TYPE, line));
+            return;
+        }
+    }
+
+    private void decodeFrame() throws IOException {
+
+        // Read the header if the payload has not been started.
+        if (this.framePayload == null) {
+            while (this.frameHeader.hasRemaining() && this.applicationIn.hasRemaining()) {
+                this.frameHeader.put(this.applicationIn.get());
+            }
+            if (this.frameHeader.hasRemaining()) return;
+
+            this.frameHeader.flip();
+            int length = this.frameHeader.getInt();
+            this.frameType = this.frameHeader.get();
+            this.frameHeader.clear();
+
+            if (length < 0 || length > Frame.MAX_PAYLOAD_SIZE) {
+                throw new IOException("Received a frame with an invalid length of " + length + ".");
+            }
+
+            this.framePayload = new byte[length];
+            this.framePosition = 0;
+        }
+
+        // Read as much of the payload as possible.
+        int amount = Math.min(this.applicationIn.remaining(), this.framePayload.length - this.framePosition);
+        this.applicationIn.get(this.framePayload, this.framePosition, amount);
+        this.framePosition += amount;
+        if (this.framePosition < this.framePayload.length) return;
+
+        // A full frame has been read.
+        Frame frame = new Frame(this.frameType, this.framePayload);
+        this.framePayload = null;
+        if (this.handler != null) this.handler.receive(frame);
+    }
+
+    /**
+     * Used to create a larger copy of a buffer.
+     * The buffer should be in write mode.
+     *
+     * @param buffer The buffer to grow.
+     * @param amount The amount of space to add.
+     * @return The new buffer in write mode.
+     */
+    private static @NotNull ByteBuffer grow(@NotNull ByteBuffer buffer, int amount) {
+        ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() + amount);
+        buffer.flip();
+        larger.put(buffer);
+        return larger;
+    }
+}
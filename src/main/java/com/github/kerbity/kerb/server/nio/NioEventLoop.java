@@ -0,0 +1,184 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.nio;
+
+import com.github.minemaniauk.developertools.console.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Represents a single event loop thread.
+ * Owns a selector and handles the reading and writing
+ * of every channel registered with it.
+ */
+public class NioEventLoop {
+
+    private final @NotNull Selector selector;
+    private final @NotNull Queue<Runnable> taskQueue;
+    private final @NotNull Logger logger;
+    private final @NotNull Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Used to create a new event loop.
+     * Use {@link NioEventLoop#start()} to start the thread.
+     *
+     * @param name   The name of the event loop thread.
+     * @param logger The instance of the logger.
+     * @throws IOException If the selector could not be opened.
+     */
+    public NioEventLoop(@NotNull String name, @NotNull Logger logger) throws IOException {
+        this.selector = Selector.open();
+        this.taskQueue = new ConcurrentLinkedQueue<>();
+        this.logger = logger;
+        this.thread = new Thread(this::loop, name);
+    }
+
+    /**
+     * Used to get the number of channels
+     * currently registered with this event loop.
+     *
+     * @return The number of registered channels.
+     */
+    public int getSize() {
+        return this.selector.keys().size();
+    }
+
+    /**
+     * Used to get the logger used by this event loop.
+     *
+     * @return The instance of the logger.
+     */
+    public @NotNull Logger getLogger() {
+        return this.logger;
+    }
+
+    /**
+     * Used to start the event loop thread.
+     *
+     * @return This instance.
+     */
+    public @NotNull NioEventLoop start() {
+        this.running = true;
+        this.thread.start();
+        return this;
+    }
+
+    /**
+     * Used to run a task on the event loop thread.
+     * This can be called from any thread.
+     *
+     * @param task The task to run.
+     * @return This instance.
+     */
+    public @NotNull NioEventLoop execute(@NotNull Runnable task) {
+        this.taskQueue.add(task);
+        this.selector.wakeup();
+        return this;
+    }
+
+    /**
+     * Used to register a channel with this event loop.
+     * The ssl handshake will begin once it is registered.
+     *
+     * @param channel The instance of the channel.
+     * @return This instance.
+     */
+    public @NotNull NioEventLoop register(@NotNull NioChannel channel) {
+        return this.execute(() -> {
+            try {
+                SelectionKey key = channel.getChannel().register(this.selector, SelectionKey.OP_READ, channel);
+                channel.onRegister(key);
+            } catch (IOException exception) {
+                this.logger.warn("Exception occurred while registering a channel. " + exception.getMessage());
+                channel.onDisconnect();
+            }
+        });
+    }
+
+    /**
+     * Used to stop the event loop.
+     * This will also close the selector.
+     */
+    public void stop() {
+        this.running = false;
+        this.selector.wakeup();
+    }
+
+    private void loop() {
+        while (this.running) {
+            try {
+
+                // Wait for channels to be ready.
+                this.selector.select();
+
+                // Handle the channels that are ready.
+                Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+                while (iterator.hasNext()) {
+                    SelectionKey key = iterator.next();
+                    iterator.remove();
+                    this.handle(key);
+                }
+
+                // Run the tasks given from other threads.
+                Runnable task;
+                while ((task = this.taskQueue.poll()) != null) {
+                    task.run();
+                }
+
+            } catch (ClosedSelectorException exception) {
+                return;
+
+            } catch (Exception exception) {
+                this.logger.warn("Exception occurred in the event loop.");
+                exception.printStackTrace();
+            }
+        }
+
+        try {
+            this.selector.close();
+        } catch (IOException exception) {
+            this.logger.warn("Exception occurred while closing the event loop selector.");
+        }
+    }
+
+    private void handle(@NotNull SelectionKey key) {
+        NioChannel channel = (NioChannel) key.attachment();
+
+        try {
+
+            if (key.isValid() && key.isReadable()) channel.onReadable();
+            if (key.isValid() && key.isWritable()) channel.onWritable();
+
+        } catch (Exception exception) {
+            this.logger.warn("Exception occurred while handling a channel.");
+            exception.printStackTrace();
+            channel.onDisconnect();
+        }
+    }
+}
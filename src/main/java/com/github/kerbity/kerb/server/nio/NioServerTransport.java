@@ -0,0 +1,157 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.nio;
+
+import com.github.minemaniauk.developertools.console.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the non-blocking server transport.
+ * Connections are accepted on the calling thread and
+ * then spread between a fixed number of event loops.
+ */
+public class NioServerTransport {
+
+    private final @NotNull SSLContext sslContext;
+    private final @NotNull Logger logger;
+    private final @NotNull List<NioEventLoop> eventLoopList;
+    private final @NotNull ServerSocketChannel serverChannel;
+    private final long maxPendingBytes;
+    private int nextEventLoop;
+
+    /**
+     * Used to create and bind a new non-blocking transport.
+     *
+     * @param sslContext      The ssl context used to create the ssl engines.
+     * @param port            The port to listen on.
+     * @param threads         The number of event loop threads.
+     * @param maxPendingBytes The max number of bytes each channel
+     *                        can have waiting to be sent.
+     * @param logger          The instance of the logger.
+     * @throws IOException If the server channel could not be bound.
+     */
+    public NioServerTransport(@NotNull SSLContext sslContext, int port, int threads, long maxPendingBytes, @NotNull Logger logger) throws IOException {
+        this.sslContext = sslContext;
+        this.maxPendingBytes = maxPendingBytes;
+        this.logger = logger;
+        this.eventLoopList = new ArrayList<>();
+        this.nextEventLoop = 0;
+
+        // Start the event loops.
+        for (int index = 0; index < Math.max(1, threads); index++) {
+            this.eventLoopList.add(new NioEventLoop("kerb-event-loop-" + index, logger).start());
+        }
+
+        // Bind the server channel.
+        // This is left blocking so accept can wait for connections.
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(port));
+    }
+
+    /**
+     * Used to get the socket view of the server channel.
+     *
+     * @return The server socket.
+     */
+    public @NotNull ServerSocket getSocket() {
+        return this.serverChannel.socket();
+    }
+
+    /**
+     * Used to get the list of event loops.
+     *
+     * @return The list of event loops.
+     */
+    public @NotNull List<NioEventLoop> getEventLoops() {
+        return this.eventLoopList;
+    }
+
+    /**
+     * Used to wait for the next connection.
+     *
+     * @return The new connection's socket channel.
+     * @throws IOException If the server channel was closed.
+     */
+    public @NotNull SocketChannel accept() throws IOException {
+        return this.serverChannel.accept();
+    }
+
+    /**
+     * Used to wrap an accepted socket channel in an ssl channel.
+     * The channel will be handled by the next event loop.
+     * Use {@link NioChannel#setHandler(ChannelHandler)} and then
+     * {@link NioServerTransport#register(NioChannel)} to start it.
+     *
+     * @param socketChannel The accepted socket channel.
+     * @return The new channel.
+     * @throws IOException If the channel could not be made non-blocking.
+     */
+    public @NotNull NioChannel createChannel(@NotNull SocketChannel socketChannel) throws IOException {
+        socketChannel.configureBlocking(false);
+
+        // Create the ssl engine with the same settings
+        // as the blocking server socket.
+        SSLEngine engine = this.sslContext.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setNeedClientAuth(true);
+        engine.setEnabledProtocols(new String[]{"TLSv1.2"});
+
+        NioEventLoop eventLoop = this.eventLoopList.get(this.nextEventLoop);
+        this.nextEventLoop = (this.nextEventLoop + 1) % this.eventLoopList.size();
+        return new NioChannel(socketChannel, engine, eventLoop).setMaxPendingBytes(this.maxPendingBytes);
+    }
+
+    /**
+     * Used to register a channel with its event loop.
+     * This will start the ssl handshake.
+     *
+     * @param channel The instance of the channel.
+     * @return This instance.
+     */
+    public @NotNull NioServerTransport register(@NotNull NioChannel channel) {
+        channel.getEventLoop().register(channel);
+        return this;
+    }
+
+    /**
+     * Used to close the server channel and
+     * stop all the event loops.
+     *
+     * @throws IOException If the server channel could not be closed.
+     */
+    public void stop() throws IOException {
+        this.serverChannel.close();
+        for (NioEventLoop eventLoop : this.eventLoopList) {
+            eventLoop.stop();
+        }
+        this.logger.log("Stopped " + this.eventLoopList.size() + " event loops.");
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+/**
+ * Contains the non-blocking transport used by the server.
+ * <ul>
+ *     <li>
+ *         The {@link com.github.kerbity.kerb.server.nio.NioServerTransport}
+ *         accepts connections and hands them to a small fixed
+ *         number of {@link com.github.kerbity.kerb.server.nio.NioEventLoop}s.
+ *     </li>
+ *     <li>
+ *         Each {@link com.github.kerbity.kerb.server.nio.NioChannel}
+ *         wraps a socket channel in an ssl engine and passes the data
+ *         it reads to its {@link com.github.kerbity.kerb.server.nio.ChannelHandler}.
+ *     </li>
+ * </ul>
+ */
+package com.github.kerbity.kerb.server.nio;
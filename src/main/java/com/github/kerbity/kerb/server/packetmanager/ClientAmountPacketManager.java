@@ -50,9 +50,8 @@ public class ClientAmountPacketManager implements PacketManager {
 
     @Override
     public void interpret(@NotNull Packet packet) {
-        this.connection.sendData(packet
-                .setData(this.connection.getServer().getConnectionList().size())
-                .getPacketString()
+        this.connection.sendPacket(packet
+                .setData(this.connection.getServer().getAmountOfValidClients())
         );
     }
 }
\ No newline at end of file
@@ -20,17 +20,24 @@
 
 package com.github.kerbity.kerb.server.packetmanager;
 
+import com.github.kerbity.kerb.packet.BalanceStrategy;
+import com.github.kerbity.kerb.packet.Capability;
+import com.github.kerbity.kerb.packet.Frame;
 import com.github.kerbity.kerb.packet.Packet;
-import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketHeader;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.result.CompletionCondition;
 import com.github.kerbity.kerb.server.ServerConnection;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents an event packet manager.
  * Used to interpret event packets.
  */
-public class EventPacketManger implements PacketManager {
+public class EventPacketManger implements RelayPacketManager {
 
     private final @NotNull ServerConnection connection;
 
@@ -49,23 +56,156 @@ public class EventPacketManger implements PacketManager {
     }
 
     @Override
-    public void interpret(@NotNull Packet packet) {
+    public void relay(@NotNull PacketHeader header, @NotNull Frame frame) {
 
-        if (this.connection.getDebugMode()) this.connection.getLogger().log("&3[Event] " + packet);
+        if (this.connection.getDebugMode()) this.connection.getLogger().log("&3[Event] " + frame);
         else
-            this.connection.getLogger().log("&3[Event] " + packet.getSequenceIdentifier() + "&7:" + packet.getIdentifier());
+            this.connection.getLogger().log("&3[Event] " + header.getSequenceIdentifier() + "&7:" + header.getIdentifier());
+
+        // Check if the event should only be sent to one client.
+        if (header.getTarget() != null) {
+            this.relayToTarget(header, header.getTarget(), frame);
+            return;
+        }
+
+        // Check if the caller can be told how many clients
+        // the event was sent to. Otherwise, it expects
+        // every client to reply.
+        if (header.getChannel() == null
+                && (!this.connection.hasCapability(Capability.SUBSCRIPTIONS)
+                || header.getIdentifier() == null
+                || header.getSequenceIdentifier() == null)) {
+
+            this.relay(this.connection.getServer().getConnectionRegistry(), frame);
+            return;
+        }
+
+        // Get the connections the event could be sent to.
+        // These are the members of the channel, or
+        // otherwise the connections that listen to the event.
+        List<ServerConnection> candidateList = header.getChannel() != null
+                ? this.connection.getServer().getChannelIndex().getRecipients(header.getChannel())
+                : this.connection.getServer().getSubscriptionIndex().getRecipients(header.getIdentifier());
+
+        // Check if the event should only be sent to one of the clients.
+        BalanceStrategy strategy = header.getBalanceStrategy();
+        if (strategy != null) {
+            this.relayToAny(header, strategy, candidateList, frame);
+            return;
+        }
+
+        this.relayToRecipients(header, candidateList, frame);
+    }
+
+    private void relayToAny(@NotNull PacketHeader header,
+                            @NotNull BalanceStrategy strategy,
+                            @NotNull List<ServerConnection> candidateList,
+                            @NotNull Frame frame) {
+
+        ServerConnection serverConnection = this.connection.getServer().getLoadBalancer().select(
+                strategy,
+                header.getIdentifier() == null ? "" : header.getIdentifier(),
+                header.getBalanceKey(),
+                this.filter(candidateList)
+        );
+
+        // Tell the caller if there will be a result.
+        if (header.getSequenceIdentifier() != null) {
+            this.connection.sendPacket(new Packet()
+                    .setType(PacketType.EVENT_RECIPIENTS)
+                    .setSequenceIdentifier(header.getSequenceIdentifier())
+                    .setData(serverConnection == null ? 0 : 1)
+            );
+        }
+
+        if (serverConnection == null) {
+            this.connection.getLogger().warn("Could not find a client to send the balanced event to. identifier=" + header.getIdentifier());
+            return;
+        }
+
+        // Record the event until the client replies
+        // or the caller stops waiting for it.
+        if (header.getSequenceIdentifier() != null) {
+            serverConnection.addOutstanding(header.getSequenceIdentifier(), this.connection);
+        }
+
+        // Send the event packet.
+        serverConnection.sendFrame(frame);
+    }
+
+    private void relayToRecipients(@NotNull PacketHeader header, @NotNull List<ServerConnection> candidateList, @NotNull Frame frame) {
+        List<ServerConnection> recipientList = this.filter(candidateList);
+
+        // Tell the caller how many results to expect
+        // before any of the results are sent back.
+        if (header.getSequenceIdentifier() != null) {
+            this.connection.sendPacket(new Packet()
+                    .setType(PacketType.EVENT_RECIPIENTS)
+                    .setSequenceIdentifier(header.getSequenceIdentifier())
+                    .setData(recipientList.size())
+            );
+
+            // Collect the results before any of them can arrive.
+            if (!recipientList.isEmpty() && this.connection.hasCapability(Capability.AGGREGATE)) {
+                this.connection.aggregateResults(header.getSequenceIdentifier(), recipientList.size());
+            }
+
+            // Count the results if the caller only needs some of them.
+            CompletionCondition condition = header.getCompletionCondition();
+            if (!recipientList.isEmpty() && condition != null) {
+                this.connection.trackCompletion(header.getSequenceIdentifier(), condition, recipientList);
+            }
+        }
+
+        this.relay(recipientList, frame);
+    }
+
+    private void relayToTarget(@NotNull PacketHeader header, @NotNull String target, @NotNull Frame frame) {
+        ServerConnection serverConnection = this.connection.getServer()
+                .getConnectionRegistry()
+                .getByIdentifierOrName(target);
+
+        // Tell the caller if there will be a result.
+        if (header.getSequenceIdentifier() != null) {
+            this.connection.sendPacket(new Packet()
+                    .setType(PacketType.EVENT_RECIPIENTS)
+                    .setSequenceIdentifier(header.getSequenceIdentifier())
+                    .setData(serverConnection == null ? 0 : 1)
+            );
+        }
+
+        if (serverConnection == null) {
+            this.connection.getLogger().warn("Could not find the target of the event. target=" + target);
+            return;
+        }
+
+        // Send the event packet.
+        serverConnection.sendFrame(frame);
+    }
+
+    private @NotNull List<ServerConnection> filter(@NotNull List<ServerConnection> candidateList) {
+        List<ServerConnection> recipientList = new ArrayList<>(candidateList.size());
+        for (ServerConnection serverConnection : candidateList) {
+            if (!serverConnection.isValid()) continue;
+            if (!serverConnection.isConnected()) continue;
+            recipientList.add(serverConnection);
+        }
+        return recipientList;
+    }
+
+    private void relay(@NotNull Iterable<ServerConnection> connections, @NotNull Frame frame) {
 
         // Loop though all the connections.
-        for (ServerConnection serverConnection : this.connection.getServer().getConnectionList()) {
+        for (ServerConnection serverConnection : connections) {
 
             // Check if the server connection has been validated.
             if (!serverConnection.isValid()) continue;
 
             // Check if the socket is still connected.
-            if (!this.connection.isConnected()) continue;
+            if (!serverConnection.isConnected()) continue;
 
             // Send the event packet.
-            serverConnection.sendData(packet.getPacketString());
+            serverConnection.sendFrame(frame);
         }
     }
 }
@@ -20,9 +20,12 @@
 
 package com.github.kerbity.kerb.server.packetmanager;
 
+import com.github.kerbity.kerb.packet.Frame;
 import com.github.kerbity.kerb.packet.Packet;
-import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketHeader;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.server.CompletionTracker;
+import com.github.kerbity.kerb.server.ResultBatch;
 import com.github.kerbity.kerb.server.ServerConnection;
 import org.jetbrains.annotations.NotNull;
 
@@ -30,7 +33,7 @@ import org.jetbrains.annotations.NotNull;
  * Represents the event result packet manager.
  * Used to handle event results sent from the clients.
  */
-public class EventResultPacketManager implements PacketManager {
+public class EventResultPacketManager implements RelayPacketManager {
 
     private final @NotNull ServerConnection connection;
 
@@ -49,38 +52,62 @@ public class EventResultPacketManager implements PacketManager {
     }
 
     @Override
-    public void interpret(@NotNull Packet packet) {
+    public void relay(@NotNull PacketHeader header, @NotNull Frame frame) {
 
-        if (this.connection.getDebugMode()) this.connection.getLogger().log("&3[Event Result] " + packet);
-        else this.connection.getLogger().log("&3[Event Result] " + packet.getSequenceIdentifier());
+        if (this.connection.getDebugMode()) this.connection.getLogger().log("&3[Event Result] " + frame);
+        else this.connection.getLogger().log("&3[Event Result] " + header.getSequenceIdentifier());
+
+        // The client has replied to the event.
+        if (header.getSequenceIdentifier() != null) {
+            this.connection.removeOutstanding(header.getSequenceIdentifier());
+        }
 
         // Check if the target is not null.
-        if (packet.getSource() == null) {
+        String source = header.getSource();
+        if (source == null) {
             this.connection.getLogger().warn("Could not send event result back as target was null.");
             return;
         }
 
-        // Loop though all the connections.
-        for (ServerConnection serverConnection : this.connection.getServer().getConnectionList()) {
+        // Get the connection that called the event.
+        ServerConnection serverConnection = this.connection.getServer()
+                .getConnectionRegistry()
+                .getByIdentifier(source);
+
+        // Check the connection is valid and still connected.
+        if (serverConnection != null && serverConnection.isValid() && serverConnection.isConnected()) {
+
+            // Check if the caller's results are being counted or collected.
+            String sequenceIdentifier = header.getSequenceIdentifier();
+            CompletionTracker tracker = sequenceIdentifier == null ? null : serverConnection.getCompletionTracker(sequenceIdentifier);
+            ResultBatch batch = sequenceIdentifier == null || header.getIdentifier() == null
+                    ? null : serverConnection.getResultBatch(sequenceIdentifier);
+
+            String data = tracker == null && batch == null ? null : Packet.readJsonData(frame);
 
-            // Check if the server connection has been validated.
-            if (!serverConnection.isValid()) continue;
+            // Check if the caller still needs the result.
+            if (tracker != null && !tracker.offer(this.connection, data)) {
+                if (this.connection.getDebugMode()) this.connection.getLogger().log("&7[Event Result] Not needed " + sequenceIdentifier);
+                return;
+            }
 
-            // Check if the socket is still connected.
-            if (!this.connection.isConnected()) continue;
+            if (batch != null && batch.offer(header.getIdentifier(), data)) {
 
-            // Check if the target is the same.
-            if (!packet.getSource().equals(serverConnection.getIdentifier())) continue;
+                // Send the collected results straight away
+                // if the caller does not need any more.
+                if (tracker != null && tracker.isMet()) batch.complete();
+                return;
+            }
 
             // Send the event result packet.
-            serverConnection.sendData(packet.getPacketString());
+            serverConnection.sendFrame(frame);
             return;
         }
 
         this.connection.getLogger().warn("Could not find the source of the event.");
         StringBuilder builder = new StringBuilder();
-        for (ServerConnection serverConnection : this.connection.getServer().getConnectionList()) {
-            builder.append(serverConnection.getIdentifier()).append(",");
+        for (ServerConnection registered : this.connection.getServer().getConnectionRegistry()) {
+            builder.append(registered.getIdentifier()).append(",");
         }
         this.connection.getLogger().warn("Connections=[" + builder + "]");
     }
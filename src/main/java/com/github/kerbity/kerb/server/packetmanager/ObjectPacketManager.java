@@ -20,8 +20,8 @@
 
 package com.github.kerbity.kerb.server.packetmanager;
 
-import com.github.kerbity.kerb.packet.Packet;
-import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.PacketHeader;
 import com.github.kerbity.kerb.packet.PacketType;
 import com.github.kerbity.kerb.server.ServerConnection;
 import org.jetbrains.annotations.NotNull;
@@ -31,7 +31,7 @@ import org.jetbrains.annotations.NotNull;
  * Used to handle objects sent to the server from clients.
  * These objects will then be sent to all clients.
  */
-public class ObjectPacketManager implements PacketManager {
+public class ObjectPacketManager implements RelayPacketManager {
 
     private final @NotNull ServerConnection connection;
 
@@ -50,18 +50,24 @@ public class ObjectPacketManager implements PacketManager {
     }
 
     @Override
-    public void interpret(@NotNull Packet packet) {
+    public void relay(@NotNull PacketHeader header, @NotNull Frame frame) {
 
-        this.connection.getLogger().log("&3[Object] " + packet);
+        if (this.connection.getDebugMode()) this.connection.getLogger().log("&3[Object] " + frame);
+        else this.connection.getLogger().log("&3[Object] " + header.getIdentifier());
+
+        // Check if the object should only be sent to a channel.
+        Iterable<ServerConnection> connections = header.getChannel() == null
+                ? this.connection.getServer().getConnectionRegistry()
+                : this.connection.getServer().getChannelIndex().getRecipients(header.getChannel());
 
         // Loop though all the connections.
-        for (ServerConnection serverConnection : this.connection.getServer().getConnectionList()) {
+        for (ServerConnection serverConnection : connections) {
 
             // Check if the server connection has been validated.
             if (!serverConnection.isValid()) continue;
 
-            // Send the event packet.
-            serverConnection.sendData(packet.getPacketString());
+            // Send the object packet.
+            serverConnection.sendFrame(frame);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.packetmanager;
+
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketHeader;
+import com.github.kerbity.kerb.packet.PacketManager;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a packet manager that only needs
+ * the packet's header to route the packet.
+ * The original frame is forwarded without the
+ * rest of the packet being parsed.
+ */
+public interface RelayPacketManager extends PacketManager {
+
+    /**
+     * Used to route a frame using its header.
+     *
+     * @param header The packet's header.
+     * @param frame  The frame as it was received.
+     */
+    void relay(@NotNull PacketHeader header, @NotNull Frame frame);
+
+    @Override
+    default void interpret(@NotNull Packet packet) {
+        this.relay(PacketHeader.of(packet), packet.toFrame());
+    }
+}
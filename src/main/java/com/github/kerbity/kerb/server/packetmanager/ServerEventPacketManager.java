@@ -23,6 +23,7 @@ package com.github.kerbity.kerb.server.packetmanager;
 import com.github.kerbity.kerb.packet.Packet;
 import com.github.kerbity.kerb.packet.PacketManager;
 import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.TypeCache;
 import com.github.kerbity.kerb.result.CompletableResultSet;
 import com.github.kerbity.kerb.server.ServerConnection;
 import org.jetbrains.annotations.NotNull;
@@ -63,10 +64,10 @@ public class ServerEventPacketManager implements PacketManager {
             if (resultSet == null) return;
 
             // Get the instance of the event class.
-            Class<?> eventClass = Class.forName(packet.getIdentifier());
+            TypeCache.Entry eventType = TypeCache.getShared().resolve(packet.getIdentifier());
 
             // Create the event class from the packet.
-            Object eventObject = packet.getData(eventClass);
+            Object eventObject = eventType.decode(packet);
 
             // Add result.
             resultSet.addAmbiguousResult(eventObject);
@@ -0,0 +1,77 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.server.packetmanager;
+
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketManager;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.server.ServerConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Represents the subscription packet manager.
+ * Used to update the events a client listens to.
+ */
+public class SubscriptionPacketManager implements PacketManager {
+
+    private final @NotNull ServerConnection connection;
+
+    /**
+     * Used to create a subscription packet manager.
+     *
+     * @param connection The instance of the server connection.
+     */
+    public SubscriptionPacketManager(@NotNull ServerConnection connection) {
+        this.connection = connection;
+    }
+
+    @Override
+    public @NotNull PacketType getPacketType() {
+        return PacketType.SUBSCRIPTIONS;
+    }
+
+    @Override
+    public void interpret(@NotNull Packet packet) {
+        String[] subscriptions = packet.getData(String[].class);
+
+        if (subscriptions == null) {
+            this.connection.getLogger().warn("Packet returned null data when updating subscriptions. packet=" + packet);
+            return;
+        }
+
+        if (this.connection.getDebugMode()) {
+            this.connection.getLogger().log("&3[Subscriptions] " + String.join(", ", subscriptions));
+        }
+
+        this.connection.getServer().getSubscriptionIndex().update(this.connection, new HashSet<>(Arrays.asList(subscriptions)));
+
+        // Let the client know the events will now be sent to it.
+        if (packet.getSequenceIdentifier() != null) {
+            this.connection.sendPacket(new Packet()
+                    .setType(PacketType.SUBSCRIPTIONS)
+                    .setSequenceIdentifier(packet.getSequenceIdentifier())
+            );
+        }
+    }
+}
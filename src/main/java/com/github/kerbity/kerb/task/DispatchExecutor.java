@@ -0,0 +1,397 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.task;
+
+import com.github.minemaniauk.developertools.console.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Represents a bounded pool of threads used to
+ * interpret packets after they are read.
+ * <ul>
+ *     <li>The number of threads never goes above the limit.</li>
+ *     <li>The executor is saturated once the number of waiting tasks reaches the limit.</li>
+ *     <li>Idle threads are stopped after a minute.</li>
+ *     <li>Threads are created using {@link KerbThreads}.</li>
+ * </ul>
+ * Tasks given with a key are run in lanes. Tasks with the same
+ * key are run one at a time in the order they were given, while
+ * tasks in other lanes still run in parallel.
+ * <p>
+ * Giving a task with a key never blocks or runs the task on
+ * the calling thread, so it can be used by reading threads.
+ * Instead, the reader should stop reading while the executor
+ * {@link DispatchExecutor#isSaturated()} and continue once
+ * {@link DispatchExecutor#onAvailable(Runnable)} is called,
+ * or wait using {@link DispatchExecutor#awaitAvailable(BooleanSupplier)}.
+ */
+public class DispatchExecutor implements Executor {
+
+    /**
+     * The default number of threads.
+     */
+    public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * The default number of tasks that can wait in the queue.
+     */
+    public static final int DEFAULT_QUEUE_SIZE = 10000;
+
+    private static final int WARN_EVERY = 1000;
+    private static final long KEEP_ALIVE_SECONDS = 60;
+    private static final int LANES_PER_THREAD = 4;
+    private static final int LANE_BATCH_SIZE = 64;
+    private static final long AWAIT_CHECK_MILLIS = 100;
+
+    private final @NotNull ThreadPoolExecutor executor;
+    private final @NotNull RejectionPolicy policy;
+    private final @NotNull Logger logger;
+    private final @NotNull AtomicLong amountRejected;
+    private final @NotNull AtomicInteger amountPending;
+    private final @NotNull AtomicInteger amountWaiting;
+    private final @NotNull Queue<Runnable> availableListeners;
+    private final @NotNull Object availableLock;
+    private final int maxPending;
+    private final int resumePending;
+    private final @NotNull Lane[] lanes;
+
+    /**
+     * Used to create a new dispatch executor.
+     *
+     * @param name      The name given to the threads.
+     * @param threads   The max number of threads.
+     * @param queueSize The number of waiting tasks before it is saturated.
+     * @param policy    What to do when it is saturated.
+     * @param logger    The logger used to warn about rejected tasks.
+     */
+    public DispatchExecutor(@NotNull String name, int threads, int queueSize,
+                            @NotNull RejectionPolicy policy, @NotNull Logger logger) {
+
+        this.policy = policy;
+        this.logger = logger;
+        this.amountRejected = new AtomicLong();
+        this.amountPending = new AtomicInteger();
+        this.amountWaiting = new AtomicInteger();
+        this.availableListeners = new ConcurrentLinkedQueue<>();
+        this.availableLock = new Object();
+        this.maxPending = Math.max(1, queueSize);
+
+        // Resume below the limit, so readers don't
+        // pause and resume for every single task.
+        this.resumePending = this.maxPending * 3 / 4;
+
+        // Use a power of two so the lane can be found with a mask.
+        int amountOfLanes = Integer.highestOneBit(Math.max(1, threads * LANES_PER_THREAD) * 2 - 1);
+        this.lanes = new Lane[amountOfLanes];
+        for (int index = 0; index < amountOfLanes; index++) {
+            this.lanes[index] = new Lane();
+        }
+
+        this.executor = new ThreadPoolExecutor(
+                Math.max(1, threads),
+                Math.max(1, threads),
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                KerbThreads.factory(name, true),
+                new ThreadPoolExecutor.DiscardPolicy()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Used to run a task on the executor.
+     * If it is saturated the rejection policy is used,
+     * so this may block or run the task on this thread.
+     * It should not be used by reading threads.
+     *
+     * @param runnable The task to run.
+     */
+    @Override
+    public void execute(@NotNull Runnable runnable) {
+        if (this.executor.isShutdown()) return;
+
+        if (this.amountPending.get() >= this.maxPending) {
+            long amount = this.amountRejected.incrementAndGet();
+
+            switch (this.policy) {
+                case CALLER_RUNS -> {
+                    runnable.run();
+                    return;
+                }
+                case BLOCK -> this.awaitAvailable(() -> false);
+                case DISCARD -> {
+                    this.warnDropped(amount);
+                    return;
+                }
+            }
+        }
+
+        this.amountPending.incrementAndGet();
+        this.executor.execute(() -> {
+            try {
+                runnable.run();
+            } finally {
+                this.release();
+            }
+        });
+    }
+
+    /**
+     * Used to run a task in the lane for a key.
+     * Tasks with the same key are run in the order they
+     * were given and never at the same time.
+     * <ul>
+     *     <li>This never blocks or runs the task on this thread.</li>
+     *     <li>
+     *         When it is saturated, {@link RejectionPolicy#DISCARD} drops
+     *         the task. Otherwise the task is still accepted, and the
+     *         caller should stop reading until it is available.
+     *     </li>
+     * </ul>
+     *
+     * @param key      The key, such as the source connection.
+     * @param runnable The task to run.
+     */
+    public void execute(@NotNull Object key, @NotNull Runnable runnable) {
+        if (this.executor.isShutdown()) return;
+
+        if (this.policy == RejectionPolicy.DISCARD && this.amountPending.get() >= this.maxPending) {
+            this.warnDropped(this.amountRejected.incrementAndGet());
+            return;
+        }
+
+        this.amountPending.incrementAndGet();
+        int hash = key.hashCode();
+        this.lanes[(hash ^ (hash >>> 16)) & (this.lanes.length - 1)].add(runnable);
+    }
+
+    /**
+     * Used to check if the number of waiting tasks has
+     * reached the limit. Reading threads should stop
+     * reading until it is available again.
+     *
+     * @return True if it is saturated.
+     */
+    public boolean isSaturated() {
+        return this.amountPending.get() >= this.maxPending && !this.executor.isShutdown();
+    }
+
+    /**
+     * Used to run a listener once the number of waiting
+     * tasks has dropped below the limit again.
+     * The listener is run straight away if it already has.
+     * It is run by a dispatch thread, so it should be quick,
+     * for example, giving a task to an event loop.
+     *
+     * @param listener The listener to run once.
+     * @return This instance.
+     */
+    public @NotNull DispatchExecutor onAvailable(@NotNull Runnable listener) {
+        this.availableListeners.add(listener);
+
+        // Check if it became available while adding.
+        if (this.amountPending.get() <= this.resumePending || this.executor.isShutdown()) {
+            this.runAvailableListeners();
+        }
+        return this;
+    }
+
+    /**
+     * Used to wait on this thread while it is saturated.
+     * This should only be used by threads that are
+     * dedicated to reading a single connection.
+     *
+     * @param stopWaiting Checked while waiting, the wait
+     *                    ends early once it returns true.
+     *                    Use {@link DispatchExecutor#signal()}
+     *                    to check it straight away.
+     * @return This instance.
+     */
+    public @NotNull DispatchExecutor awaitAvailable(@NotNull BooleanSupplier stopWaiting) {
+        if (!this.isSaturated()) return this;
+
+        this.amountWaiting.incrementAndGet();
+        try {
+            synchronized (this.availableLock) {
+                while (this.amountPending.get() > this.resumePending
+                        && !this.executor.isShutdown()
+                        && !stopWaiting.getAsBoolean()) {
+                    this.availableLock.wait(AWAIT_CHECK_MILLIS);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.amountWaiting.decrementAndGet();
+        }
+        return this;
+    }
+
+    /**
+     * Used to wake the threads waiting in
+     * {@link DispatchExecutor#awaitAvailable(BooleanSupplier)},
+     * so they check if they should stop waiting.
+     *
+     * @return This instance.
+     */
+    public @NotNull DispatchExecutor signal() {
+        if (this.amountWaiting.get() == 0) return this;
+
+        synchronized (this.availableLock) {
+            this.availableLock.notifyAll();
+        }
+        return this;
+    }
+
+    /**
+     * Used to get the rejection policy.
+     *
+     * @return The rejection policy.
+     */
+    public @NotNull RejectionPolicy getPolicy() {
+        return this.policy;
+    }
+
+    /**
+     * Used to get the number of tasks that have
+     * been accepted but not finished yet.
+     *
+     * @return The number of waiting tasks.
+     */
+    public int getQueueSize() {
+        return this.amountPending.get();
+    }
+
+    /**
+     * Used to get the number of tasks that were
+     * rejected because it was saturated.
+     *
+     * @return The number of rejected tasks.
+     */
+    public long getAmountRejected() {
+        return this.amountRejected.get();
+    }
+
+    /**
+     * Used to check if the executor has been shut down.
+     *
+     * @return True if it has been shut down.
+     */
+    public boolean isShutdown() {
+        return this.executor.isShutdown();
+    }
+
+    /**
+     * Used to stop the executor.
+     * Tasks already in the queue will still be run,
+     * and anything waiting for it to be available is released.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+        this.runAvailableListeners();
+        this.signal();
+    }
+
+    /**
+     * Called when a task has finished.
+     * Lets the waiting readers continue once
+     * enough of the tasks have finished.
+     */
+    private void release() {
+        if (this.amountPending.decrementAndGet() > this.resumePending) return;
+
+        if (!this.availableListeners.isEmpty()) this.runAvailableListeners();
+        this.signal();
+    }
+
+    private void runAvailableListeners() {
+        Runnable listener;
+        while ((listener = this.availableListeners.poll()) != null) {
+            try {
+                listener.run();
+            } catch (RuntimeException exception) {
+                this.logger.warn("Exception occurred while resuming a reader.");
+                exception.printStackTrace();
+            }
+        }
+    }
+
+    private void warnDropped(long amount) {
+        if (amount % WARN_EVERY == 1) {
+            this.logger.warn("Dispatch queue is full, packets are being dropped. {dropped: " + amount + "}");
+        }
+    }
+
+    /**
+     * Represents a queue of tasks that are run
+     * one at a time on the executor's threads.
+     */
+    private class Lane implements Runnable {
+
+        private final @NotNull Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        private final @NotNull AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private void add(@NotNull Runnable runnable) {
+            this.queue.add(runnable);
+            this.schedule();
+        }
+
+        private void schedule() {
+            if (this.scheduled.compareAndSet(false, true)) {
+                DispatchExecutor.this.executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+
+                // Run a limited amount before giving
+                // the thread to other lanes.
+                for (int index = 0; index < LANE_BATCH_SIZE; index++) {
+                    Runnable runnable = this.queue.poll();
+                    if (runnable == null) break;
+
+                    try {
+                        runnable.run();
+                    } catch (RuntimeException exception) {
+                        DispatchExecutor.this.logger.warn("Exception occurred while running a dispatched task.");
+                        exception.printStackTrace();
+                    } finally {
+                        DispatchExecutor.this.release();
+                    }
+                }
+
+            } finally {
+                this.scheduled.set(false);
+                if (!this.queue.isEmpty()) this.schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.task;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Used to create the threads kerb uses to read
+ * connections, interpret packets and run tasks.
+ * <ul>
+ *     <li>Platform threads are used by default.</li>
+ *     <li>
+ *         Virtual threads can be turned on when running on a
+ *         java version that supports them. They are found at
+ *         runtime, so kerb can still be built for java 17.
+ *     </li>
+ *     <li>The setting is shared by every client and server in the jvm.</li>
+ * </ul>
+ */
+public final class KerbThreads {
+
+    private static final @Nullable Object VIRTUAL_BUILDER;
+    private static final @Nullable Method BUILDER_NAME;
+    private static final @Nullable Method BUILDER_UNSTARTED;
+
+    private static volatile boolean virtual = false;
+
+    static {
+        Object builder = null;
+        Method name = null;
+        Method unstarted = null;
+
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            name = builderClass.getMethod("name", String.class);
+            unstarted = builderClass.getMethod("unstarted", Runnable.class);
+
+            // Check the builder can be used, as virtual threads
+            // are a preview feature in some java versions.
+            unstarted.invoke(name.invoke(builder, "kerb-check"), (Runnable) () -> {
+            });
+
+        } catch (Exception exception) {
+            builder = null;
+        }
+
+        VIRTUAL_BUILDER = builder;
+        BUILDER_NAME = builder == null ? null : name;
+        BUILDER_UNSTARTED = builder == null ? null : unstarted;
+    }
+
+    private KerbThreads() {
+    }
+
+    /**
+     * Used to check if the running java
+     * version supports virtual threads.
+     *
+     * @return True if virtual threads are supported.
+     */
+    public static boolean isVirtualSupported() {
+        return VIRTUAL_BUILDER != null;
+    }
+
+    /**
+     * Used to check if new threads will be virtual threads.
+     *
+     * @return True if virtual threads are being used.
+     */
+    public static boolean isVirtual() {
+        return KerbThreads.virtual;
+    }
+
+    /**
+     * Used to set if new threads should be virtual threads.
+     * Threads that already exist are not changed.
+     *
+     * @param virtual True if virtual threads should be used.
+     * @return True if the value was set.
+     * False if virtual threads are not supported.
+     */
+    public static boolean setVirtual(boolean virtual) {
+        if (virtual && !KerbThreads.isVirtualSupported()) return false;
+        KerbThreads.virtual = virtual;
+        return true;
+    }
+
+    /**
+     * Used to create a new thread that has not been started.
+     *
+     * @param name     The name of the thread.
+     * @param runnable The runnable to run on the thread.
+     * @return The new thread.
+     */
+    public static @NotNull Thread create(@NotNull String name, @NotNull Runnable runnable) {
+        if (KerbThreads.virtual && VIRTUAL_BUILDER != null) {
+            try {
+                assert BUILDER_NAME != null && BUILDER_UNSTARTED != null;
+                return (Thread) BUILDER_UNSTARTED.invoke(BUILDER_NAME.invoke(VIRTUAL_BUILDER, name), runnable);
+            } catch (Exception exception) {
+                throw new RuntimeException(exception);
+            }
+        }
+
+        return new Thread(runnable, name);
+    }
+
+    /**
+     * Used to create and start a new thread.
+     *
+     * @param name     The name of the thread.
+     * @param runnable The runnable to run on the thread.
+     * @return The started thread.
+     */
+    public static @NotNull Thread start(@NotNull String name, @NotNull Runnable runnable) {
+        Thread thread = KerbThreads.create(name, runnable);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Used to get a thread factory that names each
+     * thread with the prefix followed by a number.
+     * The type of thread is checked each time one is created.
+     *
+     * @param prefix The prefix of the thread names.
+     * @param daemon True if the threads should not stop the jvm exiting.
+     * @return The thread factory.
+     */
+    public static @NotNull ThreadFactory factory(@NotNull String prefix, boolean daemon) {
+        AtomicInteger number = new AtomicInteger();
+        return runnable -> {
+            Thread thread = KerbThreads.create(prefix + "-" + number.incrementAndGet(), runnable);
+            if (daemon) thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.task;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Represents what a {@link DispatchExecutor} should
+ * do with a task when its queue is full.
+ */
+public enum RejectionPolicy {
+
+    /**
+     * The thread that gave the task will run it.
+     * Tasks given with a key, such as packets, are still
+     * accepted and the connection stops being read
+     * until the executor has caught up.
+     */
+    CALLER_RUNS("caller_runs"),
+
+    /**
+     * The thread that gave the task will wait
+     * until there is space in the queue.
+     * Tasks given with a key, such as packets, are still
+     * accepted and the connection stops being read
+     * until the executor has caught up.
+     */
+    BLOCK("block"),
+
+    /**
+     * The task will be dropped and a warning logged.
+     */
+    DISCARD("discard");
+
+    private final @NotNull String identifier;
+
+    /**
+     * Used to create a rejection policy.
+     *
+     * @param identifier The policy identifier.
+     */
+    RejectionPolicy(@NotNull String identifier) {
+        this.identifier = identifier;
+    }
+
+    /**
+     * Used to get the policy identifier.
+     * This is the value used in the configuration.
+     *
+     * @return The policy identifier.
+     */
+    public @NotNull String getIdentifier() {
+        return this.identifier;
+    }
+
+    @Override
+    public String toString() {
+        return this.identifier;
+    }
+
+    /**
+     * Used to get the instance of a rejection policy
+     * from a policy identifier.
+     *
+     * @param identifier The policy identifier.
+     * @return The requested rejection policy.
+     * Null if the rejection policy doesn't exist.
+     */
+    public static @Nullable RejectionPolicy fromIdentifier(@NotNull String identifier) {
+        for (RejectionPolicy policy : RejectionPolicy.values()) {
+            if (policy.getIdentifier().equalsIgnoreCase(identifier)) return policy;
+        }
+        return null;
+    }
+}
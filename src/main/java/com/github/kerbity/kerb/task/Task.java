@@ -30,4 +30,15 @@ public interface Task {
      * Used to cancel the task.
      */
     void cancel();
+
+    /**
+     * Used to check if the task has been
+     * run or cancelled. Tasks that do not
+     * track this are never seen as done.
+     *
+     * @return True if the task is done.
+     */
+    default boolean isDone() {
+        return false;
+    }
 }
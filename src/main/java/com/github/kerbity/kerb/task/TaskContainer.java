@@ -23,26 +23,37 @@ package com.github.kerbity.kerb.task;
 import org.jetbrains.annotations.NotNull;
 
 import java.time.Duration;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a task container.
  * This can be implemented to run tasks in the class instance.
+ * Tasks are scheduled on the shared {@link TimingWheel},
+ * so waiting tasks do not need their own threads.
  */
 public class TaskContainer {
 
-    private static final int SLEEP_TIME_MILLIS = 100;
-
-    private @NotNull Map<String, Task> taskMap;
+    private final @NotNull TimingWheel timingWheel;
+    private final @NotNull Map<String, Task> taskMap;
 
     /**
      * Used to create a new task container.
      * Lets you run tasks on threads.
      */
     public TaskContainer() {
-        this.taskMap = new HashMap<>();
+        this(TimingWheel.getShared());
+    }
+
+    /**
+     * Used to create a new task container
+     * that uses a specific timing wheel.
+     *
+     * @param timingWheel The timing wheel to schedule tasks on.
+     */
+    public TaskContainer(@NotNull TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+        this.taskMap = new ConcurrentHashMap<>();
     }
 
     /**
@@ -60,52 +71,22 @@ public class TaskContainer {
             throw new RuntimeException("Identifier already exists within task container.");
         }
 
-        // Start the thread.
-        new Thread(() -> {
-
-            // Get the current time.
-            long from = System.currentTimeMillis();
-
-            // Set the running variable.
-            AtomicBoolean running = new AtomicBoolean(true);
-
-            // Create the instance of the task.
-            Task task = () -> running.set(false);
-            this.taskMap.put(identifier, task);
-
-            // Wait till duration has completed.
-            while (running.get()) {
-                try {
-
-                    // Check if it's time to run the runnable.
-                    if (System.currentTimeMillis() - from >= duration.toMillis()) break;
-
-                    // Wait a few mills.
-                    Thread.sleep(SLEEP_TIME_MILLIS);
-
-                    // Check if the task was canceled.
-                    if (!running.get()) {
-                        this.taskMap.remove(identifier);
-                        return;
-                    }
-
-                } catch (InterruptedException exception) {
-                    throw new RuntimeException(exception);
-                }
-            }
-
-            // Check if the task was canceled.
-            if (!running.get()) {
-                this.taskMap.remove(identifier);
-                return;
-            }
-
-            // Run the task.
-            this.taskMap.remove(identifier);
+        // Schedule the task.
+        Task[] reference = new Task[1];
+        Task task = this.timingWheel.schedule(() -> {
+            this.taskMap.remove(identifier, reference[0]);
             runnable.run();
+        }, duration);
+        reference[0] = task;
 
-        }).start();
+        // Check if another thread added the identifier first.
+        if (this.taskMap.putIfAbsent(identifier, task) != null) {
+            task.cancel();
+            throw new RuntimeException("Identifier already exists within task container.");
+        }
 
+        // Check if the task ran before it was added.
+        if (task.isDone()) this.taskMap.remove(identifier, task);
         return this;
     }
 
@@ -116,14 +97,13 @@ public class TaskContainer {
      * @return This instance.
      */
     public @NotNull TaskContainer stopTask(@NotNull String identifier) {
-        Task task = this.taskMap.get(identifier);
+        Task task = this.taskMap.remove(identifier);
 
         // Check if the task doesn't exist.
         if (task == null) return this;
 
         // Cancel the task.
         task.cancel();
-        this.taskMap.remove(identifier);
         return this;
     }
 
@@ -133,11 +113,9 @@ public class TaskContainer {
      * @return This instance.
      */
     public @NotNull TaskContainer stopAllTasks() {
-        for (Task task : this.taskMap.values()) {
-            task.cancel();
+        for (String identifier : this.taskMap.keySet()) {
+            this.stopTask(identifier);
         }
-
-        this.taskMap = new HashMap<>();
         return this;
     }
 }
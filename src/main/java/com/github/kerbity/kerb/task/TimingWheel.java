@@ -0,0 +1,297 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.task;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Represents a hashed timing wheel used to run tasks in the future.
+ * <ul>
+ *     <li>A single thread moves the wheel forward every tick.</li>
+ *     <li>Scheduling and cancelling a task takes the same time no matter how many tasks there are.</li>
+ *     <li>Tasks are run at most one tick late.</li>
+ *     <li>Tasks are run on a shared pool, so a slow task does not stop the wheel.</li>
+ * </ul>
+ * The shared wheel is used by every {@link TaskContainer}.
+ * Its tick can be changed with the "kerb.timer.tick_millis" system property.
+ */
+public class TimingWheel {
+
+    /**
+     * The default time between each tick.
+     */
+    public static final long DEFAULT_TICK_MILLIS = 10;
+
+    /**
+     * The default number of buckets in the wheel.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final int STATE_WAITING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+
+    private static @Nullable TimingWheel shared;
+
+    private final long tickNanos;
+    private final @NotNull Bucket[] wheel;
+    private final int mask;
+    private final @NotNull Queue<Timeout> pending;
+    private final @NotNull Queue<Timeout> cancelled;
+    private final @NotNull ExecutorService executor;
+    private final @NotNull String name;
+
+    private volatile @Nullable Thread thread;
+    private volatile boolean running;
+    private long startTime;
+
+    /**
+     * Used to create a new timing wheel.
+     * The thread is started when the first task is scheduled.
+     *
+     * @param name      The name given to the threads.
+     * @param tick      The time between each tick.
+     * @param wheelSize The number of buckets in the wheel.
+     */
+    public TimingWheel(@NotNull String name, @NotNull Duration tick, int wheelSize) {
+        this.name = name;
+        this.tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), tick.toNanos());
+
+        // Use a power of two so the bucket can be found with a mask.
+        int size = Integer.highestOneBit(Math.max(1, wheelSize) * 2 - 1);
+        this.wheel = new Bucket[size];
+        for (int index = 0; index < size; index++) {
+            this.wheel[index] = new Bucket();
+        }
+        this.mask = size - 1;
+
+        this.pending = new ConcurrentLinkedQueue<>();
+        this.cancelled = new ConcurrentLinkedQueue<>();
+        this.executor = Executors.newCachedThreadPool(KerbThreads.factory(name + "-task", true));
+    }
+
+    /**
+     * Used to run a task in the future.
+     *
+     * @param runnable The task to run.
+     * @param delay    The time to wait before running it.
+     * @return The task, which can be cancelled.
+     */
+    public @NotNull Task schedule(@NotNull Runnable runnable, @NotNull Duration delay) {
+        if (this.thread == null) this.start();
+
+        Timeout timeout = new Timeout(this, runnable, System.nanoTime() - this.startTime + Math.max(0, delay.toNanos()));
+        this.pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Used to get the number of tasks waiting to be added
+     * to the wheel. This is mainly used for benchmarks.
+     *
+     * @return The number of pending tasks.
+     */
+    public int getPendingSize() {
+        return this.pending.size();
+    }
+
+    /**
+     * Used to stop the wheel.
+     * Tasks that have not run will never run.
+     */
+    public synchronized void stop() {
+        this.running = false;
+        if (this.thread != null) this.thread.interrupt();
+        this.executor.shutdown();
+    }
+
+    private synchronized void start() {
+        if (this.thread != null) return;
+
+        this.startTime = System.nanoTime();
+        this.running = true;
+
+        Thread thread = new Thread(this::loop, this.name);
+        thread.setDaemon(true);
+        thread.start();
+        this.thread = thread;
+    }
+
+    private void loop() {
+        long tick = 0;
+
+        while (this.running) {
+
+            // Wait for the end of the tick.
+            long deadline = this.tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - this.startTime);
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+                } catch (InterruptedException exception) {
+                    if (!this.running) return;
+                }
+            }
+
+            this.removeCancelled();
+            this.addPending(tick);
+            this.wheel[(int) (tick & this.mask)].expire(deadline);
+            tick++;
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = this.cancelled.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.remove(timeout);
+        }
+    }
+
+    private void addPending(long tick) {
+        Timeout timeout;
+        while ((timeout = this.pending.poll()) != null) {
+            if (timeout.state.get() == STATE_CANCELLED) continue;
+
+            // Work out how many times the wheel has to go round.
+            long calculated = timeout.deadline / this.tickNanos;
+            timeout.remainingRounds = (calculated - tick) / this.wheel.length;
+
+            // Tasks that are already late go in the current bucket.
+            long ticks = Math.max(calculated, tick);
+            this.wheel[(int) (ticks & this.mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Used to get the timing wheel shared by every task container.
+     *
+     * @return The shared timing wheel.
+     */
+    public static synchronized @NotNull TimingWheel getShared() {
+        if (TimingWheel.shared == null) {
+            long tick = Long.getLong("kerb.timer.tick_millis", DEFAULT_TICK_MILLIS);
+            TimingWheel.shared = new TimingWheel("kerb-timer", Duration.ofMillis(tick), DEFAULT_WHEEL_SIZE);
+        }
+        return TimingWheel.shared;
+    }
+
+    /**
+     * Represents a task in the wheel.
+     */
+    private static class Timeout implements Task {
+
+        private final @NotNull TimingWheel wheel;
+        private final @NotNull Runnable runnable;
+        private final long deadline;
+        private final @NotNull AtomicInteger state;
+
+        // Only used by the wheel's thread.
+        private long remainingRounds;
+        private @Nullable Bucket bucket;
+        private @Nullable Timeout next;
+        private @Nullable Timeout previous;
+
+        private Timeout(@NotNull TimingWheel wheel, @NotNull Runnable runnable, long deadline) {
+            this.wheel = wheel;
+            this.runnable = runnable;
+            this.deadline = deadline;
+            this.state = new AtomicInteger(STATE_WAITING);
+        }
+
+        @Override
+        public void cancel() {
+            if (!this.state.compareAndSet(STATE_WAITING, STATE_CANCELLED)) return;
+            this.wheel.cancelled.add(this);
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.state.get() != STATE_WAITING;
+        }
+
+        private void expire() {
+            if (!this.state.compareAndSet(STATE_WAITING, STATE_EXPIRED)) return;
+            this.wheel.executor.execute(this.runnable);
+        }
+    }
+
+    /**
+     * Represents a linked list of tasks in one slot of the wheel.
+     * Only used by the wheel's thread.
+     */
+    private static class Bucket {
+
+        private @Nullable Timeout head;
+        private @Nullable Timeout tail;
+
+        private void add(@NotNull Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+                return;
+            }
+
+            assert this.tail != null;
+            this.tail.next = timeout;
+            timeout.previous = this.tail;
+            this.tail = timeout;
+        }
+
+        private void remove(@NotNull Timeout timeout) {
+            if (timeout.previous != null) timeout.previous.next = timeout.next;
+            if (timeout.next != null) timeout.next.previous = timeout.previous;
+            if (timeout == this.head) this.head = timeout.next;
+            if (timeout == this.tail) this.tail = timeout.previous;
+
+            timeout.next = null;
+            timeout.previous = null;
+            timeout.bucket = null;
+        }
+
+        private void expire(long deadline) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+
+                if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else if (timeout.state.get() == STATE_CANCELLED) {
+                    this.remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+
+                timeout = next;
+            }
+        }
+    }
+}
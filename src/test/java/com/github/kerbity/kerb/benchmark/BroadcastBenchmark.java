@@ -0,0 +1,134 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketType;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Used to compare the cpu time spent relaying one event
+ * as the amount of receiving clients grows.
+ * <ul>
+ *     <li>Arguments: [amount of events] [payload size in bytes]</li>
+ *     <li>per_recipient encodes the packet for each client.</li>
+ *     <li>shared encodes the packet once and sends the same frame.</li>
+ * </ul>
+ */
+public class BroadcastBenchmark {
+
+    private static final int[] FAN_OUT = new int[]{1, 10, 100, 1000};
+
+    public static void main(String[] args) {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1024;
+
+        // Create the received frame.
+        Map<String, Object> data = new HashMap<>();
+        data.put("message", "a".repeat(size));
+        Packet source = new Packet()
+                .setType(PacketType.EVENT)
+                .setIdentifier("com.github.kerbity.kerb.BenchmarkEvent")
+                .setSequenceIdentifier("benchmark")
+                .setData(data)
+                .setSource("127.0.0.1:7000");
+        Frame received = source.toFrame();
+
+        NullOutputStream sink = new NullOutputStream();
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        for (int width : FAN_OUT) {
+
+            // Warm up both paths.
+            BroadcastBenchmark.perRecipient(received, width, amount / 4, sink);
+            BroadcastBenchmark.shared(received, width, amount / 4, sink);
+
+            long from = bean.getCurrentThreadCpuTime();
+            BroadcastBenchmark.perRecipient(received, width, amount, sink);
+            long perRecipient = bean.getCurrentThreadCpuTime() - from;
+
+            from = bean.getCurrentThreadCpuTime();
+            BroadcastBenchmark.shared(received, width, amount, sink);
+            long shared = bean.getCurrentThreadCpuTime() - from;
+
+            System.out.println("fanOut=" + width
+                    + " payloadBytes=" + received.getPayload().length
+                    + " perRecipientMicrosPerEvent=" + (perRecipient / amount / 1000)
+                    + " sharedMicrosPerEvent=" + (shared / amount / 1000)
+                    + " bytesWritten=" + sink.getSize());
+        }
+    }
+
+    private static void perRecipient(Frame received, int width, int amount, OutputStream sink) {
+        for (int index = 0; index < amount; index++) {
+            Packet packet = Packet.getPacket(received.getPayloadString());
+            for (int recipient = 0; recipient < width; recipient++) {
+                BroadcastBenchmark.write(sink, packet.getPacketString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static void shared(Frame received, int width, int amount, OutputStream sink) {
+        for (int index = 0; index < amount; index++) {
+            Frame frame = Packet.getPacket(received).toFrame();
+            for (int recipient = 0; recipient < width; recipient++) {
+                BroadcastBenchmark.write(sink, frame.getPayload());
+            }
+        }
+    }
+
+    private static void write(OutputStream sink, byte[] payload) {
+        try {
+            sink.write(payload);
+        } catch (Exception exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+
+    /**
+     * Counts the bytes written instead of sending them.
+     */
+    private static class NullOutputStream extends OutputStream {
+
+        private long size;
+
+        @Override
+        public void write(int value) {
+            this.size++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            this.size += length;
+        }
+
+        public long getSize() {
+            return this.size;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.client.listener.EventListener;
+import com.github.kerbity.kerb.creator.ClientCreator;
+import com.github.kerbity.kerb.creator.ServerCreator;
+import com.github.kerbity.kerb.packet.event.Priority;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.github.kerbity.kerb.server.Server;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Used to compare the latency of calling an event
+ * when the client asks for the number of clients first
+ * and when it uses the number the server sent.
+ * <ul>
+ *     <li>Arguments: [amount of clients] [amount of events]</li>
+ *     <li>round_trip clears the cached amount before each call.</li>
+ *     <li>cached uses the amount the server sent when the clients joined.</li>
+ * </ul>
+ */
+public class CallEventBenchmark {
+
+    public static void main(String[] args) throws InterruptedException {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int amount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        List<KerbClient> clientList = new ArrayList<>();
+
+        for (int index = 0; index < clients; index++) {
+            KerbClient client = ClientCreator.create(server.getPort(), server.getAddress());
+            client.connect();
+            client.registerListener(Priority.LOW, (EventListener<PingEvent>) event -> {
+                event.set(client.getAdapted());
+                return event;
+            });
+            clientList.add(client);
+        }
+
+        // Wait for the server to send the amount of clients.
+        KerbClient caller = clientList.get(0);
+        while (caller.getCachedAmountOfClients() != clients) {
+            Thread.sleep(10);
+        }
+
+        // Warm up both paths.
+        CallEventBenchmark.run(caller, amount / 4, false);
+        CallEventBenchmark.run(caller, amount / 4, true);
+
+        long[] roundTrip = CallEventBenchmark.run(caller, amount, false);
+        long[] cached = CallEventBenchmark.run(caller, amount, true);
+
+        System.out.println("clients=" + clients
+                + " roundTripP50Micros=" + CallEventBenchmark.percentile(roundTrip, 50)
+                + " roundTripP99Micros=" + CallEventBenchmark.percentile(roundTrip, 99)
+                + " cachedP50Micros=" + CallEventBenchmark.percentile(cached, 50)
+                + " cachedP99Micros=" + CallEventBenchmark.percentile(cached, 99));
+
+        // The clients would otherwise try to reconnect.
+        server.stop();
+        System.exit(0);
+    }
+
+    private static long[] run(KerbClient caller, int amount, boolean cached) {
+        int clients = caller.getCachedAmountOfClients();
+        long[] times = new long[amount];
+
+        for (int index = 0; index < amount; index++) {
+            if (!cached) caller.setCachedAmountOfClients(-1);
+
+            long from = System.nanoTime();
+            caller.callEvent(new PingEvent()).waitForFinalResult();
+            times[index] = (System.nanoTime() - from) / 1000;
+        }
+
+        caller.setCachedAmountOfClients(clients);
+        return times;
+    }
+
+    private static long percentile(long[] times, int percentile) {
+        long[] sorted = times.clone();
+        Arrays.sort(sorted);
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.google.gson.Gson;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Used to compare the throughput of encoding and decoding packets
+ * when a new gson is created for each step and when the shared
+ * codec is used.
+ * <ul>
+ *     <li>Arguments: [amount of packets] [amount of values in the large object]</li>
+ *     <li>new_gson creates a gson for each step, like packets used to.</li>
+ *     <li>shared uses the packet methods, which use the shared codec.</li>
+ *     <li>nested also writes the data as nested json instead of a json string.</li>
+ * </ul>
+ */
+public class CodecBenchmark {
+
+    public static void main(String[] args) {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        CodecBenchmark.run("ping", new PingEvent(), PingEvent.class, amount);
+        CodecBenchmark.run("large", new LargeObject(size), LargeObject.class, Math.max(1, amount / 100));
+    }
+
+    private static <T> void run(String name, T object, Class<T> type, int amount) {
+
+        // Warm up both paths.
+        CodecBenchmark.newGson(object, type, amount / 4);
+        CodecBenchmark.shared(object, type, amount / 4, false);
+        CodecBenchmark.shared(object, type, amount / 4, true);
+
+        long from = System.nanoTime();
+        CodecBenchmark.newGson(object, type, amount);
+        long newGson = System.nanoTime() - from;
+
+        from = System.nanoTime();
+        int sharedSize = CodecBenchmark.shared(object, type, amount, false);
+        long shared = System.nanoTime() - from;
+
+        from = System.nanoTime();
+        int nestedSize = CodecBenchmark.shared(object, type, amount, true);
+        long nested = System.nanoTime() - from;
+
+        System.out.println("object=" + name
+                + " newGsonPacketsPerSecond=" + (amount * 1_000_000_000L / Math.max(1, newGson))
+                + " sharedPacketsPerSecond=" + (amount * 1_000_000_000L / Math.max(1, shared))
+                + " nestedPacketsPerSecond=" + (amount * 1_000_000_000L / Math.max(1, nested))
+                + " sharedBytes=" + sharedSize
+                + " nestedBytes=" + nestedSize);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void newGson(T object, Class<T> type, int amount) {
+        for (int index = 0; index < amount; index++) {
+
+            // Encode.
+            Map<String, Object> map = new HashMap<>();
+            map.put("type", PacketType.EVENT.getIdentifier());
+            map.put("identifier", type.getName());
+            map.put("data", new Gson().toJson(object));
+            String json = new Gson().toJson(map);
+
+            // Decode.
+            Map<String, Object> read = new Gson().fromJson(json, Map.class);
+            T result = new Gson().fromJson((String) read.get("data"), type);
+            if (result == null) throw new RuntimeException("Decoded object was null.");
+        }
+    }
+
+    private static <T> int shared(T object, Class<T> type, int amount, boolean nestedData) {
+        int size = 0;
+        for (int index = 0; index < amount; index++) {
+
+            // Encode.
+            String json = new Packet()
+                    .setType(PacketType.EVENT)
+                    .setIdentifier(type.getName())
+                    .setData(object)
+                    .getPacketString(nestedData);
+            size = json.length();
+
+            // Decode.
+            T result = Packet.getPacket(json).getData(type);
+            if (result == null) throw new RuntimeException("Decoded object was null.");
+        }
+        return size;
+    }
+
+    /**
+     * An object with many values.
+     */
+    public static class LargeObject {
+
+        private final List<String> values;
+        private final Map<String, Integer> counts;
+
+        /**
+         * Used to create a large object.
+         *
+         * @param size The amount of values.
+         */
+        public LargeObject(int size) {
+            this.values = new ArrayList<>(size);
+            this.counts = new HashMap<>(size);
+            for (int index = 0; index < size; index++) {
+                this.values.add("value-" + index);
+                this.counts.put("key-" + index, index);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.result.CompletableResultSet;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Used to compare how long a waiting thread takes to wake up
+ * after the last result of a round trip is added.
+ * <ul>
+ *     <li>Arguments: [amount of round trips] [reply time in milliseconds]</li>
+ *     <li>polling checks the results every 100ms, which is how the wait methods used to work.</li>
+ *     <li>signalled uses {@link CompletableResultSet#waitForFinalResult()}.</li>
+ *     <li>future uses {@link CompletableResultSet#toFuture()}.</li>
+ * </ul>
+ * For event round trips over a real connection
+ * see {@link VirtualThreadBenchmark}.
+ */
+public class CompletionBenchmark {
+
+    private static final int POLL_TIME_MILLIS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        long replyMillis = args.length > 1 ? Long.parseLong(args[1]) : 2;
+
+        CompletionBenchmark.print("polling", CompletionBenchmark.run(amount, replyMillis, 0));
+        CompletionBenchmark.print("signalled", CompletionBenchmark.run(amount, replyMillis, 1));
+        CompletionBenchmark.print("future", CompletionBenchmark.run(amount, replyMillis, 2));
+    }
+
+    private static long[] run(int amount, long replyMillis, int mode) throws Exception {
+        long[] latency = new long[amount];
+
+        for (int index = 0; index < amount; index++) {
+            CompletableResultSet<Integer> resultSet = new CompletableResultSet<>(2);
+
+            // Reply from another thread like the connection would.
+            long from = System.nanoTime();
+            Thread reply = new Thread(() -> {
+                try {
+                    Thread.sleep(replyMillis);
+                } catch (InterruptedException exception) {
+                    throw new RuntimeException(exception);
+                }
+                resultSet.addResult(1);
+                resultSet.addResult(2);
+            });
+            reply.start();
+
+            switch (mode) {
+                case 0 -> {
+                    while (!resultSet.isComplete()) {
+                        Thread.sleep(POLL_TIME_MILLIS);
+                    }
+                }
+                case 1 -> resultSet.waitForFinalResult();
+                default -> {
+                    CompletableFuture<?> future = resultSet.toFuture();
+                    future.get();
+                }
+            }
+
+            latency[index] = System.nanoTime() - from;
+            reply.join();
+        }
+
+        Arrays.sort(latency);
+        return latency;
+    }
+
+    private static void print(String name, long[] latency) {
+        System.out.println(name
+                + " p50Micros=" + (latency[latency.length / 2] / 1000)
+                + " p99Micros=" + (latency[(int) (latency.length * 0.99)] / 1000));
+    }
+}
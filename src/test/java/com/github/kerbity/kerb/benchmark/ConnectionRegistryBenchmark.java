@@ -0,0 +1,172 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.Main;
+import com.github.kerbity.kerb.server.ConnectionRegistry;
+import com.github.kerbity.kerb.server.Server;
+import com.github.kerbity.kerb.server.ServerConnection;
+import com.github.squishylib.configuration.Configuration;
+import com.github.squishylib.configuration.ConfigurationFactory;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Used to compare finding the source of an event result
+ * by scanning the connection list and by using the registry.
+ * <ul>
+ *     <li>Arguments: [amount of lookups]</li>
+ *     <li>scan loops though the list like the server used to.</li>
+ *     <li>registry gets the connection by its identifier.</li>
+ * </ul>
+ */
+public class ConnectionRegistryBenchmark {
+
+    private static final int[] CONNECTIONS = new int[]{1000, 10000};
+
+    public static void main(String[] args) {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        ConfigurationFactory configurationFactory = ConfigurationFactory.YAML;
+        Configuration configuration = configurationFactory.create(new File("src/main/resources/hidden_resource/settings.yml"), Main.class);
+        configuration.load();
+
+        Server server = new Server(
+                0,
+                new File(configuration.getString("server_certificate_path")),
+                new File(configuration.getString("client_certificate_path")),
+                configuration.getString("password"),
+                configuration
+        );
+
+        for (int size : CONNECTIONS) {
+            List<ServerConnection> connectionList = new ArrayList<>();
+            ConnectionRegistry registry = new ConnectionRegistry();
+
+            for (int index = 0; index < size; index++) {
+                ServerConnection connection = new BenchmarkConnection(server, "client-" + index);
+                connectionList.add(connection);
+                registry.add(connection);
+                registry.index(connection);
+            }
+
+            // Pick the sources the results are sent back to.
+            Random random = new Random(size);
+            String[] sources = new String[amount];
+            for (int index = 0; index < amount; index++) {
+                sources[index] = "client-" + random.nextInt(size);
+            }
+
+            // Warm up both paths.
+            ConnectionRegistryBenchmark.scan(connectionList, sources);
+            ConnectionRegistryBenchmark.lookup(registry, sources);
+
+            long from = System.nanoTime();
+            int found = ConnectionRegistryBenchmark.scan(connectionList, sources);
+            long scan = System.nanoTime() - from;
+
+            from = System.nanoTime();
+            found += ConnectionRegistryBenchmark.lookup(registry, sources);
+            long lookup = System.nanoTime() - from;
+
+            System.out.println("connections=" + size
+                    + " scanNanosPerResult=" + (scan / amount)
+                    + " registryNanosPerResult=" + (lookup / amount)
+                    + " found=" + found);
+        }
+
+        server.getDispatchExecutor().shutdown();
+    }
+
+    private static int scan(List<ServerConnection> connectionList, String[] sources) {
+        int found = 0;
+        for (String source : sources) {
+            for (ServerConnection connection : connectionList) {
+                if (!connection.isValid()) continue;
+                if (!source.equals(connection.getIdentifier())) continue;
+                found++;
+                break;
+            }
+        }
+        return found;
+    }
+
+    private static int lookup(ConnectionRegistry registry, String[] sources) {
+        int found = 0;
+        for (String source : sources) {
+            ServerConnection connection = registry.getByIdentifier(source);
+            if (connection != null && connection.isValid()) found++;
+        }
+        return found;
+    }
+
+    /**
+     * A validated connection that is not connected to a client.
+     */
+    private static class BenchmarkConnection extends ServerConnection {
+
+        private final @NotNull String identifier;
+
+        public BenchmarkConnection(@NotNull Server server, @NotNull String identifier) {
+            super(server, new NullSocket(), server.getLogger());
+            this.identifier = identifier;
+        }
+
+        @Override
+        public @NotNull String getIdentifier() {
+            return this.identifier;
+        }
+
+        @Override
+        public @NotNull String getName() {
+            return this.identifier;
+        }
+
+        @Override
+        public boolean isValid() {
+            return true;
+        }
+    }
+
+    /**
+     * A socket with empty streams.
+     */
+    private static class NullSocket extends Socket {
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return OutputStream.nullOutputStream();
+        }
+    }
+}
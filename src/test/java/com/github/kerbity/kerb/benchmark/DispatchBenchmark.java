@@ -0,0 +1,108 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.task.DispatchExecutor;
+import com.github.kerbity.kerb.task.RejectionPolicy;
+import com.github.minemaniauk.developertools.console.Logger;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * Used to compare starting a thread for each packet
+ * with interpreting packets on the dispatch executor.
+ * <ul>
+ *     <li>Arguments: [amount of packets] [work per packet in microseconds]</li>
+ *     <li>Latency is the time from a packet being read to it being interpreted.</li>
+ * </ul>
+ */
+public class DispatchBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        long workMicros = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        Executor threadPerPacket = runnable -> new Thread(runnable).start();
+        DispatchExecutor dispatchExecutor = new DispatchExecutor(
+                "benchmark-dispatch",
+                DispatchExecutor.DEFAULT_THREADS,
+                DispatchExecutor.DEFAULT_QUEUE_SIZE,
+                RejectionPolicy.CALLER_RUNS,
+                new Logger(false)
+        );
+
+        // Warm up both executors.
+        DispatchBenchmark.run(threadPerPacket, amount / 10, workMicros);
+        DispatchBenchmark.run(dispatchExecutor, amount / 10, workMicros);
+
+        DispatchBenchmark.print("thread_per_packet", DispatchBenchmark.run(threadPerPacket, amount, workMicros), amount);
+        DispatchBenchmark.print("dispatch_executor", DispatchBenchmark.run(dispatchExecutor, amount, workMicros), amount);
+
+        dispatchExecutor.shutdown();
+    }
+
+    /**
+     * Used to send packets to an executor as fast
+     * as they could be read from a connection.
+     *
+     * @return The latency of each packet in nanoseconds,
+     * followed by the total time taken.
+     */
+    private static long[] run(Executor executor, int amount, long workMicros) throws InterruptedException {
+        long[] latency = new long[amount + 1];
+        CountDownLatch latch = new CountDownLatch(amount);
+
+        long from = System.nanoTime();
+        for (int index = 0; index < amount; index++) {
+            final int packet = index;
+            final long readAt = System.nanoTime();
+            executor.execute(() -> {
+                latency[packet] = System.nanoTime() - readAt;
+                DispatchBenchmark.work(workMicros);
+                latch.countDown();
+            });
+        }
+        latch.await();
+        latency[amount] = System.nanoTime() - from;
+        return latency;
+    }
+
+    private static void work(long micros) {
+        long until = System.nanoTime() + micros * 1000;
+        while (System.nanoTime() < until) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void print(String name, long[] result, int amount) {
+        long total = result[amount];
+        long[] latency = Arrays.copyOf(result, amount);
+        Arrays.sort(latency);
+
+        System.out.println(name
+                + " packetsPerSecond=" + (amount * 1_000_000_000L / Math.max(1, total))
+                + " p50Micros=" + (latency[amount / 2] / 1000)
+                + " p99Micros=" + (latency[(int) (amount * 0.99)] / 1000)
+                + " maxMicros=" + (latency[amount - 1] / 1000));
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.Connection;
+import com.github.kerbity.kerb.Main;
+import com.github.kerbity.kerb.creator.ServerCreator;
+import com.github.kerbity.kerb.server.Server;
+import com.github.kerbity.kerb.server.TransportType;
+import com.github.minemaniauk.developertools.console.Logger;
+import com.github.squishylib.configuration.Configuration;
+import com.github.squishylib.configuration.ConfigurationFactory;
+
+import javax.net.ssl.*;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Used to compare the resources used by each transport
+ * when lots of clients are connected but idle.
+ * <ul>
+ *     <li>Arguments: [blocking/nio] [amount of clients]</li>
+ *     <li>The open file limit may need to be raised for 10k clients.</li>
+ * </ul>
+ */
+public class IdleConnectionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        TransportType transport = args.length > 0 ? TransportType.fromIdentifier(args[0]) : TransportType.NIO;
+        int amount = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        if (transport == null) transport = TransportType.NIO;
+
+        // Load settings.
+        Configuration configuration = ConfigurationFactory.YAML.create(new File("src/main/resources/hidden_resource/settings.yml"), Main.class);
+        configuration.load();
+        configuration.set("transport", transport.getIdentifier());
+        configuration.set("timeout", 3600);
+
+        Server server = new Server(
+                ServerCreator.nextPort(),
+                new File(configuration.getString("server_certificate_path")),
+                new File(configuration.getString("client_certificate_path")),
+                configuration.getString("password"),
+                configuration
+        );
+        new Thread(server::start).start();
+        server.waitForStartup();
+
+        // Create the client socket factory.
+        Logger logger = new Logger(false);
+        String password = configuration.getString("password");
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(
+                new KeyManager[]{Connection.createKeyManager(Connection.createKeyStore(new File(configuration.getString("client_certificate_path")), password), password, logger)},
+                new TrustManager[]{Connection.createTrustManager(new File(configuration.getString("server_certificate_path")), password, logger)},
+                null
+        );
+        SSLSocketFactory socketFactory = sslContext.getSocketFactory();
+
+        // Connect the idle clients.
+        // The clients complete the ssl handshake but never read.
+        List<SSLSocket> socketList = new ArrayList<>();
+        long from = System.currentTimeMillis();
+        for (int index = 0; index < amount; index++) {
+            SSLSocket socket = (SSLSocket) socketFactory.createSocket(server.getAddress(), server.getPort());
+            socket.setEnabledProtocols(new String[]{"TLSv1.2"});
+            socket.startHandshake();
+            socketList.add(socket);
+        }
+
+        while (server.getSize() < amount) {
+            Thread.sleep(100);
+        }
+
+        System.gc();
+        Thread.sleep(1000);
+
+        Runtime runtime = Runtime.getRuntime();
+        long usedMegabytes = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+
+        System.out.println("transport=" + transport
+                + " connections=" + server.getSize()
+                + " threads=" + ManagementFactory.getThreadMXBean().getThreadCount()
+                + " heapUsedMb=" + usedMegabytes
+                + " connectMillis=" + (System.currentTimeMillis() - from));
+
+        for (SSLSocket socket : socketList) {
+            socket.close();
+        }
+        server.stop();
+        System.exit(0);
+    }
+}
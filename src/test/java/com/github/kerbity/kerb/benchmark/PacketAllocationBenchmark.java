@@ -0,0 +1,120 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketCodec;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.github.squishylib.configuration.implementation.MemoryConfigurationSection;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Used to compare the memory allocated for each packet
+ * when it is kept as a map in a configuration section,
+ * like packets used to be, and when it is kept as fields.
+ * <ul>
+ *     <li>Arguments: [amount of packets]</li>
+ *     <li>read decodes a packet and reads its routing values.</li>
+ *     <li>relay also changes the source and encodes the packet again.</li>
+ *     <li>The allocated bytes are measured for the benchmark thread.</li>
+ * </ul>
+ */
+public class PacketAllocationBenchmark {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        byte[] payload = new Packet()
+                .setType(PacketType.EVENT_RESULT)
+                .setIdentifier(PingEvent.class.getName())
+                .setSequenceIdentifier(UUID.randomUUID().toString())
+                .setSource("client")
+                .setData(new PingEvent())
+                .getPacketString(true)
+                .getBytes(StandardCharsets.UTF_8);
+        Frame frame = new Frame(PacketType.EVENT_RESULT.getCode(), payload);
+
+        // Warm up both paths.
+        PacketAllocationBenchmark.map(payload, amount / 4, false);
+        PacketAllocationBenchmark.map(payload, amount / 4, true);
+        PacketAllocationBenchmark.fields(frame, amount / 4, false);
+        PacketAllocationBenchmark.fields(frame, amount / 4, true);
+
+        PacketAllocationBenchmark.run("map_read", amount, () -> PacketAllocationBenchmark.map(payload, amount, false));
+        PacketAllocationBenchmark.run("fields_read", amount, () -> PacketAllocationBenchmark.fields(frame, amount, false));
+        PacketAllocationBenchmark.run("map_relay", amount, () -> PacketAllocationBenchmark.map(payload, amount, true));
+        PacketAllocationBenchmark.run("fields_relay", amount, () -> PacketAllocationBenchmark.fields(frame, amount, true));
+    }
+
+    private static void run(String name, int amount, Runnable runnable) {
+        long fromBytes = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+        long from = System.nanoTime();
+        runnable.run();
+        long time = System.nanoTime() - from;
+        long bytes = THREAD_BEAN.getCurrentThreadAllocatedBytes() - fromBytes;
+
+        System.out.println("path=" + name
+                + " packetsPerSecond=" + (amount * 1_000_000_000L / Math.max(1, time))
+                + " allocatedBytesPerPacket=" + (bytes / amount));
+    }
+
+    private static void map(byte[] payload, int amount, boolean relay) {
+        int found = 0;
+        for (int index = 0; index < amount; index++) {
+            Map<String, Object> map = PacketCodec.getShared().readPacket(payload);
+            MemoryConfigurationSection section = new MemoryConfigurationSection(map);
+
+            if (PacketType.fromIdentifier(section.getString("type")) != null) found++;
+            if (section.getString("identifier") != null) found++;
+            if (section.getString("sequence_identifier") != null) found++;
+
+            if (!relay) continue;
+            section.set("source", "server");
+            found += PacketCodec.getShared().writePacket(map, true).getBytes(StandardCharsets.UTF_8).length;
+        }
+        if (found == 0) throw new RuntimeException("No values were read.");
+    }
+
+    private static void fields(Frame frame, int amount, boolean relay) {
+        int found = 0;
+        for (int index = 0; index < amount; index++) {
+            Packet packet = Packet.getPacket(frame);
+
+            if (packet.getType() != null) found++;
+            if (packet.getIdentifier() != null) found++;
+            if (packet.getSequenceIdentifier() != null) found++;
+
+            if (!relay) continue;
+            packet.setSource("server");
+            found += packet.toFrame(true).getPayload().length;
+        }
+        if (found == 0) throw new RuntimeException("No values were read.");
+    }
+}
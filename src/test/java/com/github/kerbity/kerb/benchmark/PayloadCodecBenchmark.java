@@ -0,0 +1,115 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.PayloadCodec;
+import com.github.kerbity.kerb.packet.PayloadCodecRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Used to compare the size and speed of each payload codec
+ * when sending many small telemetry objects.
+ * <ul>
+ *     <li>Arguments: [amount of packets] [amount of samples per packet] [codecs]</li>
+ *     <li>The codecs are separated by commas, for example "json,binary".</li>
+ *     <li>Each packet is encoded as a frame and decoded back into samples.</li>
+ * </ul>
+ */
+public class PayloadCodecBenchmark {
+
+    public static void main(String[] args) {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        String[] codecs = (args.length > 2 ? args[2] : "json,binary").split(",");
+
+        Sample[] samples = new Sample[size];
+        for (int index = 0; index < size; index++) {
+            samples[index] = new Sample(index);
+        }
+
+        for (String identifier : codecs) {
+            PayloadCodec codec = PayloadCodecRegistry.getShared().get(identifier);
+            if (codec == null) throw new RuntimeException("Payload codec is not registered. codec=" + identifier);
+
+            // Warm up.
+            PayloadCodecBenchmark.run(codec, samples, amount / 4);
+
+            long from = System.nanoTime();
+            int bytes = PayloadCodecBenchmark.run(codec, samples, amount);
+            long taken = System.nanoTime() - from;
+
+            System.out.println("codec=" + codec.getIdentifier()
+                    + " packetsPerSecond=" + (amount * 1_000_000_000L / Math.max(1, taken))
+                    + " bytesPerPacket=" + bytes);
+        }
+    }
+
+    private static int run(PayloadCodec codec, Sample[] samples, int amount) {
+        int bytes = 0;
+        for (int index = 0; index < amount; index++) {
+
+            // Encode.
+            byte[] payload = new Packet()
+                    .setType(PacketType.OBJECT)
+                    .setIdentifier(Sample[].class.getName())
+                    .setData(samples, codec)
+                    .toFrame(true)
+                    .getPayload();
+            bytes = payload.length;
+
+            // Decode.
+            Sample[] result = Packet.getPacket(new String(payload, StandardCharsets.UTF_8)).getData(Sample[].class);
+            if (result == null || result.length != samples.length) {
+                throw new RuntimeException("Decoded samples did not match.");
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * A single telemetry reading.
+     */
+    public static class Sample {
+
+        private final long timestamp;
+        private final double value;
+        private final int count;
+        private final String sensor;
+        private final Map<String, String> tags;
+
+        /**
+         * Used to create a sample.
+         *
+         * @param index The index of the sample.
+         */
+        public Sample(int index) {
+            this.timestamp = 1_700_000_000_000L + index;
+            this.value = 20.5 + index * 0.25;
+            this.count = index;
+            this.sensor = "sensor-" + (index % 4);
+            this.tags = Map.of("room", "room-" + (index % 2));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.packet.Frame;
+import com.github.kerbity.kerb.packet.Packet;
+import com.github.kerbity.kerb.packet.PacketHeader;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.kerbity.kerb.packet.event.Event;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.github.kerbity.kerb.result.CompletableResultSet;
+import com.google.gson.Gson;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Used to compare the cpu time the caller spends reading
+ * the results of one event as the amount of replying clients grows.
+ * <ul>
+ *     <li>Arguments: [amount of events] [batch size]</li>
+ *     <li>individual reads one event result packet per client.</li>
+ *     <li>batched reads the event results packets the server collected.</li>
+ * </ul>
+ */
+public class ResultAggregationBenchmark {
+
+    private static final int[] FAN_OUT = new int[]{100, 500, 1000};
+    private static final String SEQUENCE_IDENTIFIER = "benchmark";
+
+    public static void main(String[] args) {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        for (int width : FAN_OUT) {
+            List<Frame> individual = ResultAggregationBenchmark.createIndividual(width);
+            List<Frame> batched = ResultAggregationBenchmark.createBatched(width, batchSize);
+
+            // Warm up both paths.
+            ResultAggregationBenchmark.read(individual, width, amount / 4);
+            ResultAggregationBenchmark.read(batched, width, amount / 4);
+
+            long from = bean.getCurrentThreadCpuTime();
+            ResultAggregationBenchmark.read(individual, width, amount);
+            long individualTime = bean.getCurrentThreadCpuTime() - from;
+
+            from = bean.getCurrentThreadCpuTime();
+            ResultAggregationBenchmark.read(batched, width, amount);
+            long batchedTime = bean.getCurrentThreadCpuTime() - from;
+
+            System.out.println("fanOut=" + width
+                    + " batchSize=" + batchSize
+                    + " individualPackets=" + individual.size()
+                    + " batchedPackets=" + batched.size()
+                    + " individualMicrosPerEvent=" + (individualTime / amount / 1000)
+                    + " batchedMicrosPerEvent=" + (batchedTime / amount / 1000));
+        }
+    }
+
+    private static List<Frame> createIndividual(int width) {
+        List<Frame> frameList = new ArrayList<>(width);
+        for (int index = 0; index < width; index++) {
+            frameList.add(new Packet()
+                    .setType(PacketType.EVENT_RESULT)
+                    .setIdentifier(PingEvent.class.getName())
+                    .setSequenceIdentifier(SEQUENCE_IDENTIFIER)
+                    .setData(new PingEvent())
+                    .setSource("127.0.0.1:7000")
+                    .toFrame()
+            );
+        }
+        return frameList;
+    }
+
+    private static List<Frame> createBatched(int width, int batchSize) {
+        Gson gson = new Gson();
+        int size = batchSize <= 0 ? width : batchSize;
+
+        List<Frame> frameList = new ArrayList<>();
+        List<String[]> buffer = new ArrayList<>();
+        for (int index = 0; index < width; index++) {
+            buffer.add(new String[]{PingEvent.class.getName(), gson.toJson(new PingEvent())});
+
+            // Check if the batch is full or this is the last result.
+            if (buffer.size() < size && index < width - 1) continue;
+
+            frameList.add(new Packet()
+                    .setType(PacketType.EVENT_RESULTS)
+                    .setSequenceIdentifier(SEQUENCE_IDENTIFIER)
+                    .setData(buffer)
+                    .toFrame()
+            );
+            buffer = new ArrayList<>();
+        }
+        return frameList;
+    }
+
+    private static void read(List<Frame> frameList, int width, int amount) {
+        for (int index = 0; index < amount; index++) {
+            CompletableResultSet<PingEvent> resultSet = new CompletableResultSet<>(width);
+
+            for (Frame frame : frameList) {
+                PacketHeader.read(frame.getPayload());
+                Packet packet = Packet.getPacket(frame);
+
+                if (packet.getType() == PacketType.EVENT_RESULT) {
+                    resultSet.addAmbiguousResult(ResultAggregationBenchmark.decode(
+                            new Gson(), packet.getIdentifier(), packet.getData()
+                    ));
+                    continue;
+                }
+
+                Gson gson = new Gson();
+                String[][] results = packet.getData(String[][].class);
+                if (results == null) continue;
+                for (String[] result : results) {
+                    resultSet.addAmbiguousResult(ResultAggregationBenchmark.decode(gson, result[0], result[1]));
+                }
+            }
+
+            if (!resultSet.isComplete()) throw new RuntimeException("Expected " + width + " results.");
+        }
+    }
+
+    private static Event decode(Gson gson, String identifier, String data) {
+        try {
+            return (Event) gson.fromJson(data, Class.forName(identifier));
+        } catch (ClassNotFoundException exception) {
+            throw new RuntimeException(exception);
+        }
+    }
+}
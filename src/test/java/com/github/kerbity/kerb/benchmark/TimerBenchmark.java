@@ -0,0 +1,128 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.task.TaskContainer;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Used to compare the timing wheel with starting a
+ * sleeping thread for each task, which is how tasks
+ * used to be run.
+ * <ul>
+ *     <li>Arguments: [amount of tasks] [delay in milliseconds]</li>
+ *     <li>Half of the tasks are cancelled, like results that complete before their timeout.</li>
+ * </ul>
+ */
+public class TimerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int amount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        long delay = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+
+        // The timing wheel is run first so the threads
+        // from the other run are not counted.
+        TimerBenchmark.print("timing_wheel", TimerBenchmark.runTimingWheel(amount, delay), amount);
+        TimerBenchmark.print("thread_per_task", TimerBenchmark.runThreadPerTask(amount, delay), amount);
+    }
+
+    private static long[] runTimingWheel(int amount, long delay) throws InterruptedException {
+        Container container = new Container();
+        CountDownLatch latch = new CountDownLatch(amount / 2);
+
+        long from = System.nanoTime();
+        for (int index = 0; index < amount; index++) {
+            container.run(latch::countDown, Duration.ofMillis(delay), "task-" + index);
+        }
+        long scheduleNanos = System.nanoTime() - from;
+        long[] usage = TimerBenchmark.usage();
+
+        for (int index = 0; index < amount; index += 2) {
+            container.stopTask("task-" + index);
+        }
+        latch.await();
+        return new long[]{scheduleNanos, usage[0], usage[1], System.nanoTime() - from};
+    }
+
+    private static long[] runThreadPerTask(int amount, long delay) throws InterruptedException {
+        AtomicBoolean[] running = new AtomicBoolean[amount];
+        CountDownLatch latch = new CountDownLatch(amount / 2);
+
+        long from = System.nanoTime();
+        for (int index = 0; index < amount; index++) {
+            AtomicBoolean taskRunning = new AtomicBoolean(true);
+            running[index] = taskRunning;
+            new Thread(() -> {
+                long start = System.currentTimeMillis();
+                while (taskRunning.get()) {
+                    if (System.currentTimeMillis() - start >= delay) break;
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException exception) {
+                        throw new RuntimeException(exception);
+                    }
+                }
+                if (taskRunning.get()) latch.countDown();
+            }).start();
+        }
+        long scheduleNanos = System.nanoTime() - from;
+        long[] usage = TimerBenchmark.usage();
+
+        for (int index = 0; index < amount; index += 2) {
+            running[index].set(false);
+        }
+        latch.await();
+        return new long[]{scheduleNanos, usage[0], usage[1], System.nanoTime() - from};
+    }
+
+    /**
+     * @return The number of threads and the heap used in megabytes.
+     */
+    private static long[] usage() {
+        Runtime runtime = Runtime.getRuntime();
+        return new long[]{
+                ManagementFactory.getThreadMXBean().getThreadCount(),
+                (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024)
+        };
+    }
+
+    private static void print(String name, long[] result, int amount) {
+        System.out.println(name
+                + " tasksPerSecond=" + (amount * 1_000_000_000L / Math.max(1, result[0]))
+                + " threads=" + result[1]
+                + " heapUsedMb=" + result[2]
+                + " totalMillis=" + (result[3] / 1_000_000));
+    }
+
+    /**
+     * Gives the benchmark access to the protected run task method.
+     */
+    private static class Container extends TaskContainer {
+
+        public void run(Runnable runnable, Duration duration, String identifier) {
+            this.runTask(runnable, duration, identifier);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.benchmark;
+
+import com.github.kerbity.kerb.Connection;
+import com.github.kerbity.kerb.Main;
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.client.listener.EventListener;
+import com.github.kerbity.kerb.creator.ClientCreator;
+import com.github.kerbity.kerb.creator.ServerCreator;
+import com.github.kerbity.kerb.packet.event.Priority;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.github.kerbity.kerb.server.Server;
+import com.github.kerbity.kerb.task.KerbThreads;
+import com.github.minemaniauk.developertools.console.Logger;
+import com.github.squishylib.configuration.Configuration;
+import com.github.squishylib.configuration.ConfigurationFactory;
+
+import javax.net.ssl.*;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Used to compare platform threads with virtual threads
+ * while lots of clients are connected.
+ * <ul>
+ *     <li>Arguments: [platform/virtual] [amount of idle clients] [amount of events]</li>
+ *     <li>Virtual threads need java 21 or above.</li>
+ *     <li>The thread count only includes platform threads, which carry the virtual threads.</li>
+ * </ul>
+ */
+public class VirtualThreadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        boolean virtual = args.length > 0 && args[0].equalsIgnoreCase("virtual");
+        int amount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int events = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        if (virtual && !KerbThreads.setVirtual(true)) {
+            System.out.println("Virtual threads are not supported by this java version.");
+            return;
+        }
+
+        // Load settings.
+        Configuration configuration = ConfigurationFactory.YAML.create(new File("src/main/resources/hidden_resource/settings.yml"), Main.class);
+        configuration.load();
+        configuration.set("transport", "blocking");
+        configuration.set("virtual_threads", virtual);
+        configuration.set("timeout", 3600);
+
+        Server server = new Server(
+                ServerCreator.nextPort(),
+                new File(configuration.getString("server_certificate_path")),
+                new File(configuration.getString("client_certificate_path")),
+                configuration.getString("password"),
+                configuration
+        );
+        KerbThreads.start("benchmark-server", server::start);
+        server.waitForStartup();
+
+        // Create the client socket factory.
+        Logger logger = new Logger(false);
+        String password = configuration.getString("password");
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(
+                new KeyManager[]{Connection.createKeyManager(Connection.createKeyStore(new File(configuration.getString("client_certificate_path")), password), password, logger)},
+                new TrustManager[]{Connection.createTrustManager(new File(configuration.getString("server_certificate_path")), password, logger)},
+                null
+        );
+        SSLSocketFactory socketFactory = sslContext.getSocketFactory();
+
+        // Connect the idle clients.
+        List<SSLSocket> socketList = new ArrayList<>();
+        for (int index = 0; index < amount; index++) {
+            SSLSocket socket = (SSLSocket) socketFactory.createSocket(server.getAddress(), server.getPort());
+            socket.setEnabledProtocols(new String[]{"TLSv1.2"});
+            socket.startHandshake();
+            socketList.add(socket);
+        }
+
+        // Connect two clients that will send events to each other.
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+        client2.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Measure the time taken for each event to return.
+        long[] latency = new long[events];
+        for (int index = 0; index < events; index++) {
+            long from = System.nanoTime();
+            client1.callEvent(new PingEvent()).waitForFinalResult();
+            latency[index] = System.nanoTime() - from;
+        }
+        Arrays.sort(latency);
+
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long usedMegabytes = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+
+        System.out.println("threads=" + (virtual ? "virtual" : "platform")
+                + " connections=" + server.getSize()
+                + " platformThreads=" + ManagementFactory.getThreadMXBean().getThreadCount()
+                + " heapUsedMb=" + usedMegabytes
+                + " p50Micros=" + (latency[events / 2] / 1000)
+                + " p99Micros=" + (latency[(int) (events * 0.99)] / 1000));
+
+        for (SSLSocket socket : socketList) {
+            socket.close();
+        }
+        client1.disconnect();
+        client2.disconnect();
+        server.stop();
+        System.exit(0);
+    }
+}
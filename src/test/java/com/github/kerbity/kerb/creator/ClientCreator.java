@@ -54,7 +54,7 @@ public class ClientCreator {
         );
     }
 
-    private static void setup(int port, String address) {
+    private static void setup(int port, String address, boolean autoReconnect) {
 
         // Load settings.
         ConfigurationFactory configurationFactory = ConfigurationFactory.YAML;
@@ -68,7 +68,7 @@ public class ClientCreator {
                 new File(configuration.getString("server_certificate_path")),
                 configuration.getString("password"),
                 Duration.ofMillis(configuration.getInteger("maxWaitTimeMillis", 500)),
-                true,
+                autoReconnect,
                 Duration.ofMillis(500),
                 -1
         );
@@ -98,7 +98,22 @@ public class ClientCreator {
      * @return The instance of a new kerb client.
      */
     public static @NotNull KerbClient create(int port, String address) {
-        ClientCreator.setup(port, address);
+        return ClientCreator.create(port, address, true);
+    }
+
+    /**
+     * Used to create a new instance of a kerb client.
+     * This will also create the factory if
+     * it hasn't yet been created.
+     *
+     * @param port          The port to connect to.
+     * @param address       The address to connect to.
+     * @param autoReconnect If the client should reconnect
+     *                      after being disconnected.
+     * @return The instance of a new kerb client.
+     */
+    public static @NotNull KerbClient create(int port, String address, boolean autoReconnect) {
+        ClientCreator.setup(port, address, autoReconnect);
 
         assert factory != null;
         return factory.create();
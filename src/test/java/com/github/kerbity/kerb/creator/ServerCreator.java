@@ -33,9 +33,14 @@ public class ServerCreator {
     private static int currentPort = 5000;
 
     public static @NotNull Server createAndStart() {
+        return ServerCreator.createAndStart(null);
+    }
+
+    public static @NotNull Server createAndStart(String transport) {
         ConfigurationFactory configurationFactory = ConfigurationFactory.YAML;
         Configuration configuration = configurationFactory.create(new File("src/main/resources/hidden_resource/settings.yml"), Main.class);
         configuration.load();
+        if (transport != null) configuration.set("transport", transport);
 
         Server server = new Server(
                 ServerCreator.nextPort(),
@@ -103,4 +103,24 @@ public class ConnectionTests {
                 .expect(client.isValid())
                 .expect(server.getConnectionList().get(0).isValid());
     }
+
+    @Test
+    @Order(3)
+    public void testClientAmountIsSentToClients() throws InterruptedException {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+
+        // Create two client connections.
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Give the server time to send the amount.
+        Thread.sleep(500);
+
+        // Check both clients know the number of clients.
+        new ResultChecker()
+                .expect(client1.getCachedAmountOfClients(), 2)
+                .expect(client2.getCachedAmountOfClients(), 2);
+    }
 }
@@ -25,17 +25,26 @@ import com.github.kerbity.kerb.client.listener.EventListener;
 import com.github.kerbity.kerb.creator.ClientCreator;
 import com.github.kerbity.kerb.creator.ServerCreator;
 import com.github.kerbity.kerb.event.CompletableTest;
+import com.github.kerbity.kerb.packet.BalanceStrategy;
+import com.github.kerbity.kerb.packet.BinaryPayloadCodec;
 import com.github.kerbity.kerb.packet.event.Priority;
 import com.github.kerbity.kerb.packet.event.event.PingEvent;
 import com.github.kerbity.kerb.result.CompletableResultSet;
+import com.github.kerbity.kerb.result.CompleteReason;
+import com.github.kerbity.kerb.result.CompletionCondition;
+import com.github.kerbity.kerb.result.ResultSet;
 import com.github.kerbity.kerb.server.Server;
+import com.github.kerbity.kerb.server.ServerConnection;
+import com.github.kerbity.kerb.task.RejectionPolicy;
 import com.github.minemaniauk.developertools.testing.ResultChecker;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Contains tests for kerb events.
@@ -126,4 +135,388 @@ public class EventTests {
         // This is because the first listener took too long.
         new ResultChecker().expect(resultSet.waitForComplete().containsCancelled());
     }
+
+    @Test
+    @Order(2)
+    public void testEventIsOnlySentToSubscribedClients() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Register listeners for different events.
+        client1.registerListener(Priority.HIGH, CompletableTest.class, event -> event);
+        client2.registerListener(Priority.HIGH, PingEvent.class, event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Only the second client listens to the ping event.
+        CompletableResultSet<PingEvent> resultSet = client1.callEvent(new PingEvent());
+        List<PingEvent> results = resultSet.waitForFinalResult();
+
+        new ResultChecker()
+                .expect(client2.getSubscriptionResult().isComplete())
+                .expect(client2.getSubscriptionResult().getSize() == 1)
+                .expect(results.size() == 1)
+                .expect(results.get(0).get().getName(), client2.getName());
+    }
+
+    @Test
+    @Order(3)
+    public void testEventIsOnlySentToTarget() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Both clients would reply to the ping event.
+        client1.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client1.getAdapted());
+            return event;
+        });
+        client2.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Only call the event on the second client.
+        List<PingEvent> results = client1.callEvent(client2.getIdentifier(), new PingEvent()).waitForFinalResult();
+
+        new ResultChecker()
+                .expect(results.size() == 1)
+                .expect(results.get(0).get().getIdentifier(), client2.getIdentifier());
+    }
+
+    @Test
+    @Order(4)
+    public void testEventIsOnlySentToChannelMembers() throws InterruptedException {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Both clients would reply to the ping event.
+        client1.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client1.getAdapted());
+            return event;
+        });
+        client2.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Only the second client joins the channel.
+        client2.joinChannel("test-channel");
+
+        // Give the server time to receive the channels.
+        Thread.sleep(500);
+
+        List<PingEvent> results = client1.callChannelEvent("test-channel", new PingEvent()).waitForFinalResult();
+
+        new ResultChecker()
+                .expect(results.size() == 1)
+                .expect(results.get(0).get().getIdentifier(), client2.getIdentifier());
+    }
+
+    @Test
+    @Order(5)
+    public void testAnyEventIsSentToOneClient() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Both clients would reply to the ping event.
+        client1.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client1.getAdapted());
+            return event;
+        });
+        client2.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Round robin should take turns between the clients.
+        PingEvent first = client1.callAnyEvent(BalanceStrategy.ROUND_ROBIN, new PingEvent()).waitForFirstNonNullAssumption();
+        PingEvent second = client1.callAnyEvent(BalanceStrategy.ROUND_ROBIN, new PingEvent()).waitForFirstNonNullAssumption();
+
+        // The same key should go to the same client.
+        PingEvent keyed1 = client1.callAnyEvent("key", new PingEvent()).waitForFirstNonNullAssumption();
+        PingEvent keyed2 = client1.callAnyEvent("key", new PingEvent()).waitForFirstNonNullAssumption();
+
+        new ResultChecker()
+                .expect(!first.get().getIdentifier().equals(second.get().getIdentifier()))
+                .expect(keyed1.get().getIdentifier(), keyed2.get().getIdentifier());
+    }
+
+    @Test
+    @Order(6)
+    public void testAggregatedResults() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient caller = ClientCreator.create(server.getPort(), server.getAddress());
+        caller.setAggregateResults(true);
+        caller.connect();
+
+        // Register a listener on a few clients.
+        for (int index = 0; index < 3; index++) {
+            KerbClient client = ClientCreator.create(server.getPort(), server.getAddress());
+            client.connect();
+            client.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+                event.set(client.getAdapted());
+                return event;
+            });
+        }
+
+        // The results should be sent back together.
+        List<PingEvent> results = caller.callEvent(new PingEvent()).waitForFinalResult();
+
+        new ResultChecker()
+                .expect(results.size() == 3)
+                .expect(results.stream().allMatch(event -> event.get() != null));
+    }
+
+    @Test
+    @Order(7)
+    public void testConditionCancelsSlowClients() throws InterruptedException {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient caller = ClientCreator.create(server.getPort(), server.getAddress());
+        caller.connect();
+        KerbClient fast = ClientCreator.create(server.getPort(), server.getAddress());
+        fast.connect();
+        AtomicInteger finished = new AtomicInteger();
+
+        // Register a listener that replies straight away.
+        fast.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(fast.getAdapted());
+            return event;
+        });
+
+        // Register slow listeners that should be skipped.
+        for (int index = 0; index < 2; index++) {
+            KerbClient slow = ClientCreator.create(server.getPort(), server.getAddress());
+            slow.connect();
+            slow.registerListener(Priority.LOW, (EventListener<PingEvent>) event -> {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException exception) {
+                    throw new RuntimeException(exception);
+                }
+                return event;
+            });
+            slow.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+                finished.incrementAndGet();
+                return event;
+            });
+        }
+
+        // Only the first result is needed.
+        CompletableResultSet<PingEvent> resultSet = caller.callEvent(new PingEvent(), CompletionCondition.firstNonNull());
+        List<PingEvent> results = resultSet.waitForFinalResult();
+
+        // Wait for the slow listeners to end.
+        Thread.sleep(1000);
+
+        new ResultChecker()
+                .expect(results.size() == 1)
+                .expect(resultSet.getCompleteReason() == CompleteReason.CONDITION)
+                .expect(finished.get() == 0);
+    }
+
+    @Test
+    @Order(8)
+    public void testTypeNumbersAreUsedAfterFirstEvent() throws InterruptedException {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient caller = ClientCreator.create(server.getPort(), server.getAddress());
+        caller.connect();
+        KerbClient client = ClientCreator.create(server.getPort(), server.getAddress());
+        client.connect();
+
+        client.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(client.getAdapted());
+            return event;
+        });
+
+        // The first event gives the class a number.
+        PingEvent first = caller.callEvent(new PingEvent()).waitForFirstNonNullAssumption();
+
+        // Wait for the caller to be sent the number.
+        while (!caller.getTypeRegistry().contains(PingEvent.class.getName())) {
+            Thread.sleep(10);
+        }
+
+        // The second event is sent using the number.
+        PingEvent second = caller.callEvent(new PingEvent()).waitForFirstNonNullAssumption();
+
+        new ResultChecker()
+                .expect(first.get().getIdentifier(), client.getIdentifier())
+                .expect(second.get().getIdentifier(), client.getIdentifier());
+    }
+
+    @Test
+    @Order(8)
+    public void testTypeNumbersStopAtMaxSize() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        int maxSize = server.getTypeRegistryMaxSize();
+
+        // Send more class names than can be given numbers.
+        for (int index = 0; index <= maxSize; index++) {
+            server.registerType("com.example.Type" + index);
+        }
+
+        new ResultChecker()
+                .expect(server.getTypeRegistry().getSize(), maxSize)
+                .expect(server.getTypeRegistry().contains("com.example.Type" + (maxSize - 1)))
+                .expect(!server.getTypeRegistry().contains("com.example.Type" + maxSize));
+    }
+
+    @Test
+    @Order(9)
+    public void testBinaryPayloadCodec() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient caller = ClientCreator.create(server.getPort(), server.getAddress());
+        caller.setPayloadCodec(BinaryPayloadCodec.IDENTIFIER);
+        caller.connect();
+
+        // One client replies using json, the other using binary.
+        KerbClient jsonClient = ClientCreator.create(server.getPort(), server.getAddress());
+        jsonClient.connect();
+        jsonClient.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(jsonClient.getAdapted());
+            return event;
+        });
+
+        KerbClient binaryClient = ClientCreator.create(server.getPort(), server.getAddress());
+        binaryClient.setPayloadCodec(BinaryPayloadCodec.IDENTIFIER);
+        binaryClient.connect();
+        binaryClient.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(binaryClient.getAdapted());
+            return event;
+        });
+
+        List<PingEvent> results = caller.callEvent(new PingEvent()).waitForFinalResult();
+
+        new ResultChecker()
+                .expect(caller.getPayloadCodec() == BinaryPayloadCodec.getShared())
+                .expect(results.size() == 2)
+                .expect(results.stream().allMatch(result -> result.get() != null));
+    }
+
+    @Test
+    @Order(10)
+    public void testNestedEventsWhenDispatchQueueIsFull() {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient caller = ClientCreator.create(server.getPort(), server.getAddress());
+        caller.connect();
+
+        // Use a single dispatch thread with a tiny queue,
+        // so the queue is full while a listener is running.
+        KerbClient listener = ClientCreator.create(server.getPort(), server.getAddress());
+        listener.setDispatchExecutor(1, 1, RejectionPolicy.BLOCK);
+        listener.connect();
+
+        // The caller answers the nested event.
+        caller.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            event.set(caller.getAdapted());
+            return event;
+        });
+
+        // The listener calls a nested event and waits for it,
+        // which needs the reader to keep reading the results.
+        listener.registerListener(Priority.HIGH, (EventListener<CompletableTest>) event -> {
+            PingEvent result = listener.callEvent(new PingEvent()).waitForFirstNonNull();
+            event.setCancelled(result != null);
+            return event;
+        });
+
+        // Call more events than the queue can hold.
+        List<CompletableResultSet<CompletableTest>> resultSets = new ArrayList<>();
+        for (int index = 0; index < 4; index++) {
+            resultSets.add(caller.callEvent(new CompletableTest()));
+        }
+
+        new ResultChecker().expect(resultSets.stream().allMatch(
+                resultSet -> resultSet.waitForComplete().containsCancelled()
+        ));
+    }
+
+    @Test
+    @Order(11)
+    public void testResultsWaitForClientThatJoinedAfterCount() throws InterruptedException {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        client1.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> event);
+        client2.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> event);
+
+        // Wait for the server to push the number of clients.
+        Thread.sleep(500);
+        int amountBeforeJoin = client1.getCachedAmountOfClients();
+
+        // Connect another client that also listens to the event.
+        KerbClient client3 = ClientCreator.create(server.getPort(), server.getAddress());
+        client3.connect();
+        client3.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> event);
+        Thread.sleep(500);
+
+        // Call the event as if the new number
+        // of clients has not been pushed yet.
+        client1.setCachedAmountOfClients(amountBeforeJoin);
+        ResultSet<PingEvent> resultSet = client1.callEvent(new PingEvent()).waitForComplete();
+
+        // Ensure the server raised the number of results to wait for.
+        new ResultChecker()
+                .expect(amountBeforeJoin, 2)
+                .expect(resultSet.getMaxSize(), 3)
+                .expect(resultSet.getSize(), 3);
+    }
+
+    @Test
+    @Order(12)
+    public void testOutstandingEventsAreRemoved() throws InterruptedException {
+        Server server = ServerCreator.createAndStart().waitForStartup();
+        KerbClient caller = ClientCreator.create(server.getPort(), server.getAddress(), false);
+        caller.connect();
+        KerbClient client = ClientCreator.create(server.getPort(), server.getAddress());
+        client.connect();
+
+        // Reply after the caller has stopped waiting.
+        client.registerListener(Priority.HIGH, (EventListener<PingEvent>) event -> {
+            try {
+                Thread.sleep(3000);
+            } catch (InterruptedException exception) {
+                throw new RuntimeException(exception);
+            }
+            return event;
+        });
+        ServerConnection connection = server.getConnectionRegistry().getByIdentifier(client.getIdentifier());
+
+        // The events are forgotten after the max wait time.
+        caller.callAnyEvent(BalanceStrategy.LEAST_OUTSTANDING, new PingEvent());
+        caller.callAnyEvent(BalanceStrategy.LEAST_OUTSTANDING, new PingEvent());
+        Thread.sleep(200);
+        int amountSent = connection.getAmountOfOutstanding();
+        Thread.sleep(1000);
+        int amountAfterWait = connection.getAmountOfOutstanding();
+
+        // The events are forgotten when the caller disconnects.
+        caller.callAnyEvent(BalanceStrategy.LEAST_OUTSTANDING, new PingEvent());
+        Thread.sleep(200);
+        int amountBeforeDisconnect = connection.getAmountOfOutstanding();
+        caller.disconnect();
+        Thread.sleep(200);
+
+        new ResultChecker()
+                .expect(amountSent, 2)
+                .expect(amountAfterWait, 0)
+                .expect(amountBeforeDisconnect, 1)
+                .expect(connection.getAmountOfOutstanding(), 0);
+    }
 }
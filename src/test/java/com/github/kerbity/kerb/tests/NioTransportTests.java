@@ -0,0 +1,186 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.tests;
+
+import com.github.kerbity.kerb.client.KerbClient;
+import com.github.kerbity.kerb.client.listener.EventListener;
+import com.github.kerbity.kerb.creator.ClientCreator;
+import com.github.kerbity.kerb.creator.ServerCreator;
+import com.github.kerbity.kerb.event.MessageTest;
+import com.github.kerbity.kerb.packet.event.Priority;
+import com.github.kerbity.kerb.packet.event.event.PingEvent;
+import com.github.kerbity.kerb.result.CompletableResultSet;
+import com.github.kerbity.kerb.server.Server;
+import com.github.minemaniauk.developertools.testing.ResultChecker;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.util.List;
+
+/**
+ * Contains tests for connecting to a server
+ * that is using the non-blocking transport.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class NioTransportTests {
+
+    @Test
+    @Order(0)
+    public void testValidation() throws InterruptedException {
+        Server server = ServerCreator.createAndStart("nio").waitForStartup();
+
+        // Create a client connection.
+        // This requires the ssl handshake to complete.
+        KerbClient client = ClientCreator.create(server.getPort(), server.getAddress());
+        client.connect();
+
+        // Give the server time to read the identifier.
+        Thread.sleep(500);
+
+        // Check if the client was validated.
+        new ResultChecker()
+                .expect(client.isValid())
+                .expect(server.getConnectionList().get(0).isValid());
+    }
+
+    @Test
+    @Order(1)
+    public void testFramedEvent() {
+        Server server = ServerCreator.createAndStart("nio").waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Set up an event listener for the ping event.
+        client2.registerListener(Priority.LOW, (EventListener<PingEvent>) event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Call the ping event.
+        CompletableResultSet<PingEvent> resultSet = client1.callEvent(new PingEvent());
+
+        // Ensure the event was sent over frames.
+        new ResultChecker()
+                .expect(resultSet.waitForFirstNonNull() != null)
+                .expect(resultSet.waitForFirstNonNullAssumption().get().getName(), client2.getName());
+    }
+
+    @Test
+    @Order(2)
+    public void testLineEvent() {
+        Server server = ServerCreator.createAndStart("nio").waitForStartup();
+
+        // Create a client that only sends lines
+        // and a client that sends frames.
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.setFramedProtocol(false);
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.connect();
+
+        // Set up an event listener on both clients.
+        client1.registerListener(Priority.LOW, (EventListener<PingEvent>) event -> {
+            event.set(client1.getAdapted());
+            return event;
+        });
+        client2.registerListener(Priority.LOW, (EventListener<PingEvent>) event -> {
+            event.set(client2.getAdapted());
+            return event;
+        });
+
+        // Call the ping event from the line client.
+        List<PingEvent> results = client1.callEvent(new PingEvent()).waitForFinalResult();
+
+        // Ensure both clients responded.
+        new ResultChecker().expect(results.size(), 2);
+    }
+
+    @Test
+    @Order(3)
+    public void testLargeEvent() {
+        Server server = ServerCreator.createAndStart("nio").waitForStartup();
+        KerbClient client1 = ClientCreator.create(server.getPort(), server.getAddress());
+        client1.connect();
+        KerbClient client2 = ClientCreator.create(server.getPort(), server.getAddress());
+        client2.setFramedProtocol(false);
+        client2.connect();
+
+        // Echo the message back.
+        client2.registerListener(Priority.LOW, (EventListener<MessageTest>) event -> event);
+
+        // Send a message larger than many ssl records.
+        String message = "kerb".repeat(25000);
+        CompletableResultSet<MessageTest> resultSet = client1.callEvent(new MessageTest(message));
+
+        // Ensure the whole message was sent both ways.
+        new ResultChecker()
+                .expect(resultSet.waitForFirstNonNull() != null)
+                .expect(resultSet.waitForFirstNonNullAssumption().getMessage(), message);
+    }
+
+    @Test
+    @Order(4)
+    public void testReconnectingWhenServerDisconnectsClient() throws InterruptedException {
+        Server server = ServerCreator.createAndStart("nio").waitForStartup();
+
+        // Create a client connection.
+        KerbClient client = ClientCreator.create(server.getPort(), server.getAddress());
+        client.connect();
+
+        // Disconnect the client from the server.
+        server.getConnectionList().get(0).disconnect(true);
+
+        // Wait until it has reconnected.
+        client.waitForInvalid().waitForValid();
+
+        // Give the server time to read the identifier.
+        Thread.sleep(500);
+
+        // Check if the client was validated.
+        new ResultChecker()
+                .expect(client.isValid())
+                .expect(server.getConnectionList().get(0).isValid());
+    }
+
+    @Test
+    @Order(5)
+    public void testServerRemovesDisconnectedClient() throws InterruptedException {
+        Server server = ServerCreator.createAndStart("nio").waitForStartup();
+
+        // Create a client connection that won't reconnect.
+        KerbClient client = ClientCreator.create(server.getPort(), server.getAddress(), false);
+        client.connect();
+        client.waitForValid();
+
+        // Disconnect the client from its side.
+        client.disconnect();
+
+        // Give the event loop time to notice.
+        Thread.sleep(500);
+
+        // Check the connection was removed.
+        new ResultChecker().expect(server.getSize(), 0);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Kerb
+ * Event and request distributor server software.
+ *
+ * Copyright (C) 2023  Smuddgge
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.github.kerbity.kerb.tests;
+
+import com.github.kerbity.kerb.packet.PacketHeader;
+import com.github.kerbity.kerb.packet.PacketType;
+import com.github.minemaniauk.developertools.testing.ResultChecker;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Contains tests for reading packet
+ * headers from a packet's json bytes.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+public class PacketHeaderTests {
+
+    @Test
+    @Order(0)
+    public void testReadHeader() {
+        PacketHeader header = PacketHeader.read(PacketHeaderTests.bytes(
+                "{\"type\":\"event\",\"identifier\":\"PingEvent\",\"sequence_identifier\":\"123\","
+                        + "\"source\":\"client1\",\"target\":\"client2\",\"channel\":\"lobby\"}"
+        ));
+
+        new ResultChecker()
+                .expect(header != null)
+                .expect(header.getType() == PacketType.EVENT)
+                .expect(header.getIdentifier(), "PingEvent")
+                .expect(header.getSequenceIdentifier(), "123")
+                .expect(header.getSource(), "client1")
+                .expect(header.getTarget(), "client2")
+                .expect(header.getChannel(), "lobby");
+    }
+
+    @Test
+    @Order(1)
+    public void testEscapes() {
+        PacketHeader header = PacketHeader.read(PacketHeaderTests.bytes(
+                "{\"identifier\":\"a\\\"b\\\\c\\/d\\n\\u0041\\u00e9\"}"
+        ));
+
+        new ResultChecker()
+                .expect(header != null)
+                .expect(header.getIdentifier(), "a\"b\\c/d\nA\u00e9");
+    }
+
+    @Test
+    @Order(2)
+    public void testNestedData() {
+        byte[] payload = PacketHeaderTests.bytes(
+                "{\"data\":{\"name\":\"}\",\"list\":[1,{\"type\":\"x\"}]},\"type\":\"event\"}"
+        );
+        PacketHeader header = PacketHeader.read(payload);
+
+        // The type inside the data should not be used.
+        new ResultChecker()
+                .expect(header != null)
+                .expect(header.getType() == PacketType.EVENT)
+                .expect(PacketHeader.isNestedValue(payload, "data"))
+                .expect(PacketHeader.readValue(payload, "data"), "{\"name\":\"}\",\"list\":[1,{\"type\":\"x\"}]}");
+    }
+
+    @Test
+    @Order(3)
+    public void testUnknownKeys() {
+        byte[] payload = PacketHeaderTests.bytes(
+                "{ \"unknown\" : [true, null, 1.5e3], \"other\":\"value\", \"source\" : \"client1\" }"
+        );
+        PacketHeader header = PacketHeader.read(payload);
+        Map<String, Object> values = PacketHeader.readValues(payload);
+
+        new ResultChecker()
+                .expect(header != null)
+                .expect(header.getSource(), "client1")
+                .expect(header.getType() == null)
+                .expect(values != null)
+                .expect(values.get("other"), "value")
+                .expect(values.get("unknown"), "[true, null, 1.5e3]");
+    }
+
+    @Test
+    @Order(4)
+    public void testTruncatedInput() {
+        new ResultChecker()
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"type\"")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"type\":")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"type\":\"eve")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"type\":\"event\"")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"data\":{\"a\":[1,2}")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"source\":123")) == null);
+    }
+
+    @Test
+    @Order(5)
+    public void testMalformedInput() {
+        new ResultChecker()
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("[]")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{type:\"event\"}")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"type\" \"event\"}")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"source\":\"\\u12\"}")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"source\":\"\\uZZZZ\"}")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"source\":\"\\q\"}")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"source\":\"\\")) == null)
+                .expect(PacketHeader.read(PacketHeaderTests.bytes("{\"data\":{\"a\":\"\\u00G0\"}}")) == null)
+                .expect(PacketHeader.readValue(PacketHeaderTests.bytes("{\"source\":\"\\u12\"}"), "source") == null)
+                .expect(PacketHeader.readValues(PacketHeaderTests.bytes("{\"source\":\"\\uZZZZ\"}")) == null);
+    }
+
+    @Test
+    @Order(6)
+    public void testDuplicateKeys() {
+        PacketHeader header = PacketHeader.read(PacketHeaderTests.bytes(
+                "{\"type\":\"event\",\"type\":\"event\",\"type\":\"event\",\"type\":\"event\","
+                        + "\"type\":\"event\",\"type\":\"event\",\"type\":\"event\",\"type\":\"object\","
+                        + "\"identifier\":\"first\",\"identifier\":\"second\"}"
+        ));
+
+        // The last value should be used, and the repeated
+        // keys should not stop the other keys being read.
+        new ResultChecker()
+                .expect(header != null)
+                .expect(header.getType() == PacketType.OBJECT)
+                .expect(header.getIdentifier(), "second");
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}